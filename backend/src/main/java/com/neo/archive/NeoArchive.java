@@ -0,0 +1,367 @@
+package com.neo.archive;
+
+import com.neo.config.ArchiveConfig;
+import com.neo.model.NearEarthObject;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only local archive of NEO feed days, so historical data survives restarts without
+ * spending NASA quota. Two files:
+ *
+ * <pre>
+ * neo-archive.dat  header(16) then fixed 48-byte records:
+ *                  int epochDay, int flags, int idRef, int nameRef,
+ *                  double diameterMin, double diameterMax, double velocity, double missDistance
+ * neo-archive.str  header(8) then [int length][UTF-8 bytes] entries, referenced by byte offset
+ * </pre>
+ *
+ * A day is committed by a marker record written after its NEO records, so days with no
+ * close approaches are archived too and a torn append is dropped on the next open.
+ * Both files are read through memory-mapped buffers; no JSON is involved.
+ */
+@Component
+public class NeoArchive {
+
+    private static final int DATA_MAGIC = 0x4E454F41; // "NEOA"
+    private static final int STRING_MAGIC = 0x4E454F53; // "NEOS"
+    private static final int VERSION = 1;
+
+    private static final int DATA_HEADER_BYTES = 16;
+    private static final int STRING_HEADER_BYTES = 8;
+    private static final int RECORD_BYTES = 48;
+    private static final int MIN_MAPPED_RECORDS = 1024;
+    // records read at a time while indexing on open
+    private static final int SCAN_WINDOW_RECORDS = 1024;
+
+    private static final int FLAG_HAZARDOUS = 1;
+    private static final int FLAG_DAY_MARKER = 1 << 31;
+
+    private final boolean enabled;
+    private final Path dataFile;
+    private final Path stringFile;
+
+    // day -> {first record index, record count}
+    private final Map<Long, int[]> dayIndex = new HashMap<>();
+    // offsets where string entries start; the strings are decoded from the mapping when read
+    private final BitSet stringEntries = new BitSet();
+    // value -> offset, only needed to append, so built on the first append
+    private Map<String, Integer> stringRefs;
+
+    private FileChannel dataChannel;
+    private FileChannel stringChannel;
+    private MappedByteBuffer dataMap;
+    private MappedByteBuffer stringMap;
+    private int recordCount;
+    private int stringBytes;
+
+    public NeoArchive(ArchiveConfig config) {
+        this.enabled = config.isEnabled();
+        this.dataFile = config.getDirectory().resolve("neo-archive.dat");
+        this.stringFile = config.getDirectory().resolve("neo-archive.str");
+
+        if (enabled) {
+            try {
+                open(config.getDirectory());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open NEO archive in " + config.getDirectory(), e);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized int getArchivedDayCount() {
+        return dayIndex.size();
+    }
+
+    public synchronized boolean contains(LocalDate day) {
+        return dayIndex.containsKey(day.toEpochDay());
+    }
+
+    /**
+     * Returns the archived NEOs for the day, or null if the day was never archived.
+     */
+    public synchronized List<NearEarthObject> read(LocalDate day) {
+        int[] range = dayIndex.get(day.toEpochDay());
+        if (range == null) {
+            return null;
+        }
+        ensureMapped();
+        return readRecords(range[0], range[1], day.toString());
+    }
+
+    /**
+     * Reads every archived day in date order.
+     */
+    public synchronized Map<LocalDate, List<NearEarthObject>> readAll() {
+        Map<LocalDate, List<NearEarthObject>> days = new LinkedHashMap<>();
+        if (!enabled) {
+            return days;
+        }
+        ensureMapped();
+        dayIndex.keySet().stream().sorted().forEach(epochDay -> {
+            int[] range = dayIndex.get(epochDay);
+            LocalDate day = LocalDate.ofEpochDay(epochDay);
+            days.put(day, readRecords(range[0], range[1], day.toString()));
+        });
+        return days;
+    }
+
+    public synchronized void append(LocalDate day, List<NearEarthObject> neos) {
+        if (!enabled || dayIndex.containsKey(day.toEpochDay())) {
+            return;
+        }
+
+        try {
+            int[] idRefs = new int[neos.size()];
+            int[] nameRefs = new int[neos.size()];
+            for (int i = 0; i < neos.size(); i++) {
+                idRefs[i] = internString(neos.get(i).getId());
+                nameRefs[i] = internString(neos.get(i).getName());
+            }
+            // strings must be durable before any record points at them
+            stringChannel.force(false);
+
+            int epochDay = (int) day.toEpochDay();
+            ByteBuffer records = ByteBuffer.allocate((neos.size() + 1) * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < neos.size(); i++) {
+                NearEarthObject neo = neos.get(i);
+                records.putInt(epochDay)
+                        .putInt(neo.isPotentiallyHazardous() ? FLAG_HAZARDOUS : 0)
+                        .putInt(idRefs[i])
+                        .putInt(nameRefs[i])
+                        .putDouble(neo.getDiameterMinMeters())
+                        .putDouble(neo.getDiameterMaxMeters())
+                        .putDouble(neo.getVelocityKmPerSec())
+                        .putDouble(neo.getMissDistanceKm());
+            }
+            records.putInt(epochDay).putInt(FLAG_DAY_MARKER).putInt(neos.size()).putInt(0)
+                    .putDouble(0).putDouble(0).putDouble(0).putDouble(0);
+            records.flip();
+
+            // after the last committed record, not the file end: the mapping may have padded the file
+            writeFully(dataChannel, records, committedBytes());
+            dataChannel.force(false);
+
+            dayIndex.put(day.toEpochDay(), new int[]{recordCount, neos.size()});
+            recordCount += neos.size() + 1;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to archive " + day, e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (dataChannel != null) {
+            // a file cannot be truncated safely while a mapping of it may still be live, so the
+            // mapping headroom stays until the next open trims it before mapping
+            dataMap = null;
+            stringMap = null;
+            dataChannel.close();
+            stringChannel.close();
+        }
+    }
+
+    private void open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        dataChannel = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        stringChannel = FileChannel.open(stringFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        initHeader(dataChannel, DATA_MAGIC, DATA_HEADER_BYTES);
+        initHeader(stringChannel, STRING_MAGIC, STRING_HEADER_BYTES);
+
+        loadStringTable();
+        indexRecords();
+    }
+
+    private void initHeader(FileChannel channel, int magic, int headerBytes) throws IOException {
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(headerBytes).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(magic).putInt(VERSION);
+            header.position(0);
+            writeFully(channel, header, 0);
+            channel.force(true);
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        header.flip();
+        if (header.remaining() < 8 || header.getInt() != magic || header.getInt() != VERSION) {
+            throw new IOException("Unrecognised archive file header");
+        }
+    }
+
+    // the entries are found with plain reads, so a torn tail is cut before the file is mapped
+    private void loadStringTable() throws IOException {
+        long size = stringChannel.size();
+        ByteBuffer window = ByteBuffer.allocate(SCAN_WINDOW_RECORDS * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        long windowStart = 0;
+        window.limit(0);
+
+        long position = STRING_HEADER_BYTES;
+        while (position + 4 <= size) {
+            if (position + 4 > windowStart + window.limit()) {
+                windowStart = position;
+                fill(stringChannel, window, windowStart);
+            }
+            int length = window.getInt((int) (position - windowStart));
+            if (length < 0 || position + 4L + length > size) {
+                break;
+            }
+            stringEntries.set((int) position);
+            position += 4 + length;
+        }
+
+        // drop a partially written trailing entry
+        if (position < size) {
+            stringChannel.truncate(position);
+        }
+        stringBytes = (int) position;
+    }
+
+    // same for the records: a torn append, or headroom left by an earlier mapping, is cut first
+    private void indexRecords() throws IOException {
+        long usable = (dataChannel.size() - DATA_HEADER_BYTES) / RECORD_BYTES;
+        ByteBuffer window = ByteBuffer.allocate(SCAN_WINDOW_RECORDS * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        int committed = 0;
+        int dayStart = 0;
+        for (int record = 0; record < usable; record++) {
+            int offset = record % SCAN_WINDOW_RECORDS * RECORD_BYTES;
+            if (offset == 0) {
+                fill(dataChannel, window, DATA_HEADER_BYTES + (long) record * RECORD_BYTES);
+            }
+            int flags = window.getInt(offset + 4);
+            if ((flags & FLAG_DAY_MARKER) != 0) {
+                int count = window.getInt(offset + 8);
+                if (count != record - dayStart) {
+                    break;
+                }
+                dayIndex.put((long) window.getInt(offset), new int[]{dayStart, count});
+                committed = record + 1;
+                dayStart = committed;
+            } else if (!isStringEntry(window.getInt(offset + 8)) || !isStringEntry(window.getInt(offset + 12))) {
+                break;
+            }
+        }
+
+        recordCount = committed;
+        if (dataChannel.size() > committedBytes()) {
+            dataChannel.truncate(committedBytes());
+        }
+    }
+
+    private boolean isStringEntry(int ref) {
+        return ref >= 0 && stringEntries.get(ref);
+    }
+
+    // remap after appends have grown a file past its mapping. The data mapping doubles the
+    // committed records, so a day appended per feed fetch does not remap on every read; the zero
+    // padding this leaves in the file carries no day marker and the next open trims it. The
+    // string mapping stops at the last entry, as padding there would read as empty strings.
+    private void ensureMapped() {
+        try {
+            if (dataMap == null || dataMap.capacity() < committedBytes()) {
+                long size = DATA_HEADER_BYTES + Math.max(2L * recordCount, MIN_MAPPED_RECORDS) * RECORD_BYTES;
+                dataMap = dataChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                dataMap.order(ByteOrder.LITTLE_ENDIAN);
+            }
+            if (stringMap == null || stringMap.capacity() < stringBytes) {
+                stringMap = stringChannel.map(FileChannel.MapMode.READ_ONLY, 0, stringBytes);
+                stringMap.order(ByteOrder.LITTLE_ENDIAN);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map NEO archive", e);
+        }
+    }
+
+    private long committedBytes() {
+        return DATA_HEADER_BYTES + (long) recordCount * RECORD_BYTES;
+    }
+
+    private List<NearEarthObject> readRecords(int firstRecord, int count, String date) {
+        List<NearEarthObject> neos = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int offset = DATA_HEADER_BYTES + (firstRecord + i) * RECORD_BYTES;
+            int flags = dataMap.getInt(offset + 4);
+            neos.add(new NearEarthObject(
+                    string(dataMap.getInt(offset + 8)),
+                    string(dataMap.getInt(offset + 12)),
+                    dataMap.getDouble(offset + 16),
+                    dataMap.getDouble(offset + 24),
+                    dataMap.getDouble(offset + 32),
+                    dataMap.getDouble(offset + 40),
+                    (flags & FLAG_HAZARDOUS) != 0,
+                    date));
+        }
+        return neos;
+    }
+
+    private String string(int ref) {
+        byte[] bytes = new byte[stringMap.getInt(ref)];
+        stringMap.get(ref + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int internString(String value) throws IOException {
+        if (stringRefs == null) {
+            ensureMapped();
+            stringRefs = new HashMap<>();
+            for (int ref = stringEntries.nextSetBit(0); ref >= 0; ref = stringEntries.nextSetBit(ref + 1)) {
+                stringRefs.putIfAbsent(string(ref), ref);
+            }
+        }
+        Integer existing = stringRefs.get(value);
+        if (existing != null) {
+            return existing;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int position = stringBytes;
+        ByteBuffer entry = ByteBuffer.allocate(4 + bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+        entry.putInt(bytes.length).put(bytes).flip();
+        writeFully(stringChannel, entry, position);
+
+        stringRefs.put(value, position);
+        stringEntries.set(position);
+        stringBytes += entry.limit();
+        return position;
+    }
+
+    // reads from position until the buffer is full or the file ends, then flips it
+    private static void fill(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) > 0) {
+            // keep reading
+        }
+        buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.neo.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache bounded by entry count and by an estimated byte weight, with a TTL per entry.
+ * Once its TTL passes an entry is stale: {@link #get} no longer returns it, but {@link #lookup}
+ * still does for the length of the stale window so callers can serve it while revalidating.
+ * Entries past the stale window are removed by {@link #sweepExpired()} or when they reach the LRU tail.
+ */
+public class BoundedCache<K, V> {
+
+    @FunctionalInterface
+    public interface Weigher<K, V> {
+        long weigh(K key, V value);
+    }
+
+    private final long maxEntries;
+    private final long maxWeight;
+    private final long staleWindowMillis;
+    private final Weigher<K, V> weigher;
+
+    // access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+
+    private long hits;
+    private long staleHits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    public BoundedCache(long maxEntries, long maxWeight, Weigher<K, V> weigher) {
+        this(maxEntries, maxWeight, Duration.ZERO, weigher);
+    }
+
+    public BoundedCache(long maxEntries, long maxWeight, Duration staleWindow, Weigher<K, V> weigher) {
+        if (maxEntries <= 0 || maxWeight <= 0) {
+            throw new IllegalArgumentException("Cache bounds must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.staleWindowMillis = staleWindow.toMillis();
+        this.weigher = weigher;
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     * Returns fresh or stale entries; null once the entry is absent or past its stale window.
+     */
+    public synchronized Lookup<V> lookup(K key) {
+        Entry<V> entry = entries.get(key);
+        long now = System.currentTimeMillis();
+        if (entry == null || entry.isDead(now, staleWindowMillis)) {
+            misses++;
+            return null;
+        }
+        if (entry.isExpired(now)) {
+            staleHits++;
+            return new Lookup<>(entry.value, true);
+        }
+        hits++;
+        return new Lookup<>(entry.value, false);
+    }
+
+    /**
+     * Like {@link #get} but without recording a hit or miss; for internal re-checks.
+     */
+    public synchronized V peek(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry == null || entry.isExpired(System.currentTimeMillis()) ? null : entry.value;
+    }
+
+    public synchronized void put(K key, V value, Duration ttl) {
+        long weight = Math.max(1, weigher.weigh(key, value));
+        Entry<V> previous = entries.put(key, new Entry<>(value, weight, System.currentTimeMillis() + ttl.toMillis()));
+        if (previous != null) {
+            totalWeight -= previous.weight;
+        }
+        totalWeight += weight;
+        evictIfNeeded();
+    }
+
+    public synchronized void invalidate(K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            totalWeight -= removed.weight;
+        }
+    }
+
+    /**
+     * Drops every entry past its stale window. Returns the number of entries removed.
+     */
+    public synchronized int sweepExpired() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        Iterator<Entry<V>> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry<V> entry = it.next();
+            if (entry.isDead(now, staleWindowMillis)) {
+                it.remove();
+                totalWeight -= entry.weight;
+                removed++;
+            }
+        }
+        expirations += removed;
+        return removed;
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits, staleHits, misses, evictions, expirations, entries.size(), totalWeight);
+    }
+
+    private void evictIfNeeded() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || totalWeight > maxWeight) && it.hasNext()) {
+            Entry<V> eldest = it.next().getValue();
+            it.remove();
+            totalWeight -= eldest.weight;
+            if (eldest.isDead(now, staleWindowMillis)) {
+                expirations++;
+            } else {
+                evictions++;
+            }
+        }
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long weight;
+        final long expiresAt;
+
+        Entry(V value, long weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+
+        boolean isDead(long now, long staleWindowMillis) {
+            return now >= expiresAt + staleWindowMillis;
+        }
+    }
+
+    public static final class Lookup<V> {
+        private final V value;
+        private final boolean stale;
+
+        Lookup(V value, boolean stale) {
+            this.value = value;
+            this.stale = stale;
+        }
+
+        public V value() {
+            return value;
+        }
+
+        public boolean isStale() {
+            return stale;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.neo.cache;
+
+public class CacheStats {
+
+    private final long hits;
+    private final long staleHits;
+    private final long misses;
+    private final long evictions;
+    private final long expirations;
+    private final long size;
+    private final long weightBytes;
+
+    public CacheStats(long hits, long staleHits, long misses, long evictions, long expirations, long size, long weightBytes) {
+        this.hits = hits;
+        this.staleHits = staleHits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.size = size;
+        this.weightBytes = weightBytes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getStaleHits() {
+        return staleHits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getExpirations() {
+        return expirations;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getWeightBytes() {
+        return weightBytes;
+    }
+
+    public double getHitRate() {
+        long requests = hits + staleHits + misses;
+        return requests == 0 ? 0.0 : (double) (hits + staleHits) / requests;
+    }
+}
@@ -0,0 +1,113 @@
+package com.neo.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A response body serialized once, with a hash of its bytes and, once first asked for, its
+ * compressed form. The compressed form is raw deflate closed by a sync flush instead of a final
+ * block, so {@link EncodedPayload} can join several bodies into one gzip stream as they are.
+ */
+public final class EncodedBody {
+
+    private final byte[] bytes;
+    private final int level;
+    private final int crc;
+    private final long hash;
+    private volatile byte[] deflated;
+
+    private EncodedBody(byte[] bytes, int level) {
+        this.bytes = bytes;
+        this.level = level;
+        CRC32 crc32 = new CRC32();
+        crc32.update(bytes);
+        this.crc = (int) crc32.getValue();
+        this.hash = sha256Prefix(bytes);
+    }
+
+    /**
+     * @param level deflate level used when the compressed form is first needed
+     */
+    public static EncodedBody of(byte[] bytes, int level) {
+        return new EncodedBody(bytes, level);
+    }
+
+    public static EncodedBody json(ObjectMapper objectMapper, Object value, int level) {
+        try {
+            return new EncodedBody(objectMapper.writeValueAsBytes(value), level);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public int length() {
+        return bytes.length;
+    }
+
+    public int getCrc() {
+        return crc;
+    }
+
+    // first 64 bits of the SHA-256 of the bytes
+    public long getHash() {
+        return hash;
+    }
+
+    public byte[] getDeflated() {
+        byte[] compressed = deflated;
+        if (compressed == null) {
+            // two threads may both compress; they produce the same bytes
+            compressed = deflate(bytes, level);
+            deflated = compressed;
+        }
+        return compressed;
+    }
+
+    // weight for cache accounting: both forms, counting the compressed one before it exists
+    public long weight() {
+        byte[] compressed = deflated;
+        return 64 + bytes.length + (compressed != null ? compressed.length : bytes.length / 4);
+    }
+
+    private static byte[] deflate(byte[] input, int level) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 4 + 64);
+            byte[] buffer = new byte[8192];
+            int written;
+            // a sync flush that fills the buffer may have more to give
+            do {
+                written = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                out.write(buffer, 0, written);
+            } while (written == buffer.length);
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static long sha256Prefix(byte[] input) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(input);
+            long prefix = 0;
+            for (int i = 0; i < 8; i++) {
+                prefix = (prefix << 8) | (digest[i] & 0xFF);
+            }
+            return prefix;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
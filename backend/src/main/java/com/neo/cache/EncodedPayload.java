@@ -0,0 +1,153 @@
+package com.neo.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * One response assembled from {@link EncodedBody} parts, written either as they are or as a
+ * single gzip member stitched from their deflate streams. Nothing is serialized or compressed
+ * here, so writing a payload costs a few array copies plus a few hundred bytes of framing.
+ */
+public final class EncodedPayload {
+
+    // magic, deflate, no flags, no mtime, no extra flags, unknown OS
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    // an empty final block with fixed Huffman codes, closing the deflate stream
+    private static final byte[] FINAL_BLOCK = {3, 0};
+
+    private final List<EncodedBody> parts;
+    private final String tag;
+    private final boolean gzip;
+
+    private EncodedPayload(List<EncodedBody> parts, String tag, boolean gzip) {
+        this.parts = parts;
+        this.tag = tag;
+        this.gzip = gzip;
+    }
+
+    public static EncodedPayload of(EncodedBody body) {
+        return of(List.of(body));
+    }
+
+    public static EncodedPayload of(List<EncodedBody> parts) {
+        // the tag hashes the parts' hashes, so it changes whenever any part does
+        ByteBuffer hashes = ByteBuffer.allocate(parts.size() * Long.BYTES);
+        for (EncodedBody part : parts) {
+            hashes.putLong(part.getHash());
+        }
+        String tag = Long.toHexString(EncodedBody.sha256Prefix(hashes.array()));
+        return new EncodedPayload(List.copyOf(parts), tag, false);
+    }
+
+    /**
+     * The same payload, gzip-encoded on the way out.
+     */
+    public EncodedPayload gzipped() {
+        return gzip ? this : new EncodedPayload(parts, tag, true);
+    }
+
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    /**
+     * A strong validator; each encoding gets its own, as its bytes differ.
+     */
+    public String getETag() {
+        return "\"" + tag + (gzip ? "-gzip" : "") + "\"";
+    }
+
+    public long getContentLength() {
+        long length = 0;
+        for (EncodedBody part : parts) {
+            length += gzip ? part.getDeflated().length : part.length();
+        }
+        return gzip ? GZIP_HEADER.length + length + FINAL_BLOCK.length + 8 : length;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        if (!gzip) {
+            for (EncodedBody part : parts) {
+                out.write(part.getBytes());
+            }
+            return;
+        }
+
+        out.write(GZIP_HEADER);
+        int crc = 0;
+        long length = 0;
+        for (EncodedBody part : parts) {
+            out.write(part.getDeflated());
+            crc = crc32Combine(crc, part.getCrc(), part.length());
+            length += part.length();
+        }
+        out.write(FINAL_BLOCK);
+        writeIntLE(out, crc);
+        writeIntLE(out, (int) length);
+    }
+
+    private static void writeIntLE(OutputStream out, int value) throws IOException {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    /**
+     * CRC-32 of two concatenated blocks from the CRCs of each and the second one's length,
+     * zlib's crc32_combine: the first CRC is advanced over {@code length2} zero bytes by
+     * repeated squaring of the one-zero-bit operator, then the second is folded in.
+     */
+    static int crc32Combine(int crc1, int crc2, long length2) {
+        if (length2 <= 0) {
+            return crc1;
+        }
+        int[] even = new int[32];
+        int[] odd = new int[32];
+
+        odd[0] = 0xEDB88320; // the reflected CRC-32 polynomial
+        int row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        square(even, odd); // two zero bits
+        square(odd, even); // four zero bits
+
+        // each round applies one more doubling of zero bytes, for the bits set in length2
+        do {
+            square(even, odd);
+            if ((length2 & 1) != 0) {
+                crc1 = times(even, crc1);
+            }
+            length2 >>= 1;
+            if (length2 == 0) {
+                break;
+            }
+            square(odd, even);
+            if ((length2 & 1) != 0) {
+                crc1 = times(odd, crc1);
+            }
+            length2 >>= 1;
+        } while (length2 != 0);
+        return crc1 ^ crc2;
+    }
+
+    private static int times(int[] matrix, int vector) {
+        int sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void square(int[] square, int[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = times(matrix, matrix[n]);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.neo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class ArchiveConfig {
+
+    @Value("${neo.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${neo.archive.dir:data/neo-archive}")
+    private String directory;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Path getDirectory() {
+        return Path.of(directory);
+    }
+}
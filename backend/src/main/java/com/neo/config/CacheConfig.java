@@ -0,0 +1,63 @@
+package com.neo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    @Value("${neo.cache.maxDays:3650}")
+    private long maxDays;
+
+    @Value("${neo.cache.maxWeightMb:64}")
+    private long maxWeightMb;
+
+    @Value("${neo.cache.todayTtlMinutes:60}")
+    private long todayTtlMinutes;
+
+    // past NeoWs days never change, so they can stay around much longer than today's feed
+    @Value("${neo.cache.historicalTtlHours:720}")
+    private long historicalTtlHours;
+
+    // how long an expired day may still be served while it is being refreshed
+    @Value("${neo.cache.staleWindowHours:24}")
+    private long staleWindowHours;
+
+    // serialized (and gzipped) feed days, kept next to the parsed ones
+    @Value("${neo.cache.bodyMaxWeightMb:64}")
+    private long bodyMaxWeightMb;
+
+    // feed days kept in the query column store; the least recently loaded day is dropped first
+    @Value("${neo.cache.storeMaxDays:3650}")
+    private long storeMaxDays;
+
+    public long getMaxDays() {
+        return maxDays;
+    }
+
+    public long getMaxWeightBytes() {
+        return maxWeightMb * 1024 * 1024;
+    }
+
+    public Duration getTodayTtl() {
+        return Duration.ofMinutes(todayTtlMinutes);
+    }
+
+    public Duration getHistoricalTtl() {
+        return Duration.ofHours(historicalTtlHours);
+    }
+
+    public Duration getStaleWindow() {
+        return Duration.ofHours(staleWindowHours);
+    }
+
+    public long getStoreMaxDays() {
+        return storeMaxDays;
+    }
+
+    public long getBodyMaxWeightBytes() {
+        return bodyMaxWeightMb * 1024 * 1024;
+    }
+}
@@ -0,0 +1,45 @@
+package com.neo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class HeatmapConfig {
+
+    // kinetic energies (J) to pre-render; each string is also the class name in tile URLs
+    @Value("${impact.heatmap.energies:1e15,1e16,1e17,1e18}")
+    private String[] energies;
+
+    @Value("${impact.heatmap.minZoom:6}")
+    private int minZoom;
+
+    @Value("${impact.heatmap.maxZoom:12}")
+    private int maxZoom;
+
+    // zoom levels stop being built once a level would push the total past this
+    @Value("${impact.heatmap.maxTiles:20000}")
+    private int maxTiles;
+
+    @Value("${impact.heatmap.cacheSeconds:3600}")
+    private long cacheSeconds;
+
+    public String[] getEnergies() {
+        return energies;
+    }
+
+    public int getMinZoom() {
+        return minZoom;
+    }
+
+    public int getMaxZoom() {
+        return maxZoom;
+    }
+
+    public int getMaxTiles() {
+        return maxTiles;
+    }
+
+    public long getCacheSeconds() {
+        return cacheSeconds;
+    }
+}
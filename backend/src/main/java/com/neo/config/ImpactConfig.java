@@ -0,0 +1,84 @@
+package com.neo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class ImpactConfig {
+
+    // overlapping-scenario groups evaluated at once, across all batch requests
+    @Value("${impact.batch.parallelism:8}")
+    private int batchParallelism;
+
+    @Value("${impact.batch.maxScenarios:1000}")
+    private int maxBatchScenarios;
+
+    // items a report lists; the rest are summarised as clusters
+    @Value("${impact.report.items:25}")
+    private int reportItems;
+
+    // encoded reports and infrastructure pages, reused while their tiles stay the same
+    @Value("${impact.report.cacheEntries:2000}")
+    private long reportCacheEntries;
+
+    @Value("${impact.report.cacheMaxWeightMb:32}")
+    private long reportCacheMaxWeightMb;
+
+    @Value("${impact.report.cacheTtlMinutes:60}")
+    private long reportCacheTtlMinutes;
+
+    @Value("${impact.simulation.maxSamples:20000000}")
+    private int maxSimulationSamples;
+
+    @Value("${impact.simulation.maxScatterKm:10}")
+    private double maxScatterKm;
+
+    // simulations running at once; each already spreads over every core
+    @Value("${impact.simulation.maxConcurrent:2}")
+    private int maxConcurrentSimulations;
+
+    @Value("${impact.simulation.maxQueued:8}")
+    private int maxQueuedSimulations;
+
+    public int getBatchParallelism() {
+        return batchParallelism;
+    }
+
+    public int getMaxBatchScenarios() {
+        return maxBatchScenarios;
+    }
+
+    public int getReportItems() {
+        return reportItems;
+    }
+
+    public long getReportCacheEntries() {
+        return reportCacheEntries;
+    }
+
+    public long getReportCacheMaxWeightBytes() {
+        return reportCacheMaxWeightMb * 1024 * 1024;
+    }
+
+    public Duration getReportCacheTtl() {
+        return Duration.ofMinutes(reportCacheTtlMinutes);
+    }
+
+    public int getMaxSimulationSamples() {
+        return maxSimulationSamples;
+    }
+
+    public double getMaxScatterKm() {
+        return maxScatterKm;
+    }
+
+    public int getMaxConcurrentSimulations() {
+        return maxConcurrentSimulations;
+    }
+
+    public int getMaxQueuedSimulations() {
+        return maxQueuedSimulations;
+    }
+}
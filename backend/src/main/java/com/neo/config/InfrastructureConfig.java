@@ -0,0 +1,25 @@
+package com.neo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+@Configuration
+public class InfrastructureConfig {
+
+    // overpass | local
+    @Value("${impact.infrastructure.source:overpass}")
+    private String source;
+
+    // OSM XML extract for the local source, optionally gzipped
+    @Value("${impact.infrastructure.osmFile:classpath:osm/sample-istanbul.osm}")
+    private Resource osmFile;
+
+    public String getSource() {
+        return source;
+    }
+
+    public Resource getOsmFile() {
+        return osmFile;
+    }
+}
@@ -3,6 +3,8 @@ package com.neo.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 public class NasaApiConfig {
 
@@ -12,6 +14,31 @@ public class NasaApiConfig {
     @Value("${nasa.api.baseUrl:https://api.nasa.gov/neo/rest/v1}")
     private String baseUrl;
 
+    @Value("${nasa.api.timeoutSeconds:30}")
+    private long timeoutSeconds;
+
+    // feed calls allowed in flight / waiting before new ones are turned away
+    @Value("${nasa.bulkhead.maxConcurrent:4}")
+    private int maxConcurrent;
+
+    @Value("${nasa.bulkhead.maxQueued:100}")
+    private int maxQueued;
+
+    // hourly request quota of the key; 0 means 30 for DEMO_KEY and 1000 for a personal key
+    @Value("${nasa.quota.requestsPerHour:0}")
+    private int requestsPerHour;
+
+    // tokens background prefetches leave for interactive calls
+    @Value("${nasa.quota.interactiveReserve:5}")
+    private int interactiveReserve;
+
+    @Value("${nasa.quota.maxQueued:50}")
+    private int quotaMaxQueued;
+
+    // interactive calls that would wait longer for a token are turned away at once
+    @Value("${nasa.quota.maxWaitSeconds:15}")
+    private long quotaMaxWaitSeconds;
+
     public String getApiKey() {
         return apiKey;
     }
@@ -20,6 +47,37 @@ public class NasaApiConfig {
         return baseUrl;
     }
 
+    public Duration getTimeout() {
+        return Duration.ofSeconds(timeoutSeconds);
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public int getRequestsPerHour() {
+        if (requestsPerHour > 0) {
+            return requestsPerHour;
+        }
+        return "DEMO_KEY".equals(apiKey) ? 30 : 1000;
+    }
+
+    public int getInteractiveReserve() {
+        return interactiveReserve;
+    }
+
+    public int getQuotaMaxQueued() {
+        return quotaMaxQueued;
+    }
+
+    public Duration getQuotaMaxWait() {
+        return Duration.ofSeconds(quotaMaxWaitSeconds);
+    }
+
     public String buildFeedUrl(String startDate, String endDate) {
         return String.format("%s/feed?start_date=%s&end_date=%s&api_key=%s",
                 baseUrl, startDate, endDate, apiKey);
@@ -0,0 +1,147 @@
+package com.neo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class OverpassConfig {
+
+    @Value("${overpass.url:https://overpass-api.de/api/interpreter}")
+    private String url;
+
+    // comma-separated, tried after overpass.url, in order, for hedged and failed-over queries
+    @Value("${overpass.mirrors:}")
+    private String mirrors;
+
+    // a duplicate query goes to the next mirror once the recent p95 latency has passed,
+    // but never sooner than minDelayMs nor later than maxDelayMs
+    @Value("${overpass.hedge.enabled:true}")
+    private boolean hedgeEnabled;
+
+    @Value("${overpass.hedge.minDelayMs:500}")
+    private long hedgeMinDelayMs;
+
+    @Value("${overpass.hedge.maxDelayMs:5000}")
+    private long hedgeMaxDelayMs;
+
+    // a mirror failing this many times in a row is skipped for openSeconds
+    @Value("${overpass.breaker.failureThreshold:3}")
+    private int breakerFailureThreshold;
+
+    @Value("${overpass.breaker.openSeconds:30}")
+    private long breakerOpenSeconds;
+
+    @Value("${overpass.timeoutSeconds:30}")
+    private long timeoutSeconds;
+
+    @Value("${overpass.bulkhead.maxConcurrent:4}")
+    private int maxConcurrent;
+
+    @Value("${overpass.bulkhead.maxQueued:50}")
+    private int maxQueued;
+
+    // zoom 12 tiles are roughly 10 km across at the equator
+    @Value("${overpass.tiles.zoom:12}")
+    private int tileZoom;
+
+    @Value("${overpass.tiles.maxTiles:4096}")
+    private long maxTiles;
+
+    @Value("${overpass.tiles.maxWeightMb:64}")
+    private long maxWeightMb;
+
+    @Value("${overpass.tiles.ttlHours:24}")
+    private long tileTtlHours;
+
+    // missing tiles beyond this many are fetched as grid-aligned blocks of about this many
+    @Value("${overpass.tiles.maxPerQuery:16}")
+    private int maxTilesPerQuery;
+
+    // the block queries of one lookup run this many at a time; blocks not started by the deadline
+    // are reported missing and the lookup returns what it has
+    @Value("${overpass.fanout.parallelism:3}")
+    private int fanOutParallelism;
+
+    @Value("${overpass.fanout.deadlineSeconds:60}")
+    private long fanOutDeadlineSeconds;
+
+    public String getUrl() {
+        return url;
+    }
+
+    // the primary URL first, then the mirrors
+    public List<String> getUrls() {
+        List<String> urls = new ArrayList<>();
+        urls.add(url);
+        for (String mirror : mirrors.split(",")) {
+            if (!mirror.isBlank() && !urls.contains(mirror.trim())) {
+                urls.add(mirror.trim());
+            }
+        }
+        return urls;
+    }
+
+    public boolean isHedgeEnabled() {
+        return hedgeEnabled;
+    }
+
+    public Duration getHedgeMinDelay() {
+        return Duration.ofMillis(hedgeMinDelayMs);
+    }
+
+    public Duration getHedgeMaxDelay() {
+        return Duration.ofMillis(hedgeMaxDelayMs);
+    }
+
+    public int getBreakerFailureThreshold() {
+        return breakerFailureThreshold;
+    }
+
+    public Duration getBreakerOpenDuration() {
+        return Duration.ofSeconds(breakerOpenSeconds);
+    }
+
+    public Duration getTimeout() {
+        return Duration.ofSeconds(timeoutSeconds);
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public int getTileZoom() {
+        return tileZoom;
+    }
+
+    public long getMaxTiles() {
+        return maxTiles;
+    }
+
+    public long getMaxWeightBytes() {
+        return maxWeightMb * 1024 * 1024;
+    }
+
+    public Duration getTileTtl() {
+        return Duration.ofHours(tileTtlHours);
+    }
+
+    public int getMaxTilesPerQuery() {
+        return maxTilesPerQuery;
+    }
+
+    public int getFanOutParallelism() {
+        return fanOutParallelism;
+    }
+
+    public Duration getFanOutDeadline() {
+        return Duration.ofSeconds(fanOutDeadlineSeconds);
+    }
+}
@@ -0,0 +1,42 @@
+package com.neo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+import java.nio.file.Path;
+
+@Configuration
+public class PopulationConfig {
+
+    @Value("${impact.population.enabled:true}")
+    private boolean enabled;
+
+    // ESRI ASCII grid (.asc, optionally .gz) or ESRI float grid (.flt next to its .hdr), e.g. GPW
+    @Value("${impact.population.file:classpath:population/sample-istanbul.asc}")
+    private Resource file;
+
+    // count: people per cell; density: people per km², multiplied by each row's cell area
+    @Value("${impact.population.units:count}")
+    private String units;
+
+    // where the summed-area table built from the grid is kept between restarts
+    @Value("${impact.population.cacheDir:data/population}")
+    private String cacheDir;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Resource getFile() {
+        return file;
+    }
+
+    public boolean isDensity() {
+        return "density".equalsIgnoreCase(units);
+    }
+
+    public Path getCacheDir() {
+        return Path.of(cacheDir);
+    }
+}
@@ -0,0 +1,58 @@
+package com.neo.config;
+
+import com.neo.cache.EncodedPayload;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new EncodedPayloadConverter());
+    }
+
+    /**
+     * Writes pre-encoded JSON straight to the response stream, bypassing Jackson.
+     */
+    static class EncodedPayloadConverter extends AbstractHttpMessageConverter<EncodedPayload> {
+
+        EncodedPayloadConverter() {
+            super(MediaType.APPLICATION_JSON);
+        }
+
+        @Override
+        protected boolean supports(Class<?> clazz) {
+            return EncodedPayload.class.isAssignableFrom(clazz);
+        }
+
+        @Override
+        protected boolean canRead(MediaType mediaType) {
+            return false;
+        }
+
+        @Override
+        protected EncodedPayload readInternal(Class<? extends EncodedPayload> clazz, HttpInputMessage inputMessage) {
+            throw new HttpMessageNotReadableException("Encoded payloads are write-only", inputMessage);
+        }
+
+        @Override
+        protected Long getContentLength(EncodedPayload payload, MediaType contentType) {
+            return payload.getContentLength();
+        }
+
+        @Override
+        protected void writeInternal(EncodedPayload payload, HttpOutputMessage outputMessage) throws IOException {
+            payload.writeTo(outputMessage.getBody());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.neo.controller;
+
+import com.neo.config.HeatmapConfig;
+import com.neo.service.HeatmapService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/impact/heatmap")
+@CrossOrigin(origins = "*")
+public class HeatmapController {
+
+    private final HeatmapService heatmapService;
+    private final CacheControl tileCaching;
+
+    public HeatmapController(HeatmapService heatmapService, HeatmapConfig config) {
+        this.heatmapService = heatmapService;
+        this.tileCaching = CacheControl.maxAge(config.getCacheSeconds(), TimeUnit.SECONDS).cachePublic();
+    }
+
+    /**
+     * Whether the heatmap is built, its energy classes with their color-scale maxima, and its zoom range.
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> describe() {
+        return ResponseEntity.ok(heatmapService.describe());
+    }
+
+    @GetMapping(value = "/{energy}/{z}/{x}/{y}.png", produces = MediaType.IMAGE_PNG_VALUE)
+    public ResponseEntity<byte[]> tile(
+            @PathVariable String energy,
+            @PathVariable int z,
+            @PathVariable int x,
+            @PathVariable int y,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+
+        if (!heatmapService.isAvailable()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!heatmapService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "5").build();
+        }
+        byte[] png = heatmapService.getTile(energy, z, x, y);
+        if (png == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String etag = "\"" + heatmapService.getVersion() + "\"";
+        if (EncodedResponses.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(tileCaching).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(tileCaching).contentType(MediaType.IMAGE_PNG).body(png);
+    }
+}
@@ -1,33 +1,189 @@
 package com.neo.controller;
 
-import com.neo.model.ImpactReport;
-import com.neo.service.OverpassService;
+import com.neo.cache.EncodedPayload;
+import com.neo.infrastructure.InfrastructureUnavailableException;
+import com.neo.model.EnergySweep;
+import com.neo.model.ImpactScenario;
+import com.neo.model.ScenarioResult;
+import com.neo.model.SimulationResult;
+import com.neo.physics.SimulationRequest;
+import com.neo.service.ImpactService;
+import com.neo.service.ReportBodyCache;
+import com.neo.service.SimulationService;
+import com.neo.upstream.BulkheadFullException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/impact")
 @CrossOrigin(origins = "*")
 public class ImpactController {
 
-    private final OverpassService overpassService;
+    private final ImpactService impactService;
+    private final SimulationService simulationService;
+    private final ReportBodyCache reportBodies;
 
-    public ImpactController(OverpassService overpassService) {
-        this.overpassService = overpassService;
+    public ImpactController(ImpactService impactService, SimulationService simulationService,
+            ReportBodyCache reportBodies) {
+        this.impactService = impactService;
+        this.simulationService = simulationService;
+        this.reportBodies = reportBodies;
     }
 
+    /**
+     * Sent gzipped when the client accepts it. Repeat queries over unchanged infrastructure are
+     * served, or answered with 304, from the encoded body kept by {@link ReportBodyCache}.
+     */
     @GetMapping("/query")
-    public ResponseEntity<ImpactReport> queryImpact(
+    public CompletableFuture<ResponseEntity<EncodedPayload>> queryImpact(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam double kineticEnergy,
+            @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+
+        return reportBodies.report(lat, lng, kineticEnergy)
+                .thenApply(payload -> EncodedResponses.respond(payload, acceptEncoding, ifNoneMatch));
+    }
+
+    /**
+     * Every infrastructure item of the report for the same arguments, {@code limit} at a time,
+     * starting with the items the report lists. Cached like the report.
+     */
+    @GetMapping("/infrastructure")
+    public CompletableFuture<ResponseEntity<EncodedPayload>> listInfrastructure(
             @RequestParam double lat,
             @RequestParam double lng,
-            @RequestParam double kineticEnergy) {
+            @RequestParam double kineticEnergy,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
 
-        ImpactReport report = overpassService.generateImpactReport(lat, lng, kineticEnergy);
-        return ResponseEntity.ok(report);
+        return reportBodies.page(lat, lng, kineticEnergy, offset, limit)
+                .thenApply(payload -> EncodedResponses.respond(payload, acceptEncoding, ifNoneMatch));
+    }
+
+    /**
+     * Either an explicit {@code energies} list, or {@code steps} log-spaced energies from
+     * {@code minEnergy} to {@code maxEnergy}.
+     */
+    @GetMapping("/sweep")
+    public CompletableFuture<ResponseEntity<EnergySweep>> sweepImpact(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(required = false) double[] energies,
+            @RequestParam(required = false) Double minEnergy,
+            @RequestParam(required = false) Double maxEnergy,
+            @RequestParam(defaultValue = "50") int steps) {
+
+        if (energies == null) {
+            if (minEnergy == null || maxEnergy == null) {
+                throw new IllegalArgumentException("Provide energies, or minEnergy and maxEnergy");
+            }
+            energies = logSpaced(minEnergy, maxEnergy, steps);
+        }
+        return impactService.generateSweep(lat, lng, energies).thenApply(ResponseEntity::ok);
+    }
+
+    private static double[] logSpaced(double min, double max, int steps) {
+        if (!(min > 0) || !(max >= min) || Double.isInfinite(max)) {
+            throw new IllegalArgumentException("Need 0 < minEnergy <= maxEnergy");
+        }
+        if (steps < 1 || steps > ImpactService.MAX_SWEEP_POINTS) {
+            throw new IllegalArgumentException("steps must be between 1 and " + ImpactService.MAX_SWEEP_POINTS);
+        }
+        double[] energies = new double[steps];
+        double logMin = Math.log(min);
+        double logStep = steps == 1 ? 0 : (Math.log(max) - logMin) / (steps - 1);
+        for (int i = 0; i < steps; i++) {
+            energies[i] = Math.exp(logMin + logStep * i);
+        }
+        return energies;
+    }
+
+    /**
+     * Monte Carlo over one NEO's uncertain diameter, density and entry angle, by {@code neoId} or
+     * explicit {@code diameterMin} / {@code diameterMax} / {@code velocity}. With {@code lat} and
+     * {@code lng} impact points are also scattered by {@code scatterKm} and infrastructure is counted.
+     */
+    @GetMapping("/simulate")
+    public CompletableFuture<ResponseEntity<SimulationResult>> simulate(
+            @RequestParam(required = false) String neoId,
+            @RequestParam(required = false) Double diameterMin,
+            @RequestParam(required = false) Double diameterMax,
+            @RequestParam(required = false) Double velocity,
+            @RequestParam(defaultValue = "1000000") int samples,
+            @RequestParam(required = false) Long seed,
+            @RequestParam(defaultValue = "40") int bins,
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lng,
+            @RequestParam(defaultValue = "0") double scatterKm) {
+
+        SimulationRequest request = new SimulationRequest();
+        if (neoId == null) {
+            if (diameterMin == null || diameterMax == null || velocity == null) {
+                throw new IllegalArgumentException("Provide neoId, or diameterMin, diameterMax and velocity");
+            }
+            request.setDiameterMinMeters(diameterMin);
+            request.setDiameterMaxMeters(diameterMax);
+            request.setVelocityKmPerSec(velocity);
+        }
+        request.setSamples(samples);
+        request.setSeed(seed);
+        request.setBins(bins);
+        request.setLat(lat);
+        request.setLng(lng);
+        request.setScatterKm(scatterKm);
+
+        return simulationService.simulate(neoId, request).thenApply(ResponseEntity::ok);
+    }
+
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<List<ScenarioResult>>> batchImpact(@RequestBody List<ImpactScenario> scenarios) {
+        return impactService.generateBatch(scenarios).thenApply(ResponseEntity::ok);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>(impactService.getInfrastructureStats());
+        stats.put("reportBodies", reportBodies.stats());
+        stats.put("simulation", simulationService.getStats());
+        return ResponseEntity.ok(stats);
     }
 
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("Impact API is running");
     }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<String> handleNotFound(NoSuchElementException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+    }
+
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<String> handleBusy(BulkheadFullException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", String.valueOf(e.getRetryAfterSeconds())).body(e.getMessage());
+    }
+
+    @ExceptionHandler(InfrastructureUnavailableException.class)
+    public ResponseEntity<String> handleUnavailable(InfrastructureUnavailableException e) {
+        if (e.getCause() instanceof BulkheadFullException busy) {
+            return handleBusy(busy);
+        }
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(e.getMessage());
+    }
 }
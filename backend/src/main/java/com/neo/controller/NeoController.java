@@ -1,13 +1,32 @@
 package com.neo.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neo.cache.EncodedPayload;
 import com.neo.model.NearEarthObject;
+import com.neo.model.NeoQueryResult;
+import com.neo.physics.NeoImpactEnricher;
+import com.neo.service.FeedBodyCache;
 import com.neo.service.NasaProxyService;
+import com.neo.store.NeoColumnStore;
+import com.neo.store.NeoQuery;
+import com.neo.upstream.BulkheadFullException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/neo")
@@ -15,34 +34,196 @@ import java.util.List;
 public class NeoController {
 
     private final NasaProxyService nasaProxyService;
+    private final FeedBodyCache feedBodies;
+    private final NeoColumnStore columnStore;
+    private final ObjectMapper objectMapper;
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE;
+    private static final int MAX_QUERY_LIMIT = 1000;
 
-    public NeoController(NasaProxyService nasaProxyService) {
+    private static final String NDJSON = "application/x-ndjson";
+    private static final byte[] NEWLINE = {'\n'};
+
+    public NeoController(NasaProxyService nasaProxyService, FeedBodyCache feedBodies, NeoColumnStore columnStore,
+            ObjectMapper objectMapper) {
         this.nasaProxyService = nasaProxyService;
+        this.feedBodies = feedBodies;
+        this.columnStore = columnStore;
+        this.objectMapper = objectMapper;
     }
 
+    /**
+     * With {@code enrich=true} every NEO also carries mass, kinetic energy, crater diameter,
+     * earthquake magnitude and destruction radius, computed server-side in one batch.
+     * The body is assembled from days serialized earlier, gzipped when the client accepts it,
+     * and answered with 304 when {@code If-None-Match} still holds.
+     */
     @GetMapping("/feed")
-    public ResponseEntity<List<NearEarthObject>> getFeed(
+    public CompletableFuture<ResponseEntity<EncodedPayload>> getFeed(
             @RequestParam(required = false) String startDate,
-            @RequestParam(required = false) String endDate) {
+            @RequestParam(required = false) String endDate,
+            @RequestParam(defaultValue = "false") boolean enrich,
+            @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
 
         if (startDate == null || endDate == null) {
-            return ResponseEntity.ok(nasaProxyService.fetchTodayFeed()); // todo add better date validation
+            return getTodayFeed(enrich, acceptEncoding, ifNoneMatch); // todo add better date validation
         }
 
         LocalDate start = LocalDate.parse(startDate, DATE_FORMAT);
         LocalDate end = LocalDate.parse(endDate, DATE_FORMAT);
 
-        return ResponseEntity.ok(nasaProxyService.fetchNeoFeed(start, end));
+        return nasaProxyService.fetchNeoFeedDaysAsync(start, end)
+                .thenApply(days -> EncodedResponses.respond(feedBodies.encode(days, enrich), acceptEncoding, ifNoneMatch));
+    }
+
+    /**
+     * One NEO per line, flushed after every day, so clients can render before the range completes.
+     */
+    @GetMapping(value = "/feed", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamFeedNdjson(
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(defaultValue = "false") boolean enrich) {
+
+        LocalDate[] range = parseRange(startDate, endDate);
+        StreamingResponseBody body = out -> {
+            try {
+                nasaProxyService.streamNeoFeed(range[0], range[1], (day, neos) -> {
+                    for (NearEarthObject neo : enrich ? NeoImpactEnricher.enrich(neos) : neos) {
+                        out.write(objectMapper.writeValueAsBytes(neo));
+                        out.write(NEWLINE);
+                    }
+                    out.flush();
+                });
+            } catch (RuntimeException e) {
+                // headers are already sent, so the failure is reported in-band
+                out.write(objectMapper.writeValueAsBytes(Map.of("error", String.valueOf(e.getMessage()))));
+                out.write(NEWLINE);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    /**
+     * One "day" event per feed day, then a final "end" event.
+     */
+    @GetMapping(value = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamFeedEvents(
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(defaultValue = "false") boolean enrich) {
+
+        LocalDate[] range = parseRange(startDate, endDate);
+        StreamingResponseBody body = out -> {
+            try {
+                nasaProxyService.streamNeoFeed(range[0], range[1], (day, neos) -> {
+                    writeEvent(out, "day", objectMapper.writeValueAsString(enrich ? NeoImpactEnricher.enrich(neos) : neos));
+                    out.flush();
+                });
+                writeEvent(out, "end", "{}");
+            } catch (RuntimeException e) {
+                writeEvent(out, "error", objectMapper.writeValueAsString(Map.of("error", String.valueOf(e.getMessage()))));
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .header("Cache-Control", "no-cache")
+                .body(body);
     }
 
     @GetMapping("/feed/today")
-    public ResponseEntity<List<NearEarthObject>> getTodayFeed() {
-        return ResponseEntity.ok(nasaProxyService.fetchTodayFeed());
+    public CompletableFuture<ResponseEntity<EncodedPayload>> getTodayFeed(
+            @RequestParam(defaultValue = "false") boolean enrich,
+            @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        LocalDate today = LocalDate.now();
+        return nasaProxyService.fetchNeoFeedDaysAsync(today, today)
+                .thenApply(days -> EncodedResponses.respond(feedBodies.encode(days, enrich), acceptEncoding, ifNoneMatch));
+    }
+
+    /**
+     * Server-side filter / sort / top-K over every NEO loaded so far. When a date range is given
+     * it is fetched first, so the query sees the whole range; a single date bounds only its side.
+     */
+    @GetMapping("/query")
+    public CompletableFuture<ResponseEntity<NeoQueryResult>> query(
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(defaultValue = "false") boolean hazardous,
+            @RequestParam(required = false) Double minDiameter,
+            @RequestParam(required = false) Double maxMissDistance,
+            @RequestParam(defaultValue = "energy") String sort,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String cursor) {
+
+        NeoQuery query = new NeoQuery();
+        CompletableFuture<?> loaded = CompletableFuture.completedFuture(null);
+        LocalDate start = startDate != null ? LocalDate.parse(startDate, DATE_FORMAT) : null;
+        LocalDate end = endDate != null ? LocalDate.parse(endDate, DATE_FORMAT) : null;
+        if (start != null && end != null) {
+            loaded = nasaProxyService.fetchNeoFeedAsync(start, end);
+        }
+        query.setStartDate(start);
+        query.setEndDate(end);
+        query.setHazardousOnly(hazardous);
+        if (minDiameter != null) {
+            query.setMinDiameterMeters(minDiameter);
+        }
+        if (maxMissDistance != null) {
+            query.setMaxMissDistanceKm(maxMissDistance);
+        }
+        query.setSort(NeoQuery.Sort.valueOf(sort.toUpperCase(Locale.ROOT)));
+        query.setLimit(Math.min(limit, MAX_QUERY_LIMIT));
+        query.setCursor(cursor);
+
+        return loaded.thenApply(ignored -> ResponseEntity.ok(columnStore.query(query)));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("upstreamRequests", nasaProxyService.getUpstreamRequestCount());
+        stats.put("coalescedRequests", nasaProxyService.getCoalescedRequestCount());
+        stats.put("cache", nasaProxyService.getCacheStats());
+        stats.put("bodyCache", feedBodies.stats());
+        stats.put("bulkhead", nasaProxyService.getBulkheadStats());
+        stats.put("quota", nasaProxyService.getQuotaStats());
+        stats.put("storedNeos", columnStore.size());
+        stats.put("storedDays", columnStore.dayCount());
+        stats.put("evictedDays", columnStore.getEvictedDays());
+        return ResponseEntity.ok(stats);
     }
 
     @GetMapping("/health")
     public ResponseEntity<String> healthCheck() {
         return ResponseEntity.ok("NEO Collision Engine API is running");
     }
+
+    private static LocalDate[] parseRange(String startDate, String endDate) {
+        if (startDate == null || endDate == null) {
+            LocalDate today = LocalDate.now();
+            return new LocalDate[]{today, today};
+        }
+        LocalDate start = LocalDate.parse(startDate, DATE_FORMAT);
+        LocalDate end = LocalDate.parse(endDate, DATE_FORMAT);
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("endDate must not be before startDate");
+        }
+        return new LocalDate[]{start, end};
+    }
+
+    private static void writeEvent(OutputStream out, String event, String data) throws IOException {
+        out.write(("event: " + event + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    @ExceptionHandler({IllegalArgumentException.class, DateTimeParseException.class})
+    public ResponseEntity<String> handleBadRequest(RuntimeException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<String> handleBusy(BulkheadFullException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", String.valueOf(e.getRetryAfterSeconds())).body(e.getMessage());
+    }
 }
@@ -0,0 +1,51 @@
+package com.neo.geo;
+
+public class BoundingBox {
+
+    private final double south;
+    private final double west;
+    private final double north;
+    private final double east;
+
+    public BoundingBox(double south, double west, double north, double east) {
+        this.south = south;
+        this.west = west;
+        this.north = north;
+        this.east = east;
+    }
+
+    public double getSouth() {
+        return south;
+    }
+
+    public double getWest() {
+        return west;
+    }
+
+    public double getNorth() {
+        return north;
+    }
+
+    public double getEast() {
+        return east;
+    }
+
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(Math.min(south, other.south), Math.min(west, other.west),
+                Math.max(north, other.north), Math.max(east, other.east));
+    }
+
+    public boolean contains(double lat, double lng) {
+        return lat >= south && lat <= north && lng >= west && lng <= east;
+    }
+
+    // Overpass bbox filter order
+    public String toOverpassFilter() {
+        return "(" + south + "," + west + "," + north + "," + east + ")";
+    }
+
+    @Override
+    public String toString() {
+        return toOverpassFilter();
+    }
+}
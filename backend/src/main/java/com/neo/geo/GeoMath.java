@@ -0,0 +1,33 @@
+package com.neo.geo;
+
+public final class GeoMath {
+
+    public static final double EARTH_RADIUS_KM = 6371.0;
+    public static final double KM_PER_DEGREE_LAT = 111.32;
+
+    private GeoMath() {
+    }
+
+    public static double haversineDistance(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                        Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return EARTH_RADIUS_KM * c;
+    }
+
+    /**
+     * Bounding box that fully contains the circle; longitudes may fall outside [-180, 180] near the dateline.
+     */
+    public static BoundingBox circleBounds(double lat, double lng, double radiusKm) {
+        // on the same sphere as haversineDistance; the circle's widest point is poleward of its
+        // center, so the longitude reach is that of the spherical cap, not radius / cos(lat)
+        double angle = radiusKm / EARTH_RADIUS_KM;
+        double dLat = Math.toDegrees(angle);
+        double phi = Math.toRadians(Math.abs(lat));
+        double dLng = angle >= Math.PI / 2 - phi ? 180 : Math.toDegrees(Math.asin(Math.sin(angle) / Math.cos(phi)));
+        return new BoundingBox(Math.max(lat - dLat, -90), lng - dLng, Math.min(lat + dLat, 90), lng + dLng);
+    }
+}
@@ -0,0 +1,154 @@
+package com.neo.geo;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Static 2-d tree over points packed into primitive arrays. The tree is implicit: each range
+ * is split at its median, alternating latitude and longitude, so no node objects are allocated.
+ */
+public final class KdTree {
+
+    private final double[] lat;
+    private final double[] lng;
+    // original index of each point after reordering
+    private final int[] ref;
+
+    public KdTree(double[] lat, double[] lng) {
+        if (lat.length != lng.length) {
+            throw new IllegalArgumentException("Coordinate arrays differ in length");
+        }
+        this.lat = lat.clone();
+        this.lng = lng.clone();
+        this.ref = new int[lat.length];
+        for (int i = 0; i < ref.length; i++) {
+            ref[i] = i;
+        }
+        build(0, ref.length, 0);
+    }
+
+    public int size() {
+        return ref.length;
+    }
+
+    /**
+     * Calls {@code action} with the original index of every point inside the box. The box must
+     * not cross the dateline; split it first.
+     */
+    public void forEachWithin(BoundingBox box, IntConsumer action) {
+        search(0, ref.length, 0, box, action);
+    }
+
+    /**
+     * Number of points within {@code radiusKm} great-circle distance of the given point, without
+     * allocating. Longitudes are compared as stored, so the tree and the point must share one
+     * unwrapped longitude range.
+     */
+    public int countWithin(double centerLat, double centerLng, double radiusKm) {
+        BoundingBox box = GeoMath.circleBounds(centerLat, centerLng, radiusKm);
+        return count(0, ref.length, 0, box.getSouth(), box.getWest(), box.getNorth(), box.getEast(),
+                centerLat, centerLng, radiusKm);
+    }
+
+    private int count(int lo, int hi, int depth, double south, double west, double north, double east,
+            double centerLat, double centerLng, double radiusKm) {
+        int found = 0;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (lat[mid] >= south && lat[mid] <= north && lng[mid] >= west && lng[mid] <= east
+                    && GeoMath.haversineDistance(centerLat, centerLng, lat[mid], lng[mid]) <= radiusKm) {
+                found++;
+            }
+
+            double split = depth % 2 == 0 ? lat[mid] : lng[mid];
+            double min = depth % 2 == 0 ? south : west;
+            double max = depth % 2 == 0 ? north : east;
+            depth++;
+
+            boolean left = min <= split;
+            boolean right = max >= split;
+            if (left && right) {
+                found += count(lo, mid, depth, south, west, north, east, centerLat, centerLng, radiusKm);
+                lo = mid + 1;
+            } else if (left) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return found;
+    }
+
+    private void search(int lo, int hi, int depth, BoundingBox box, IntConsumer action) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (box.contains(lat[mid], lng[mid])) {
+                action.accept(ref[mid]);
+            }
+
+            double split = depth % 2 == 0 ? lat[mid] : lng[mid];
+            double min = depth % 2 == 0 ? box.getSouth() : box.getWest();
+            double max = depth % 2 == 0 ? box.getNorth() : box.getEast();
+            depth++;
+
+            boolean left = min <= split;
+            boolean right = max >= split;
+            if (left && right) {
+                search(lo, mid, depth, box, action);
+                lo = mid + 1;
+            } else if (left) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+    }
+
+    private void build(int lo, int hi, int depth) {
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            select(lo, hi - 1, mid, depth % 2 == 0 ? lat : lng);
+            build(lo, mid, depth + 1);
+            lo = mid + 1;
+            depth++;
+        }
+    }
+
+    // quickselect: afterwards keys[lo..k) <= keys[k] <= keys(k..hi]
+    private void select(int lo, int hi, int k, double[] keys) {
+        while (hi > lo) {
+            double pivot = keys[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        double t = lat[a];
+        lat[a] = lat[b];
+        lat[b] = t;
+        t = lng[a];
+        lng[a] = lng[b];
+        lng[b] = t;
+        int r = ref[a];
+        ref[a] = ref[b];
+        ref[b] = r;
+    }
+}
@@ -0,0 +1,26 @@
+package com.neo.geo;
+
+public class SearchArea {
+
+    private final double lat;
+    private final double lng;
+    private final double radiusKm;
+
+    public SearchArea(double lat, double lng, double radiusKm) {
+        this.lat = lat;
+        this.lng = lng;
+        this.radiusKm = radiusKm;
+    }
+
+    public double getLat() {
+        return lat;
+    }
+
+    public double getLng() {
+        return lng;
+    }
+
+    public double getRadiusKm() {
+        return radiusKm;
+    }
+}
@@ -0,0 +1,115 @@
+package com.neo.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Web-mercator (slippy map) tile address, the same grid Leaflet uses.
+ */
+public final class TileKey {
+
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    private final int zoom;
+    private final int x;
+    private final int y;
+
+    public TileKey(int zoom, int x, int y) {
+        this.zoom = zoom;
+        this.x = x;
+        this.y = y;
+    }
+
+    public static TileKey containing(double lat, double lng, int zoom) {
+        return new TileKey(zoom, tileX(lng, zoom), tileY(lat, zoom));
+    }
+
+    /**
+     * All tiles at this zoom that intersect the circle's bounding box.
+     */
+    public static List<TileKey> covering(double lat, double lng, double radiusKm, int zoom) {
+        return covering(GeoMath.circleBounds(lat, lng, radiusKm), zoom);
+    }
+
+    /**
+     * All tiles at this zoom that intersect the box, which may extend past the dateline.
+     */
+    public static List<TileKey> covering(BoundingBox bounds, int zoom) {
+        int n = 1 << zoom;
+
+        int minY = tileY(bounds.getNorth(), zoom);
+        int maxY = tileY(bounds.getSouth(), zoom);
+        int minX = (int) Math.floor((bounds.getWest() + 180) / 360 * n);
+        int maxX = (int) Math.floor((bounds.getEast() + 180) / 360 * n);
+        if (maxX - minX >= n) {
+            minX = 0;
+            maxX = n - 1;
+        }
+
+        List<TileKey> tiles = new ArrayList<>();
+        for (int ty = minY; ty <= maxY; ty++) {
+            for (int tx = minX; tx <= maxX; tx++) {
+                // wrap across the dateline
+                tiles.add(new TileKey(zoom, Math.floorMod(tx, n), ty));
+            }
+        }
+        return tiles;
+    }
+
+    public static int tileX(double lng, int zoom) {
+        int n = 1 << zoom;
+        int x = (int) Math.floor((lng + 180) / 360 * n);
+        return Math.floorMod(x, n);
+    }
+
+    public static int tileY(double lat, int zoom) {
+        int n = 1 << zoom;
+        double clamped = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, lat));
+        double latRad = Math.toRadians(clamped);
+        int y = (int) Math.floor((1 - Math.log(Math.tan(latRad) + 1 / Math.cos(latRad)) / Math.PI) / 2 * n);
+        return Math.max(0, Math.min(n - 1, y));
+    }
+
+    public BoundingBox bounds() {
+        int n = 1 << zoom;
+        double west = (double) x / n * 360 - 180;
+        double east = (double) (x + 1) / n * 360 - 180;
+        double north = Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2.0 * y / n))));
+        double south = Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2.0 * (y + 1) / n))));
+        return new BoundingBox(south, west, north, east);
+    }
+
+    public int getZoom() {
+        return zoom;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TileKey other)) {
+            return false;
+        }
+        return zoom == other.zoom && x == other.x && y == other.y;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(zoom, x, y);
+    }
+
+    @Override
+    public String toString() {
+        return zoom + "/" + x + "/" + y;
+    }
+}
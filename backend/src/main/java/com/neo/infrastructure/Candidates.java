@@ -0,0 +1,50 @@
+package com.neo.infrastructure;
+
+/**
+ * What {@link InfrastructureSource#findCandidates} found, and how much of the search area that
+ * covers. A source that could load only part of the area returns what it has with a coverage
+ * below one, rather than failing the whole lookup. A complete result may also carry a version:
+ * equal versions mean the source would return the same features again.
+ */
+public final class Candidates {
+
+    private final FeatureTable features;
+    private final double coverage;
+    private final Object version;
+
+    public Candidates(FeatureTable features, double coverage) {
+        this(features, coverage, null);
+    }
+
+    private Candidates(FeatureTable features, double coverage, Object version) {
+        this.features = features;
+        this.coverage = coverage;
+        this.version = version;
+    }
+
+    public static Candidates complete(FeatureTable features) {
+        return new Candidates(features, 1, null);
+    }
+
+    public static Candidates complete(FeatureTable features, Object version) {
+        return new Candidates(features, 1, version);
+    }
+
+    public FeatureTable getFeatures() {
+        return features;
+    }
+
+    // share of the search area that loaded, from 0 to 1
+    public double getCoverage() {
+        return coverage;
+    }
+
+    // compared with equals; null when the result cannot be reused
+    public Object getVersion() {
+        return version;
+    }
+
+    public boolean isComplete() {
+        return coverage >= 1;
+    }
+}
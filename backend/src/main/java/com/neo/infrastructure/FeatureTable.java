@@ -0,0 +1,226 @@
+package com.neo.infrastructure;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Infrastructure features stored column by column: ids, coordinates and type codes in primitive
+ * arrays, names as ranges of one shared char array. No per-feature object exists until a caller
+ * asks for a name, so a dense city costs a handful of arrays rather than one object graph per
+ * element. Tables are immutable; {@link Builder} makes them.
+ */
+public final class FeatureTable {
+
+    public static final FeatureTable EMPTY = new Builder(0).build();
+
+    private final int size;
+    private final long[] osmIds;
+    private final double[] lats;
+    private final double[] lngs;
+    private final short[] types;
+    private final byte[] categories;
+    private final char[] names;
+    // name i is names[nameEnds[i - 1], nameEnds[i]); an empty range means the element has none
+    private final int[] nameEnds;
+
+    private FeatureTable(int size, long[] osmIds, double[] lats, double[] lngs, short[] types, byte[] categories,
+            char[] names, int[] nameEnds) {
+        this.size = size;
+        this.osmIds = osmIds;
+        this.lats = lats;
+        this.lngs = lngs;
+        this.types = types;
+        this.categories = categories;
+        this.names = names;
+        this.nameEnds = nameEnds;
+    }
+
+    public static FeatureTable of(List<InfrastructureFeature> features) {
+        Builder builder = new Builder(features.size());
+        for (InfrastructureFeature feature : features) {
+            String name = feature.getName();
+            builder.add(feature.getOsmId(), feature.getLat(), feature.getLng(),
+                    InfrastructureTags.typeCode(feature.getType()), name.toCharArray(), 0, name.length());
+        }
+        return builder.build();
+    }
+
+    public static FeatureTable concat(List<FeatureTable> tables) {
+        if (tables.size() == 1) {
+            return tables.get(0);
+        }
+        int rows = 0;
+        for (FeatureTable table : tables) {
+            rows += table.size;
+        }
+        Builder builder = new Builder(rows);
+        for (FeatureTable table : tables) {
+            for (int row = 0; row < table.size; row++) {
+                builder.add(table, row);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * The given rows, in that order.
+     */
+    public FeatureTable select(int[] rows, int count) {
+        Builder builder = new Builder(count);
+        for (int i = 0; i < count; i++) {
+            builder.add(this, rows[i]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * This table without repeated OSM ids, keeping the first row of each; the table itself when
+     * nothing repeats, which a sort of the id column tells without boxing anything.
+     */
+    public FeatureTable distinct() {
+        if (size < 2) {
+            return this;
+        }
+        long[] sorted = Arrays.copyOf(osmIds, size);
+        Arrays.sort(sorted);
+        boolean repeated = false;
+        for (int i = 1; i < size && !repeated; i++) {
+            repeated = sorted[i] == sorted[i - 1];
+        }
+        if (!repeated) {
+            return this;
+        }
+        Set<Long> seen = new HashSet<>();
+        Builder builder = new Builder(size);
+        for (int row = 0; row < size; row++) {
+            if (seen.add(osmIds[row])) {
+                builder.add(this, row);
+            }
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long osmId(int row) {
+        return osmIds[row];
+    }
+
+    public double lat(int row) {
+        return lats[row];
+    }
+
+    public double lng(int row) {
+        return lngs[row];
+    }
+
+    public int typeCode(int row) {
+        return types[row];
+    }
+
+    public String type(int row) {
+        return InfrastructureTags.typeName(types[row]);
+    }
+
+    // one of the InfrastructureTags categories
+    public int category(int row) {
+        return categories[row];
+    }
+
+    /**
+     * The display name, made on request: the OSM name when there is one, else one derived from the type.
+     */
+    public String name(int row) {
+        int start = row == 0 ? 0 : nameEnds[row - 1];
+        int end = nameEnds[row];
+        return end > start ? new String(names, start, end - start) : InfrastructureTags.fallbackName(type(row));
+    }
+
+    // heap estimate for cache accounting
+    public long weight() {
+        return 64 + size * (8L + 8 + 8 + 2 + 1 + 4) + 2L * names.length;
+    }
+
+    public static class Builder {
+        private int size;
+        private long[] osmIds;
+        private double[] lats;
+        private double[] lngs;
+        private short[] types;
+        private byte[] categories;
+        private char[] names;
+        private int nameLength;
+        private int[] nameEnds;
+
+        public Builder(int expectedRows) {
+            int capacity = Math.max(expectedRows, 8);
+            osmIds = new long[capacity];
+            lats = new double[capacity];
+            lngs = new double[capacity];
+            types = new short[capacity];
+            categories = new byte[capacity];
+            nameEnds = new int[capacity];
+            names = new char[capacity * 16];
+        }
+
+        /**
+         * Adds a row whose name is {@code length} chars of {@code name} from {@code offset};
+         * a zero length leaves it to {@link FeatureTable#name} to derive one.
+         */
+        public void add(long osmId, double lat, double lng, int typeCode, char[] name, int offset, int length) {
+            ensureRow();
+            ensureNames(length);
+            System.arraycopy(name, offset, names, nameLength, length);
+            nameLength += length;
+            set(osmId, lat, lng, typeCode);
+        }
+
+        public void add(FeatureTable table, int row) {
+            int start = row == 0 ? 0 : table.nameEnds[row - 1];
+            add(table.osmIds[row], table.lats[row], table.lngs[row], table.types[row],
+                    table.names, start, table.nameEnds[row] - start);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public FeatureTable build() {
+            return new FeatureTable(size, Arrays.copyOf(osmIds, size), Arrays.copyOf(lats, size),
+                    Arrays.copyOf(lngs, size), Arrays.copyOf(types, size), Arrays.copyOf(categories, size),
+                    Arrays.copyOf(names, nameLength), Arrays.copyOf(nameEnds, size));
+        }
+
+        private void set(long osmId, double lat, double lng, int typeCode) {
+            osmIds[size] = osmId;
+            lats[size] = lat;
+            lngs[size] = lng;
+            types[size] = (short) typeCode;
+            categories[size] = (byte) InfrastructureTags.categoryOfType(typeCode);
+            nameEnds[size] = nameLength;
+            size++;
+        }
+
+        private void ensureRow() {
+            if (size == osmIds.length) {
+                int capacity = size * 2;
+                osmIds = Arrays.copyOf(osmIds, capacity);
+                lats = Arrays.copyOf(lats, capacity);
+                lngs = Arrays.copyOf(lngs, capacity);
+                types = Arrays.copyOf(types, capacity);
+                categories = Arrays.copyOf(categories, capacity);
+                nameEnds = Arrays.copyOf(nameEnds, capacity);
+            }
+        }
+
+        private void ensureNames(int length) {
+            if (nameLength + length > names.length) {
+                names = Arrays.copyOf(names, Math.max(names.length * 2, nameLength + length));
+            }
+        }
+    }
+}
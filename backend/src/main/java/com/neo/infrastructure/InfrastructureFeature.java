@@ -0,0 +1,51 @@
+package com.neo.infrastructure;
+
+/**
+ * One OSM element as returned by the infrastructure query, independent of any impact point.
+ * Nodes, ways and relations have separate id spaces, so the element kind is folded into the
+ * top byte of {@code osmId}.
+ */
+public class InfrastructureFeature {
+
+    public static final int NODE = 0;
+    public static final int WAY = 1;
+    public static final int RELATION = 2;
+
+    private final long osmId;
+    private final String type;
+    private final String name;
+    private final double lat;
+    private final double lng;
+
+    public InfrastructureFeature(long osmId, String type, String name, double lat, double lng) {
+        this.osmId = osmId;
+        this.type = type;
+        this.name = name;
+        this.lat = lat;
+        this.lng = lng;
+    }
+
+    public static long osmKey(int elementKind, long id) {
+        return ((long) elementKind << 56) | id;
+    }
+
+    public long getOsmId() {
+        return osmId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getLat() {
+        return lat;
+    }
+
+    public double getLng() {
+        return lng;
+    }
+}
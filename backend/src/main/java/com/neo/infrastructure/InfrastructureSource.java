@@ -0,0 +1,39 @@
+package com.neo.infrastructure;
+
+import com.neo.geo.SearchArea;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Where impact reports get their infrastructure from. Selected with
+ * {@code impact.infrastructure.source} ({@code overpass} or {@code local}).
+ */
+public interface InfrastructureSource {
+
+    /**
+     * Features around the point covering at least the given radius. Implementations may return
+     * candidates slightly outside it; callers filter on exact distance. When only part of the
+     * area could be loaded the result says how much; when none of it could, the future fails.
+     */
+    CompletableFuture<Candidates> findCandidates(double lat, double lng, double radiusKm);
+
+    /**
+     * Loads whatever the source needs for a group of overlapping search areas in one go, so the
+     * lookups that follow are served locally. Failures are left for those lookups to report.
+     */
+    default CompletableFuture<Void> prefetch(List<SearchArea> areas) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * The {@link Candidates#getVersion() version} a lookup of this circle would return right now,
+     * found without loading anything; null when the lookup would have to load.
+     */
+    default Object currentVersion(double lat, double lng, double radiusKm) {
+        return null;
+    }
+
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,195 @@
+package com.neo.infrastructure;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The OSM tag rules shared by every infrastructure source: which elements the impact query
+ * selects, and how their type and display name are derived.
+ */
+public final class InfrastructureTags {
+
+    // report categories; OTHER covers emergency services and anything not counted separately
+    public static final int MEDICAL = 0;
+    public static final int EDUCATION = 1;
+    public static final int INDUSTRIAL = 2;
+    public static final int AGRICULTURE = 3;
+    public static final int OTHER = 4;
+    public static final int CATEGORY_COUNT = 5;
+    private static final String[] CATEGORY_NAMES = {"medical", "education", "industrial", "agriculture", "other"};
+
+    private static final Set<String> NODE_AMENITIES = Set.of("hospital", "clinic", "doctors",
+            "school", "university", "college", "kindergarten", "fire_station", "police");
+    private static final Set<String> WAY_AMENITIES = Set.of("hospital", "clinic", "school", "university");
+    private static final Set<String> NODE_LANDUSE = Set.of("industrial", "farmland", "farm");
+    private static final Set<String> WAY_LANDUSE = Set.of("industrial", "farmland", "farmyard", "orchard", "vineyard");
+    private static final Set<String> NODE_BUILDINGS = Set.of("industrial", "warehouse", "factory");
+    private static final Set<String> WAY_BUILDINGS = Set.of("industrial", "warehouse", "factory", "farm");
+
+    // type codes: "unknown" and every value the query selects have fixed codes; any other value
+    // (an amenity on a selected industrial way, say) is registered the first time it is seen
+    public static final int UNKNOWN_TYPE = 0;
+    private static final String[] FIXED_TYPES = {"unknown", "hospital", "clinic", "doctors", "school", "university",
+            "college", "kindergarten", "fire_station", "police", "industrial", "warehouse", "factory", "farmland",
+            "farmyard", "orchard", "vineyard", "farm"};
+    // OSM values are open-ended; past this many, new ones fall back to "unknown"
+    private static final int MAX_TYPES = 4096;
+    // codes below this are matched in place by typeCode(char[], ...) before falling back to the map
+    private static final int SCANNED_TYPES = 64;
+    private static final Map<String, Integer> TYPE_CODES = new ConcurrentHashMap<>();
+    private static volatile String[] typeNames = FIXED_TYPES.clone();
+    private static volatile byte[] typeCategories;
+    private static final int FIRE_STATION = Arrays.asList(FIXED_TYPES).indexOf("fire_station");
+    private static final int POLICE = Arrays.asList(FIXED_TYPES).indexOf("police");
+
+    static {
+        for (int code = 0; code < FIXED_TYPES.length; code++) {
+            TYPE_CODES.put(FIXED_TYPES[code], code);
+        }
+        typeCategories = categoriesOf(typeNames);
+    }
+
+    private InfrastructureTags() {
+    }
+
+    // mirrors the selectors of the Overpass query
+    public static boolean isSelected(boolean way, String amenity, String landuse, String building) {
+        if (way) {
+            return matches(WAY_AMENITIES, amenity) || matches(WAY_LANDUSE, landuse) || matches(WAY_BUILDINGS, building);
+        }
+        return matches(NODE_AMENITIES, amenity) || matches(NODE_LANDUSE, landuse) || matches(NODE_BUILDINGS, building);
+    }
+
+    // Set.of rejects null lookups
+    private static boolean matches(Set<String> values, String value) {
+        return value != null && values.contains(value);
+    }
+
+    public static int categoryOf(String type) {
+        if ("hospital".equals(type) || "clinic".equals(type) || "doctors".equals(type))
+            return MEDICAL;
+        if ("school".equals(type) || "university".equals(type) || "kindergarten".equals(type))
+            return EDUCATION;
+        if ("industrial".equals(type) || "factory".equals(type) || "warehouse".equals(type))
+            return INDUSTRIAL;
+        if ("farm".equals(type) || "farmland".equals(type) || "farmyard".equals(type))
+            return AGRICULTURE;
+        return OTHER;
+    }
+
+    public static String categoryName(int category) {
+        return CATEGORY_NAMES[category];
+    }
+
+    /**
+     * Rank for choosing which items a report lists, most critical first: medical and emergency
+     * services, then education, industrial, agriculture and the rest. This is the category order
+     * with fire stations and police moved up from OTHER.
+     */
+    public static int criticalityOfType(int code) {
+        return code == FIRE_STATION || code == POLICE ? 0 : typeCategories[code];
+    }
+
+    public static int typeCode(String type) {
+        Integer code = TYPE_CODES.get(type);
+        return code != null ? code : register(type);
+    }
+
+    /**
+     * Same as {@link #typeCode(String)} for a value still in a parser's buffer; a String is only
+     * made for a value not seen before, or once the registered set is too long to scan.
+     */
+    public static int typeCode(char[] text, int offset, int length) {
+        String[] names = typeNames;
+        int scanned = Math.min(names.length, SCANNED_TYPES);
+        for (int code = 0; code < scanned; code++) {
+            String name = names[code];
+            if (name.length() == length && equalsChars(name, text, offset)) {
+                return code;
+            }
+        }
+        return typeCode(new String(text, offset, length));
+    }
+
+    public static String typeName(int code) {
+        return typeNames[code];
+    }
+
+    public static int categoryOfType(int code) {
+        return typeCategories[code];
+    }
+
+    private static synchronized int register(String type) {
+        Integer code = TYPE_CODES.get(type);
+        if (code != null) {
+            return code;
+        }
+        String[] names = typeNames;
+        if (names.length >= MAX_TYPES) {
+            return UNKNOWN_TYPE;
+        }
+        names = Arrays.copyOf(names, names.length + 1);
+        names[names.length - 1] = type;
+        // the arrays are published before the code, so a reader holding a code can look it up
+        typeCategories = categoriesOf(names);
+        typeNames = names;
+        TYPE_CODES.put(type, names.length - 1);
+        return names.length - 1;
+    }
+
+    private static byte[] categoriesOf(String[] names) {
+        byte[] categories = new byte[names.length];
+        for (int code = 0; code < names.length; code++) {
+            categories[code] = (byte) categoryOf(names[code]);
+        }
+        return categories;
+    }
+
+    private static boolean equalsChars(String value, char[] text, int offset) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) != text[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static String typeOf(String amenity, String landuse, String building) {
+        if (amenity != null)
+            return amenity;
+        if (landuse != null)
+            return landuse;
+        if (building != null)
+            return building;
+        return "unknown";
+    }
+
+    public static String nameOf(String name, String nameEn, String nameTr, String type) {
+        if (name != null)
+            return name;
+        if (nameEn != null)
+            return nameEn;
+        if (nameTr != null)
+            return nameTr;
+        return fallbackName(type);
+    }
+
+    // Generate descriptive name for unnamed features
+    public static String fallbackName(String type) {
+        if ("industrial".equals(type))
+            return "Industrial Area";
+        if ("farmland".equals(type) || "farmyard".equals(type))
+            return "Agricultural Land";
+        if ("factory".equals(type))
+            return "Factory";
+        if ("warehouse".equals(type))
+            return "Warehouse";
+        if ("orchard".equals(type))
+            return "Orchard";
+        if ("vineyard".equals(type))
+            return "Vineyard";
+        return "Unnamed";
+    }
+}
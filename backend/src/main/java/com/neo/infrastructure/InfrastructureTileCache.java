@@ -0,0 +1,333 @@
+package com.neo.infrastructure;
+
+import com.neo.cache.BoundedCache;
+import com.neo.cache.CacheStats;
+import com.neo.geo.BoundingBox;
+import com.neo.geo.TileKey;
+import com.neo.upstream.Bulkhead;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caches infrastructure per map tile. A lookup is served from cached tiles; the missing ones
+ * are fetched with one bounding-box query when there are few of them, or as a grid of block
+ * queries, a few at a time and nearest the middle first, when there are many. Results are split
+ * back into tiles by element position. Tiles already being fetched by another caller are waited
+ * on rather than fetched twice, and a failed block only fails its own tiles.
+ */
+public class InfrastructureTileCache {
+
+    private final int zoom;
+    private final Duration ttl;
+    private final int maxTilesPerQuery;
+    private final int fanOutParallelism;
+    private final long fanOutDeadlineNanos;
+    private final BoundedCache<TileKey, Tile> tiles;
+    private final ConcurrentMap<TileKey, CompletableFuture<Tile>> loading =
+            new ConcurrentHashMap<>();
+    // numbers each tile load, so a reloaded tile is told apart from the one it replaced
+    private final AtomicLong loads = new AtomicLong();
+
+    private final AtomicLong upstreamFetches = new AtomicLong();
+    private final AtomicLong coalescedTiles = new AtomicLong();
+
+    public InfrastructureTileCache(int zoom, long maxTiles, long maxWeightBytes, Duration ttl,
+            int maxTilesPerQuery, int fanOutParallelism, Duration fanOutDeadline) {
+        this.zoom = zoom;
+        this.ttl = ttl;
+        this.maxTilesPerQuery = maxTilesPerQuery;
+        this.fanOutParallelism = fanOutParallelism;
+        this.fanOutDeadlineNanos = fanOutDeadline.toNanos();
+        this.tiles = new BoundedCache<>(maxTiles, maxWeightBytes,
+                (key, tile) -> tile.features.weight());
+    }
+
+    public int getZoom() {
+        return zoom;
+    }
+
+    /**
+     * Result of a tile lookup: the features found plus how many tiles could not be loaded.
+     */
+    public static class TileLookup {
+        private final FeatureTable features;
+        private final int failedTiles;
+        private final RuntimeException failure;
+        private final List<Long> version;
+
+        TileLookup(FeatureTable features, int failedTiles, RuntimeException failure, List<Long> version) {
+            this.features = features;
+            this.failedTiles = failedTiles;
+            this.failure = failure;
+            this.version = version;
+        }
+
+        public FeatureTable getFeatures() {
+            return features;
+        }
+
+        public int getFailedTiles() {
+            return failedTiles;
+        }
+
+        // the first upstream failure, or null when every tile loaded
+        public RuntimeException getFailure() {
+            return failure;
+        }
+
+        // which load of each wanted tile was used, or null when any failed
+        public List<Long> getVersion() {
+            return version;
+        }
+    }
+
+    /**
+     * The {@link TileLookup#getVersion() version} a lookup of these tiles would see now, or null
+     * when any of them would have to be fetched. It changes whenever one of them is reloaded.
+     */
+    public List<Long> version(List<TileKey> wanted) {
+        List<Long> version = new ArrayList<>(wanted.size());
+        for (TileKey key : wanted) {
+            Tile cached = tiles.peek(key);
+            if (cached == null) {
+                return null;
+            }
+            version.add(cached.load);
+        }
+        return version;
+    }
+
+    /**
+     * Completes once every wanted tile is either loaded or known to have failed; never exceptionally.
+     */
+    public CompletableFuture<TileLookup> load(List<TileKey> wanted,
+            Function<BoundingBox, CompletableFuture<FeatureTable>> fetcher) {
+        List<FeatureTable> features = new ArrayList<>();
+        List<CompletableFuture<Tile>> byTile = new ArrayList<>(wanted.size());
+        Map<TileKey, CompletableFuture<Tile>> leading = new HashMap<>();
+        List<CompletableFuture<FeatureTable>> parts = new ArrayList<>();
+        List<Integer> partTiles = new ArrayList<>();
+
+        for (TileKey key : wanted) {
+            Tile cached = tiles.get(key);
+            if (cached != null) {
+                features.add(cached.features);
+                byTile.add(CompletableFuture.completedFuture(cached));
+                continue;
+            }
+            CompletableFuture<Tile> mine = new CompletableFuture<>();
+            CompletableFuture<Tile> existing = loading.putIfAbsent(key, mine);
+            if (existing != null) {
+                coalescedTiles.incrementAndGet();
+                parts.add(existing.thenApply(tile -> tile.features));
+                partTiles.add(1);
+                byTile.add(existing);
+            } else {
+                leading.put(key, mine);
+                byTile.add(mine);
+            }
+        }
+
+        for (Block block : fetchTiles(leading.keySet(), fetcher)) {
+            parts.add(block.result.handle((fetched, error) -> {
+                if (error != null) {
+                    // failed tiles are not cached, the next lookup retries them
+                    RuntimeException failure = unwrap(error);
+                    for (TileKey key : block.tiles) {
+                        CompletableFuture<Tile> future = leading.get(key);
+                        loading.remove(key, future);
+                        future.completeExceptionally(failure);
+                    }
+                    throw failure;
+                }
+                List<FeatureTable> loaded = new ArrayList<>(block.tiles.size());
+                for (TileKey key : block.tiles) {
+                    CompletableFuture<Tile> future = leading.get(key);
+                    Tile tile = new Tile(fetched.get(key), loads.incrementAndGet());
+                    tiles.put(key, tile, ttl);
+                    loading.remove(key, future);
+                    future.complete(tile);
+                    loaded.add(tile.features);
+                }
+                return FeatureTable.concat(loaded);
+            }));
+            partTiles.add(block.tiles.size());
+        }
+
+        CompletableFuture<?>[] settled = parts.stream()
+                .map(part -> part.handle((value, error) -> null))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(settled).thenApply(ignored -> {
+            RuntimeException failure = null;
+            int failedTiles = 0;
+            for (int i = 0; i < parts.size(); i++) {
+                try {
+                    features.add(parts.get(i).join());
+                } catch (CompletionException e) {
+                    failedTiles += partTiles.get(i);
+                    if (failure == null) {
+                        failure = unwrap(e);
+                    }
+                }
+            }
+            // leading tiles complete before their block's part does, so every tile here is settled
+            List<Long> version = null;
+            if (failedTiles == 0) {
+                version = new ArrayList<>(byTile.size());
+                for (CompletableFuture<Tile> tile : byTile) {
+                    version.add(tile.join().load);
+                }
+            }
+            // each element lives in the tile holding its center, but tiles fetched at different
+            // times can disagree once OSM data has changed in between
+            return new TileLookup(FeatureTable.concat(features).distinct(), failedTiles, failure, version);
+        });
+    }
+
+    public int sweepExpired() {
+        return tiles.sweepExpired();
+    }
+
+    public CacheStats stats() {
+        return tiles.stats();
+    }
+
+    public long getUpstreamFetchCount() {
+        return upstreamFetches.get();
+    }
+
+    public long getCoalescedTileCount() {
+        return coalescedTiles.get();
+    }
+
+    /**
+     * Starts the queries for the missing tiles. One lookup's blocks take turns through their own
+     * limiter, so a wide area cannot take every upstream permit; blocks still waiting when the
+     * deadline passes fail without a query, so a lookup ends within the deadline plus one query.
+     */
+    private List<Block> fetchTiles(Collection<TileKey> missing,
+            Function<BoundingBox, CompletableFuture<FeatureTable>> fetcher) {
+        if (missing.isEmpty()) {
+            return List.of();
+        }
+        List<Block> blocks = partition(missing);
+        Bulkhead fanOut = new Bulkhead("Tile fan-out", fanOutParallelism, Integer.MAX_VALUE);
+        long deadline = System.nanoTime() + fanOutDeadlineNanos;
+        for (Block block : blocks) {
+            block.result = fanOut.submit(() -> {
+                if (System.nanoTime() - deadline > 0) {
+                    return CompletableFuture.failedFuture(new InfrastructureUnavailableException(
+                            "Tile query not started within the fan-out deadline", null));
+                }
+                upstreamFetches.incrementAndGet();
+                return fetcher.apply(block.bounds()).thenApply(block::split);
+            });
+        }
+        return blocks;
+    }
+
+    // all missing tiles in one query when they are few, else grid-aligned blocks nearest the
+    // middle first; an aligned block never straddles the dateline
+    private List<Block> partition(Collection<TileKey> missing) {
+        int minX = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        double sumX = 0;
+        double sumY = 0;
+        for (TileKey tile : missing) {
+            minX = Math.min(minX, tile.getX());
+            maxX = Math.max(maxX, tile.getX());
+            sumX += tile.getX();
+            sumY += tile.getY();
+        }
+        boolean wrapsDateline = maxX - minX > (1 << zoom) / 2;
+        if (missing.size() <= maxTilesPerQuery && !wrapsDateline) {
+            Block block = new Block();
+            block.tiles.addAll(missing);
+            return List.of(block);
+        }
+
+        int side = Math.max(1, (int) Math.sqrt(maxTilesPerQuery));
+        Map<Long, Block> byCell = new LinkedHashMap<>();
+        for (TileKey tile : missing) {
+            long cell = (long) (tile.getY() / side) << 32 | tile.getX() / side;
+            byCell.computeIfAbsent(cell, c -> new Block()).tiles.add(tile);
+        }
+        double middleX = sumX / missing.size();
+        double middleY = sumY / missing.size();
+        List<Block> blocks = new ArrayList<>(byCell.values());
+        blocks.sort(Comparator.comparingDouble(block -> block.distanceSquared(middleX, middleY)));
+        return blocks;
+    }
+
+    private static RuntimeException unwrap(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof RuntimeException runtime ? runtime : new CompletionException(cause);
+    }
+
+    private static class Tile {
+        final FeatureTable features;
+        final long load;
+
+        Tile(FeatureTable features, long load) {
+            this.features = features;
+            this.load = load;
+        }
+    }
+
+    // tiles fetched by one query
+    private class Block {
+        final List<TileKey> tiles = new ArrayList<>();
+        CompletableFuture<Map<TileKey, FeatureTable>> result;
+
+        BoundingBox bounds() {
+            BoundingBox union = null;
+            for (TileKey tile : tiles) {
+                union = union == null ? tile.bounds() : union.union(tile.bounds());
+            }
+            return union;
+        }
+
+        double distanceSquared(double x, double y) {
+            double dx = 0;
+            double dy = 0;
+            for (TileKey tile : tiles) {
+                dx += tile.getX();
+                dy += tile.getY();
+            }
+            dx = dx / tiles.size() - x;
+            dy = dy / tiles.size() - y;
+            return dx * dx + dy * dy;
+        }
+
+        Map<TileKey, FeatureTable> split(FeatureTable fetched) {
+            Map<TileKey, FeatureTable.Builder> byTile = new HashMap<>();
+            for (TileKey tile : tiles) {
+                byTile.put(tile, new FeatureTable.Builder(64));
+            }
+            for (int row = 0; row < fetched.size(); row++) {
+                // a way can match a bbox it only clips; it belongs to the tile holding its center,
+                // which keeps it out of the neighbouring blocks' tiles
+                FeatureTable.Builder owner = byTile.get(TileKey.containing(fetched.lat(row), fetched.lng(row), zoom));
+                if (owner != null) {
+                    owner.add(fetched, row);
+                }
+            }
+            Map<TileKey, FeatureTable> built = new HashMap<>();
+            byTile.forEach((tile, builder) -> built.put(tile, builder.build()));
+            return built;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.neo.infrastructure;
+
+/**
+ * Thrown when infrastructure for a search area could not be loaded, so a report would be
+ * incomplete rather than genuinely empty.
+ */
+public class InfrastructureUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InfrastructureUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,152 @@
+package com.neo.infrastructure;
+
+import com.neo.config.InfrastructureConfig;
+import com.neo.geo.BoundingBox;
+import com.neo.geo.GeoMath;
+import com.neo.geo.KdTree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntConsumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Infrastructure served from an OSM extract loaded at startup, for running without Overpass.
+ * Features sit in a {@link KdTree} so a radius query touches only nearby points.
+ */
+@Component
+@ConditionalOnProperty(name = "impact.infrastructure.source", havingValue = "local")
+public class LocalInfrastructureIndex implements InfrastructureSource {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalInfrastructureIndex.class);
+
+    private final String origin;
+    private final FeatureTable features;
+    private final KdTree tree;
+    private final long buildMillis;
+    private final BoundingBox bounds;
+
+    public LocalInfrastructureIndex(InfrastructureConfig config) {
+        Resource file = config.getOsmFile();
+        this.origin = file.getDescription();
+
+        long started = System.nanoTime();
+        try (InputStream raw = file.getInputStream();
+             InputStream in = isGzip(file) ? new GZIPInputStream(raw) : raw) {
+            this.features = FeatureTable.of(new OsmExtractReader().read(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load OSM extract " + origin, e);
+        }
+
+        double[] lat = new double[features.size()];
+        double[] lng = new double[features.size()];
+        for (int i = 0; i < features.size(); i++) {
+            lat[i] = features.lat(i);
+            lng[i] = features.lng(i);
+        }
+        this.tree = new KdTree(lat, lng);
+        this.bounds = boundsOf(lat, lng);
+        this.buildMillis = (System.nanoTime() - started) / 1_000_000;
+
+        log.info("Indexed infrastructure extract={} features={} millis={}", origin, features.size(), buildMillis);
+    }
+
+    @Override
+    public CompletableFuture<Candidates> findCandidates(double lat, double lng, double radiusKm) {
+        RowCollector found = new RowCollector();
+        BoundingBox box = GeoMath.circleBounds(lat, lng, radiusKm);
+
+        // split a box hanging over the dateline into its two halves
+        if (box.getWest() < -180) {
+            tree.forEachWithin(new BoundingBox(box.getSouth(), box.getWest() + 360, box.getNorth(), 180), found);
+            box = new BoundingBox(box.getSouth(), -180, box.getNorth(), box.getEast());
+        } else if (box.getEast() > 180) {
+            tree.forEachWithin(new BoundingBox(box.getSouth(), -180, box.getNorth(), box.getEast() - 360), found);
+            box = new BoundingBox(box.getSouth(), box.getWest(), box.getNorth(), 180);
+        }
+        tree.forEachWithin(box, found);
+        return CompletableFuture.completedFuture(Candidates.complete(features.select(found.rows, found.count), features));
+    }
+
+    // the extract is read once, so one version covers every lookup
+    @Override
+    public Object currentVersion(double lat, double lng, double radiusKm) {
+        return features;
+    }
+
+    /**
+     * Features within {@code radiusKm} of the point, counted without collecting them.
+     */
+    public int countWithin(double lat, double lng, double radiusKm) {
+        int count = tree.countWithin(lat, lng, radiusKm);
+        BoundingBox box = GeoMath.circleBounds(lat, lng, radiusKm);
+        // features across the dateline, seen from the shifted center
+        if (box.getWest() < -180) {
+            count += tree.countWithin(lat, lng + 360, radiusKm);
+        } else if (box.getEast() > 180) {
+            count += tree.countWithin(lat, lng - 360, radiusKm);
+        }
+        return count;
+    }
+
+    // smallest box holding every feature, or null for an empty extract
+    public BoundingBox getBounds() {
+        return bounds;
+    }
+
+    public int size() {
+        return tree.size();
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("source", "local");
+        stats.put("extract", origin);
+        stats.put("features", tree.size());
+        stats.put("buildMillis", buildMillis);
+        return stats;
+    }
+
+    private static BoundingBox boundsOf(double[] lat, double[] lng) {
+        if (lat.length == 0) {
+            return null;
+        }
+        double south = 90, west = 180, north = -90, east = -180;
+        for (int i = 0; i < lat.length; i++) {
+            south = Math.min(south, lat[i]);
+            north = Math.max(north, lat[i]);
+            west = Math.min(west, lng[i]);
+            east = Math.max(east, lng[i]);
+        }
+        return new BoundingBox(south, west, north, east);
+    }
+
+    private static class RowCollector implements IntConsumer {
+        int[] rows = new int[256];
+        int count;
+
+        @Override
+        public void accept(int row) {
+            if (count == rows.length) {
+                rows = Arrays.copyOf(rows, count * 2);
+            }
+            rows[count++] = row;
+        }
+    }
+
+    private static boolean isGzip(Resource file) {
+        String name = file.getFilename();
+        return name != null && name.endsWith(".gz");
+    }
+}
@@ -0,0 +1,233 @@
+package com.neo.infrastructure;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streams an OSM XML extract ({@code .osm}, e.g. from {@code osmium cat -f osm}) and keeps the
+ * nodes and ways the impact query selects. Way positions are the center of their bounding box,
+ * like Overpass {@code out center}. Relations are skipped, the Overpass query does not ask for them.
+ */
+public class OsmExtractReader {
+
+    // coordinates of every node, needed to place ways
+    private long[] nodeIds = new long[4096];
+    private double[] nodeLat = new double[4096];
+    private double[] nodeLng = new double[4096];
+    private int nodeCount;
+    private boolean nodesSorted = true;
+
+    private final List<InfrastructureFeature> features = new ArrayList<>();
+
+    public List<InfrastructureFeature> read(InputStream in) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        try {
+            XMLStreamReader xml = factory.createXMLStreamReader(in);
+            try {
+                while (xml.hasNext()) {
+                    if (xml.next() != XMLStreamConstants.START_ELEMENT) {
+                        continue;
+                    }
+                    String element = xml.getLocalName();
+                    if ("node".equals(element)) {
+                        readNode(xml);
+                    } else if ("way".equals(element)) {
+                        readWay(xml);
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed OSM extract: " + e.getMessage(), e);
+        }
+        return features;
+    }
+
+    private void readNode(XMLStreamReader xml) throws XMLStreamException {
+        long id = Long.parseLong(xml.getAttributeValue(null, "id"));
+        String latValue = xml.getAttributeValue(null, "lat");
+        String lngValue = xml.getAttributeValue(null, "lon");
+        if (latValue == null || lngValue == null) {
+            // deleted node in a change file
+            skipElement(xml);
+            return;
+        }
+        double lat = Double.parseDouble(latValue);
+        double lng = Double.parseDouble(lngValue);
+        addNode(id, lat, lng);
+
+        Tags tags = new Tags();
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT && "tag".equals(xml.getLocalName())) {
+                tags.read(xml);
+            } else if (event == XMLStreamConstants.END_ELEMENT && "node".equals(xml.getLocalName())) {
+                break;
+            }
+        }
+
+        if (InfrastructureTags.isSelected(false, tags.amenity, tags.landuse, tags.building)) {
+            features.add(tags.toFeature(InfrastructureFeature.osmKey(InfrastructureFeature.NODE, id), lat, lng));
+        }
+    }
+
+    private void readWay(XMLStreamReader xml) throws XMLStreamException {
+        long id = Long.parseLong(xml.getAttributeValue(null, "id"));
+        List<Long> refs = new ArrayList<>();
+        Tags tags = new Tags();
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if ("nd".equals(xml.getLocalName())) {
+                    refs.add(Long.parseLong(xml.getAttributeValue(null, "ref")));
+                } else if ("tag".equals(xml.getLocalName())) {
+                    tags.read(xml);
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT && "way".equals(xml.getLocalName())) {
+                break;
+            }
+        }
+
+        if (!InfrastructureTags.isSelected(true, tags.amenity, tags.landuse, tags.building)) {
+            return;
+        }
+
+        double south = 90, west = 180, north = -90, east = -180;
+        boolean placed = false;
+        for (long ref : refs) {
+            int node = findNode(ref);
+            if (node < 0) {
+                continue; // clipped at the extract boundary
+            }
+            south = Math.min(south, nodeLat[node]);
+            north = Math.max(north, nodeLat[node]);
+            west = Math.min(west, nodeLng[node]);
+            east = Math.max(east, nodeLng[node]);
+            placed = true;
+        }
+        if (placed) {
+            features.add(tags.toFeature(InfrastructureFeature.osmKey(InfrastructureFeature.WAY, id),
+                    (south + north) / 2, (west + east) / 2));
+        }
+    }
+
+    private void skipElement(XMLStreamReader xml) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private void addNode(long id, double lat, double lng) {
+        if (nodeCount == nodeIds.length) {
+            int capacity = nodeCount * 2;
+            nodeIds = Arrays.copyOf(nodeIds, capacity);
+            nodeLat = Arrays.copyOf(nodeLat, capacity);
+            nodeLng = Arrays.copyOf(nodeLng, capacity);
+        }
+        if (nodeCount > 0 && id < nodeIds[nodeCount - 1]) {
+            nodesSorted = false;
+        }
+        nodeIds[nodeCount] = id;
+        nodeLat[nodeCount] = lat;
+        nodeLng[nodeCount] = lng;
+        nodeCount++;
+    }
+
+    private int findNode(long id) {
+        if (!nodesSorted) {
+            // extracts are normally id-sorted already; sort once otherwise
+            sortNodes(0, nodeCount - 1);
+            nodesSorted = true;
+        }
+        int index = Arrays.binarySearch(nodeIds, 0, nodeCount, id);
+        return index >= 0 ? index : -1;
+    }
+
+    private void sortNodes(int lo, int hi) {
+        while (lo < hi) {
+            long pivot = nodeIds[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (nodeIds[i] < pivot) {
+                    i++;
+                }
+                while (nodeIds[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swapNodes(i++, j--);
+                }
+            }
+            // recurse into the smaller half to bound stack depth
+            if (j - lo < hi - i) {
+                sortNodes(lo, j);
+                lo = i;
+            } else {
+                sortNodes(i, hi);
+                hi = j;
+            }
+        }
+    }
+
+    private void swapNodes(int a, int b) {
+        long id = nodeIds[a];
+        nodeIds[a] = nodeIds[b];
+        nodeIds[b] = id;
+        double t = nodeLat[a];
+        nodeLat[a] = nodeLat[b];
+        nodeLat[b] = t;
+        t = nodeLng[a];
+        nodeLng[a] = nodeLng[b];
+        nodeLng[b] = t;
+    }
+
+    private static class Tags {
+        String amenity;
+        String landuse;
+        String building;
+        String name;
+        String nameEn;
+        String nameTr;
+
+        void read(XMLStreamReader xml) {
+            String key = xml.getAttributeValue(null, "k");
+            String value = xml.getAttributeValue(null, "v");
+            if (key == null) {
+                return;
+            }
+            switch (key) {
+                case "amenity" -> amenity = value;
+                case "landuse" -> landuse = value;
+                case "building" -> building = value;
+                case "name" -> name = value;
+                case "name:en" -> nameEn = value;
+                case "name:tr" -> nameTr = value;
+                default -> {
+                }
+            }
+        }
+
+        InfrastructureFeature toFeature(long osmId, double lat, double lng) {
+            String type = InfrastructureTags.typeOf(amenity, landuse, building);
+            return new InfrastructureFeature(osmId, type, InfrastructureTags.nameOf(name, nameEn, nameTr, type), lat, lng);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.neo.model;
+
+import java.util.Map;
+
+/**
+ * Sampled distribution of one simulated quantity. {@code binEdges} has one more entry than
+ * {@code counts}; bin i covers [binEdges[i], binEdges[i + 1]).
+ */
+public class Distribution {
+
+    private final double mean;
+    private final Map<String, Double> percentiles;
+    private final double[] binEdges;
+    private final long[] counts;
+
+    public Distribution(double mean, Map<String, Double> percentiles, double[] binEdges, long[] counts) {
+        this.mean = mean;
+        this.percentiles = percentiles;
+        this.binEdges = binEdges;
+        this.counts = counts;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    // keyed "p1", "p5", ... "p99"
+    public Map<String, Double> getPercentiles() {
+        return percentiles;
+    }
+
+    public double[] getBinEdges() {
+        return binEdges;
+    }
+
+    public long[] getCounts() {
+        return counts;
+    }
+}
@@ -0,0 +1,144 @@
+package com.neo.model;
+
+import java.util.List;
+
+/**
+ * Damage-vs-energy curve for one location: zone radii and affected counts at each swept energy.
+ */
+public class EnergySweep {
+
+    private final double latitude;
+    private final double longitude;
+    private final double searchRadiusKm;
+    private final int infrastructureCount;
+    private final double infrastructureCoverage;
+    private final List<SweepPoint> points;
+
+    public EnergySweep(double latitude, double longitude, double searchRadiusKm, int infrastructureCount,
+            double infrastructureCoverage, List<SweepPoint> points) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.searchRadiusKm = searchRadiusKm;
+        this.infrastructureCount = infrastructureCount;
+        this.infrastructureCoverage = infrastructureCoverage;
+        this.points = points;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    // radius of the single infrastructure fetch, i.e. the largest energy's search radius
+    public double getSearchRadiusKm() {
+        return searchRadiusKm;
+    }
+
+    public int getInfrastructureCount() {
+        return infrastructureCount;
+    }
+
+    // share of the fetch area that loaded, as in ImpactReport
+    public double getInfrastructureCoverage() {
+        return infrastructureCoverage;
+    }
+
+    public List<SweepPoint> getPoints() {
+        return points;
+    }
+
+    /**
+     * One energy on the curve. Zone counts are exclusive bands: thermal inside the thermal radius,
+     * pressure between thermal and pressure, shrapnel from there out to the search radius.
+     */
+    public static class SweepPoint {
+        private final double kineticEnergyJoules;
+        private final double thermalRadiusKm;
+        private final double pressureRadiusKm;
+        private final double shrapnelRadiusKm;
+        private final double searchRadiusKm;
+        private final int thermalCount;
+        private final int pressureCount;
+        private final int shrapnelCount;
+        private final long estimatedPopulation;
+        private final int hospitalsAffected;
+        private final int schoolsAffected;
+        private final int industrialAffected;
+        private final int farmlandAffected;
+
+        public SweepPoint(ImpactReport radii, double searchRadiusKm, int thermalCount, int pressureCount,
+                int shrapnelCount, long estimatedPopulation, int hospitalsAffected, int schoolsAffected,
+                int industrialAffected, int farmlandAffected) {
+            this.kineticEnergyJoules = radii.getKineticEnergyJoules();
+            this.thermalRadiusKm = radii.getThermalRadiusKm();
+            this.pressureRadiusKm = radii.getPressureRadiusKm();
+            this.shrapnelRadiusKm = radii.getShrapnelRadiusKm();
+            this.searchRadiusKm = searchRadiusKm;
+            this.thermalCount = thermalCount;
+            this.pressureCount = pressureCount;
+            this.shrapnelCount = shrapnelCount;
+            this.estimatedPopulation = estimatedPopulation;
+            this.hospitalsAffected = hospitalsAffected;
+            this.schoolsAffected = schoolsAffected;
+            this.industrialAffected = industrialAffected;
+            this.farmlandAffected = farmlandAffected;
+        }
+
+        public double getKineticEnergyJoules() {
+            return kineticEnergyJoules;
+        }
+
+        public double getThermalRadiusKm() {
+            return thermalRadiusKm;
+        }
+
+        public double getPressureRadiusKm() {
+            return pressureRadiusKm;
+        }
+
+        public double getShrapnelRadiusKm() {
+            return shrapnelRadiusKm;
+        }
+
+        // shrapnel radius clamped the same way as a single impact report
+        public double getSearchRadiusKm() {
+            return searchRadiusKm;
+        }
+
+        public int getThermalCount() {
+            return thermalCount;
+        }
+
+        public int getPressureCount() {
+            return pressureCount;
+        }
+
+        public int getShrapnelCount() {
+            return shrapnelCount;
+        }
+
+        // people within the full shrapnel radius, which the infrastructure search may cap
+        public long getEstimatedPopulation() {
+            return estimatedPopulation;
+        }
+
+        public int getHospitalsAffected() {
+            return hospitalsAffected;
+        }
+
+        public int getSchoolsAffected() {
+            return schoolsAffected;
+        }
+
+        public int getIndustrialAffected() {
+            return industrialAffected;
+        }
+
+        public int getFarmlandAffected() {
+            return farmlandAffected;
+        }
+    }
+}
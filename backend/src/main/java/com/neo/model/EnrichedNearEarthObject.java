@@ -0,0 +1,49 @@
+package com.neo.model;
+
+/**
+ * A feed NEO plus the impact estimates the frontend would otherwise compute itself,
+ * returned when the feed is requested with {@code enrich=true}.
+ */
+public class EnrichedNearEarthObject extends NearEarthObject {
+
+    private double massKg;
+    private double kineticEnergyJoules;
+    private double craterDiameterKm;
+    private double earthquakeMagnitude;
+    private double destructionRadiusKm;
+
+    public EnrichedNearEarthObject() {
+    }
+
+    public EnrichedNearEarthObject(NearEarthObject neo, double massKg, double kineticEnergyJoules,
+            double craterDiameterKm, double earthquakeMagnitude, double destructionRadiusKm) {
+        super(neo.getId(), neo.getName(), neo.getDiameterMinMeters(), neo.getDiameterMaxMeters(),
+                neo.getVelocityKmPerSec(), neo.getMissDistanceKm(), neo.isPotentiallyHazardous(),
+                neo.getCloseApproachDate());
+        this.massKg = massKg;
+        this.kineticEnergyJoules = kineticEnergyJoules;
+        this.craterDiameterKm = craterDiameterKm;
+        this.earthquakeMagnitude = earthquakeMagnitude;
+        this.destructionRadiusKm = destructionRadiusKm;
+    }
+
+    public double getMassKg() {
+        return massKg;
+    }
+
+    public double getKineticEnergyJoules() {
+        return kineticEnergyJoules;
+    }
+
+    public double getCraterDiameterKm() {
+        return craterDiameterKm;
+    }
+
+    public double getEarthquakeMagnitude() {
+        return earthquakeMagnitude;
+    }
+
+    public double getDestructionRadiusKm() {
+        return destructionRadiusKm;
+    }
+}
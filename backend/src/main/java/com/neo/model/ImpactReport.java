@@ -1,11 +1,18 @@
 package com.neo.model;
 
+import com.neo.physics.ImpactPhysics;
+
 import java.util.List;
 
 /**
  * NOTE: We don't know if we can use auto getter/setter libraries like Lombok.
  */
 public class ImpactReport {
+
+    public static final double MIN_SEARCH_RADIUS_KM = 2;
+    // a region about 200 km across, some 45 block queries at the default tile settings
+    public static final double MAX_SEARCH_RADIUS_KM = 100;
+
     private double latitude;
     private double longitude;
     private double kineticEnergyJoules;
@@ -18,7 +25,14 @@ public class ImpactReport {
     private int industrialAffected;
     private int farmlandAffected;
     private long estimatedPopulation;
+    private long thermalZonePopulation;
+    private long pressureZonePopulation;
+    private long shrapnelZonePopulation;
+    // the most critical items in range; the rest are summarised in infrastructureClusters
     private List<InfrastructureItem> infrastructure;
+    private int infrastructureTotal;
+    private List<InfrastructureCluster> infrastructureClusters;
+    private double infrastructureCoverage = 1;
 
     public ImpactReport() {
     }
@@ -31,10 +45,18 @@ public class ImpactReport {
     }
 
     private void calculateRadii() {
-        double scaleFactor = Math.pow(kineticEnergyJoules / 1e15, 0.33);
-        this.thermalRadiusKm = 0.5 * scaleFactor;
-        this.pressureRadiusKm = 1.2 * scaleFactor;
-        this.shrapnelRadiusKm = 2.0 * scaleFactor;
+        double scaleFactor = ImpactPhysics.zoneScaleKm(kineticEnergyJoules);
+        this.thermalRadiusKm = ImpactPhysics.THERMAL_RADIUS_FACTOR * scaleFactor;
+        this.pressureRadiusKm = ImpactPhysics.PRESSURE_RADIUS_FACTOR * scaleFactor;
+        this.shrapnelRadiusKm = ImpactPhysics.SHRAPNEL_RADIUS_FACTOR * scaleFactor;
+    }
+
+    /**
+     * Radius searched for affected infrastructure: the shrapnel radius, kept between 2 and
+     * {@link #MAX_SEARCH_RADIUS_KM}. Wide searches are split into tile queries by the source.
+     */
+    public static double searchRadiusKm(double shrapnelRadiusKm) {
+        return Math.max(MIN_SEARCH_RADIUS_KM, Math.min(shrapnelRadiusKm, MAX_SEARCH_RADIUS_KM));
     }
 
     public double getLatitude() {
@@ -122,6 +144,31 @@ public class ImpactReport {
         this.estimatedPopulation = pop;
     }
 
+    // people inside the thermal radius; the pressure and shrapnel figures are the rings beyond it
+    public long getThermalZonePopulation() {
+        return thermalZonePopulation;
+    }
+
+    public void setThermalZonePopulation(long pop) {
+        this.thermalZonePopulation = pop;
+    }
+
+    public long getPressureZonePopulation() {
+        return pressureZonePopulation;
+    }
+
+    public void setPressureZonePopulation(long pop) {
+        this.pressureZonePopulation = pop;
+    }
+
+    public long getShrapnelZonePopulation() {
+        return shrapnelZonePopulation;
+    }
+
+    public void setShrapnelZonePopulation(long pop) {
+        this.shrapnelZonePopulation = pop;
+    }
+
     public List<InfrastructureItem> getInfrastructure() {
         return infrastructure;
     }
@@ -130,6 +177,32 @@ public class ImpactReport {
         this.infrastructure = items;
     }
 
+    // every item in range, listed or not; /api/impact/infrastructure pages through them all
+    public int getInfrastructureTotal() {
+        return infrastructureTotal;
+    }
+
+    public void setInfrastructureTotal(int infrastructureTotal) {
+        this.infrastructureTotal = infrastructureTotal;
+    }
+
+    public List<InfrastructureCluster> getInfrastructureClusters() {
+        return infrastructureClusters;
+    }
+
+    public void setInfrastructureClusters(List<InfrastructureCluster> infrastructureClusters) {
+        this.infrastructureClusters = infrastructureClusters;
+    }
+
+    // share of the search area whose infrastructure loaded; below 1 the counts are a lower bound
+    public double getInfrastructureCoverage() {
+        return infrastructureCoverage;
+    }
+
+    public void setInfrastructureCoverage(double infrastructureCoverage) {
+        this.infrastructureCoverage = infrastructureCoverage;
+    }
+
     public static class InfrastructureItem {
         private String type;
         private String name;
@@ -198,4 +271,66 @@ public class ImpactReport {
             this.zone = zone;
         }
     }
+
+    /**
+     * Unlisted items of one category in one zone and one grid cell: how many, and their centroid.
+     */
+    public static class InfrastructureCluster {
+        private String zone;
+        private String category;
+        private int count;
+        private double lat;
+        private double lng;
+
+        public InfrastructureCluster() {
+        }
+
+        public InfrastructureCluster(String zone, String category, int count, double lat, double lng) {
+            this.zone = zone;
+            this.category = category;
+            this.count = count;
+            this.lat = lat;
+            this.lng = lng;
+        }
+
+        public String getZone() {
+            return zone;
+        }
+
+        public void setZone(String zone) {
+            this.zone = zone;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public void setCategory(String category) {
+            this.category = category;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public double getLat() {
+            return lat;
+        }
+
+        public void setLat(double lat) {
+            this.lat = lat;
+        }
+
+        public double getLng() {
+            return lng;
+        }
+
+        public void setLng(double lng) {
+            this.lng = lng;
+        }
+    }
 }
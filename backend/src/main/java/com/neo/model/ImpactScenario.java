@@ -0,0 +1,41 @@
+package com.neo.model;
+
+public class ImpactScenario {
+
+    private double lat;
+    private double lng;
+    private double kineticEnergy;
+
+    public ImpactScenario() {
+    }
+
+    public ImpactScenario(double lat, double lng, double kineticEnergy) {
+        this.lat = lat;
+        this.lng = lng;
+        this.kineticEnergy = kineticEnergy;
+    }
+
+    public double getLat() {
+        return lat;
+    }
+
+    public void setLat(double lat) {
+        this.lat = lat;
+    }
+
+    public double getLng() {
+        return lng;
+    }
+
+    public void setLng(double lng) {
+        this.lng = lng;
+    }
+
+    public double getKineticEnergy() {
+        return kineticEnergy;
+    }
+
+    public void setKineticEnergy(double kineticEnergy) {
+        this.kineticEnergy = kineticEnergy;
+    }
+}
@@ -0,0 +1,41 @@
+package com.neo.model;
+
+import com.neo.model.ImpactReport.InfrastructureItem;
+
+import java.util.List;
+
+/**
+ * One page of every infrastructure item an impact report counts, in the order the report
+ * lists its top items, so the first page repeats them.
+ */
+public class InfrastructurePage {
+
+    private final int total;
+    private final int offset;
+    private final List<InfrastructureItem> items;
+    private final double infrastructureCoverage;
+
+    public InfrastructurePage(int total, int offset, List<InfrastructureItem> items, double infrastructureCoverage) {
+        this.total = total;
+        this.offset = offset;
+        this.items = items;
+        this.infrastructureCoverage = infrastructureCoverage;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public List<InfrastructureItem> getItems() {
+        return items;
+    }
+
+    // as in ImpactReport; below 1 some of the area failed to load
+    public double getInfrastructureCoverage() {
+        return infrastructureCoverage;
+    }
+}
@@ -0,0 +1,29 @@
+package com.neo.model;
+
+import java.util.List;
+
+public class NeoQueryResult {
+
+    private final List<NearEarthObject> items;
+    private final int totalMatched;
+    private final String nextCursor;
+
+    public NeoQueryResult(List<NearEarthObject> items, int totalMatched, String nextCursor) {
+        this.items = items;
+        this.totalMatched = totalMatched;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<NearEarthObject> getItems() {
+        return items;
+    }
+
+    public int getTotalMatched() {
+        return totalMatched;
+    }
+
+    // null on the last page
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
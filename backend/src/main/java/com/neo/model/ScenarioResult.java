@@ -0,0 +1,38 @@
+package com.neo.model;
+
+/**
+ * Outcome of one scenario in a batch: either a report or the error that prevented it.
+ */
+public class ScenarioResult {
+
+    private final int index;
+    private final ImpactReport report;
+    private final String error;
+
+    private ScenarioResult(int index, ImpactReport report, String error) {
+        this.index = index;
+        this.report = report;
+        this.error = error;
+    }
+
+    public static ScenarioResult success(int index, ImpactReport report) {
+        return new ScenarioResult(index, report, null);
+    }
+
+    public static ScenarioResult failure(int index, String error) {
+        return new ScenarioResult(index, null, error);
+    }
+
+    // position of the scenario in the request
+    public int getIndex() {
+        return index;
+    }
+
+    public ImpactReport getReport() {
+        return report;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,163 @@
+package com.neo.model;
+
+/**
+ * Monte Carlo impact outcome for one NEO. {@code infrastructureAffected} is only set when
+ * impact locations were sampled.
+ */
+public class SimulationResult {
+
+    private String neoId;
+    private String name;
+    private double diameterMinMeters;
+    private double diameterMaxMeters;
+    private double velocityKmPerSec;
+    private int samples;
+    private long seed;
+    private long elapsedMillis;
+    private Distribution kineticEnergyJoules;
+    private Distribution craterDiameterKm;
+    private Distribution earthquakeMagnitude;
+    private Distribution destructionRadiusKm;
+    private Distribution thermalRadiusKm;
+    private Distribution pressureRadiusKm;
+    private Distribution shrapnelRadiusKm;
+    private Distribution infrastructureAffected;
+    private double infrastructureCoverage = 1;
+
+    public String getNeoId() {
+        return neoId;
+    }
+
+    public void setNeoId(String neoId) {
+        this.neoId = neoId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public double getDiameterMinMeters() {
+        return diameterMinMeters;
+    }
+
+    public void setDiameterMinMeters(double diameterMinMeters) {
+        this.diameterMinMeters = diameterMinMeters;
+    }
+
+    public double getDiameterMaxMeters() {
+        return diameterMaxMeters;
+    }
+
+    public void setDiameterMaxMeters(double diameterMaxMeters) {
+        this.diameterMaxMeters = diameterMaxMeters;
+    }
+
+    public double getVelocityKmPerSec() {
+        return velocityKmPerSec;
+    }
+
+    public void setVelocityKmPerSec(double velocityKmPerSec) {
+        this.velocityKmPerSec = velocityKmPerSec;
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    public void setSamples(int samples) {
+        this.samples = samples;
+    }
+
+    // pass back as seed to reproduce this result exactly
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public Distribution getKineticEnergyJoules() {
+        return kineticEnergyJoules;
+    }
+
+    public void setKineticEnergyJoules(Distribution kineticEnergyJoules) {
+        this.kineticEnergyJoules = kineticEnergyJoules;
+    }
+
+    public Distribution getCraterDiameterKm() {
+        return craterDiameterKm;
+    }
+
+    public void setCraterDiameterKm(Distribution craterDiameterKm) {
+        this.craterDiameterKm = craterDiameterKm;
+    }
+
+    public Distribution getEarthquakeMagnitude() {
+        return earthquakeMagnitude;
+    }
+
+    public void setEarthquakeMagnitude(Distribution earthquakeMagnitude) {
+        this.earthquakeMagnitude = earthquakeMagnitude;
+    }
+
+    public Distribution getDestructionRadiusKm() {
+        return destructionRadiusKm;
+    }
+
+    public void setDestructionRadiusKm(Distribution destructionRadiusKm) {
+        this.destructionRadiusKm = destructionRadiusKm;
+    }
+
+    public Distribution getThermalRadiusKm() {
+        return thermalRadiusKm;
+    }
+
+    public void setThermalRadiusKm(Distribution thermalRadiusKm) {
+        this.thermalRadiusKm = thermalRadiusKm;
+    }
+
+    public Distribution getPressureRadiusKm() {
+        return pressureRadiusKm;
+    }
+
+    public void setPressureRadiusKm(Distribution pressureRadiusKm) {
+        this.pressureRadiusKm = pressureRadiusKm;
+    }
+
+    public Distribution getShrapnelRadiusKm() {
+        return shrapnelRadiusKm;
+    }
+
+    public void setShrapnelRadiusKm(Distribution shrapnelRadiusKm) {
+        this.shrapnelRadiusKm = shrapnelRadiusKm;
+    }
+
+    public Distribution getInfrastructureAffected() {
+        return infrastructureAffected;
+    }
+
+    public void setInfrastructureAffected(Distribution infrastructureAffected) {
+        this.infrastructureAffected = infrastructureAffected;
+    }
+
+    public double getInfrastructureCoverage() {
+        return infrastructureCoverage;
+    }
+
+    public void setInfrastructureCoverage(double infrastructureCoverage) {
+        this.infrastructureCoverage = infrastructureCoverage;
+    }
+}
@@ -0,0 +1,67 @@
+package com.neo.physics;
+
+/**
+ * Impact physics for the backend, ported from frontend/js/physics.js so server and browser agree.
+ * Scalar methods are for single values; {@link ImpactBatch} runs the same formulas over arrays.
+ */
+public final class ImpactPhysics {
+
+    public static final double DENSITY_KG_M3 = 3000;
+    public static final double JOULES_PER_MEGATON = 4.184e15;
+
+    // damage zone radii for impact reports, as multiples of (E / 1e15 J)^0.33 km
+    public static final double THERMAL_RADIUS_FACTOR = 0.5;
+    public static final double PRESSURE_RADIUS_FACTOR = 1.2;
+    public static final double SHRAPNEL_RADIUS_FACTOR = 2.0;
+
+    // shared with ImpactBatch, which must give the same results as the scalar methods
+    static final double SPHERE_VOLUME_FACTOR = Math.PI / 6; // (4/3)·π·(d/2)³ = π/6·d³
+    // crater diameter in km = coefficient · megatons^exponent
+    static final double CRATER_COEFFICIENT_KM = 0.074;
+    static final double CRATER_EXPONENT = 0.29;
+    // destruction radius in km = coefficient · ∛megatons
+    static final double DESTRUCTION_COEFFICIENT_KM = 1.4;
+    // ~1% of the impact energy goes into seismic waves; magnitude = (log10 E_s - offset) / slope
+    static final double SEISMIC_EFFICIENCY = 0.01;
+    static final double MAGNITUDE_OFFSET = 4.8;
+    static final double MAGNITUDE_SLOPE = 1.5;
+
+    private ImpactPhysics() {
+    }
+
+    public static double mass(double diameterMeters) {
+        return mass(diameterMeters, DENSITY_KG_M3);
+    }
+
+    public static double mass(double diameterMeters, double densityKgM3) {
+        return densityKgM3 * SPHERE_VOLUME_FACTOR * diameterMeters * diameterMeters * diameterMeters;
+    }
+
+    public static double kineticEnergy(double diameterMeters, double velocityKmPerSec) {
+        return kineticEnergy(diameterMeters, velocityKmPerSec, DENSITY_KG_M3);
+    }
+
+    public static double kineticEnergy(double diameterMeters, double velocityKmPerSec, double densityKgM3) {
+        double velocityMps = velocityKmPerSec * 1000;
+        return 0.5 * mass(diameterMeters, densityKgM3) * velocityMps * velocityMps;
+    }
+
+    public static double craterDiameterKm(double kineticEnergyJoules) {
+        return CRATER_COEFFICIENT_KM * Math.pow(kineticEnergyJoules / JOULES_PER_MEGATON, CRATER_EXPONENT);
+    }
+
+    public static double earthquakeMagnitude(double kineticEnergyJoules) {
+        return (Math.log10(kineticEnergyJoules * SEISMIC_EFFICIENCY) - MAGNITUDE_OFFSET) / MAGNITUDE_SLOPE;
+    }
+
+    public static double destructionRadiusKm(double kineticEnergyJoules) {
+        return DESTRUCTION_COEFFICIENT_KM * Math.cbrt(kineticEnergyJoules / JOULES_PER_MEGATON);
+    }
+
+    /**
+     * Common scale of the thermal / pressure / shrapnel radii; multiply by the zone factors.
+     */
+    public static double zoneScaleKm(double kineticEnergyJoules) {
+        return Math.pow(kineticEnergyJoules / 1e15, 0.33);
+    }
+}
@@ -0,0 +1,311 @@
+package com.neo.physics;
+
+import com.neo.geo.GeoMath;
+import com.neo.geo.KdTree;
+import com.neo.model.Distribution;
+import com.neo.model.ImpactReport;
+import com.neo.model.SimulationResult;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Monte Carlo over what a NEO record leaves open: the diameter within NASA's estimate
+ * (log-uniform), the density class, the entry angle and optionally the impact point.
+ *
+ * Samples run in fixed-size chunks on the common fork/join pool. Each chunk draws from its own
+ * {@link SplittableRandom}, split from the seed in chunk order, and fills fine-grained histograms
+ * without allocating, so a seed gives the same result on any number of cores. Thermal, pressure,
+ * shrapnel and destruction radii and the magnitude all grow with energy, so their percentiles
+ * and histograms are mapped from the energy histogram instead of being binned separately.
+ */
+public final class MonteCarloSimulation {
+
+    static final int CHUNK_SAMPLES = 65_536;
+    private static final int FINE_BINS = 4096;
+    private static final int[] PERCENTILES = {1, 5, 25, 50, 75, 95, 99};
+
+    // rough NEO mix of carbonaceous, stony and metallic bodies
+    private static final double[] CLASS_DENSITY_KG_M3 = {1300, 2700, 5300};
+    private static final double[] CLASS_CUMULATIVE = {0.35, 0.90};
+
+    // crater histogram floor relative to a vertical impact; grazing entries below it share the first bin
+    private static final double MIN_ANGLE_FACTOR = 0.1;
+    // impact points are scattered up to about this many standard deviations (beyond: ~0.03% of samples)
+    private static final double SCATTER_REACH = 4;
+
+    private final double diameterMin;
+    private final double logDiameterRatio;
+    private final double[] energyFactor = new double[CLASS_DENSITY_KG_M3.length];
+    private final Scale energyScale;
+    private final Scale craterScale;
+
+    private final KdTree exposure;
+    private final Scale exposureScale;
+    private final double lat;
+    private final double lng;
+    private final double scatterKm;
+    private final double kmPerDegreeLng;
+
+    private MonteCarloSimulation(SimulationRequest request, KdTree exposure) {
+        this.diameterMin = request.getDiameterMinMeters();
+        this.logDiameterRatio = Math.log(request.getDiameterMaxMeters() / diameterMin);
+        for (int k = 0; k < energyFactor.length; k++) {
+            energyFactor[k] = ImpactPhysics.kineticEnergy(1, request.getVelocityKmPerSec(), CLASS_DENSITY_KG_M3[k]);
+        }
+        double energyMin = minEnergy(request);
+        double energyMax = maxEnergy(request);
+        this.energyScale = Scale.log(energyMin, energyMax);
+        this.craterScale = Scale.log(ImpactPhysics.craterDiameterKm(energyMin) * MIN_ANGLE_FACTOR,
+                ImpactPhysics.craterDiameterKm(energyMax));
+
+        this.exposure = exposure;
+        this.exposureScale = exposure != null ? Scale.counts(exposure.size()) : null;
+        this.lat = request.hasLocation() ? request.getLat() : 0;
+        this.lng = request.hasLocation() ? request.getLng() : 0;
+        this.scatterKm = request.getScatterKm();
+        this.kmPerDegreeLng = GeoMath.KM_PER_DEGREE_LAT * Math.max(Math.cos(Math.toRadians(lat)), 0.01);
+    }
+
+    /**
+     * Runs the simulation. {@code exposure} holds the infrastructure around the request location,
+     * with longitudes unwrapped around the request longitude, or is null to skip location sampling.
+     */
+    public static SimulationResult run(SimulationRequest request, KdTree exposure) {
+        long started = System.nanoTime();
+        long seed = request.getSeed() != null ? request.getSeed() : ThreadLocalRandom.current().nextLong();
+        MonteCarloSimulation simulation = new MonteCarloSimulation(request, exposure);
+
+        int samples = request.getSamples();
+        int chunkCount = (samples + CHUNK_SAMPLES - 1) / CHUNK_SAMPLES;
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] streams = new SplittableRandom[chunkCount];
+        for (int c = 0; c < chunkCount; c++) {
+            streams[c] = root.split();
+        }
+
+        Chunk[] chunks = new Chunk[chunkCount];
+        IntStream.range(0, chunkCount).parallel().forEach(c -> {
+            int size = Math.min(CHUNK_SAMPLES, samples - c * CHUNK_SAMPLES);
+            chunks[c] = simulation.sample(streams[c], size);
+        });
+
+        SimulationResult result = simulation.summarize(chunks, samples, request.getBins());
+        result.setDiameterMinMeters(request.getDiameterMinMeters());
+        result.setDiameterMaxMeters(request.getDiameterMaxMeters());
+        result.setVelocityKmPerSec(request.getVelocityKmPerSec());
+        result.setSamples(samples);
+        result.setSeed(seed);
+        result.setElapsedMillis((System.nanoTime() - started) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * How far from the request location infrastructure must be loaded for location sampling.
+     */
+    public static double exposureRadiusKm(SimulationRequest request) {
+        double shrapnelKm = ImpactPhysics.SHRAPNEL_RADIUS_FACTOR * ImpactPhysics.zoneScaleKm(maxEnergy(request));
+        return SCATTER_REACH * request.getScatterKm() + ImpactReport.searchRadiusKm(shrapnelKm);
+    }
+
+    private static double minEnergy(SimulationRequest request) {
+        double d = request.getDiameterMinMeters();
+        return ImpactPhysics.kineticEnergy(d, request.getVelocityKmPerSec(), CLASS_DENSITY_KG_M3[0]);
+    }
+
+    private static double maxEnergy(SimulationRequest request) {
+        double d = request.getDiameterMaxMeters();
+        return ImpactPhysics.kineticEnergy(d, request.getVelocityKmPerSec(),
+                CLASS_DENSITY_KG_M3[CLASS_DENSITY_KG_M3.length - 1]);
+    }
+
+    private Chunk sample(SplittableRandom random, int size) {
+        Chunk chunk = new Chunk(energyScale.bins, craterScale.bins, exposureScale != null ? exposureScale.bins : 0);
+        for (int i = 0; i < size; i++) {
+            double d = diameterMin * Math.exp(random.nextDouble() * logDiameterRatio);
+            double pick = random.nextDouble();
+            int densityClass = pick < CLASS_CUMULATIVE[0] ? 0 : pick < CLASS_CUMULATIVE[1] ? 1 : 2;
+            double energy = energyFactor[densityClass] * d * d * d;
+
+            // the entry angle θ has density sin 2θ, so sin²θ is uniform and the sin^(1/3) crater factor is u^(1/6)
+            double crater = ImpactPhysics.craterDiameterKm(energy) * Math.pow(random.nextDouble(), 1.0 / 6);
+            double zoneScale = ImpactPhysics.zoneScaleKm(energy);
+
+            chunk.energy[energyScale.bin(energy)]++;
+            chunk.crater[craterScale.bin(crater)]++;
+            chunk.energySum += energy;
+            chunk.craterSum += crater;
+            chunk.magnitudeSum += ImpactPhysics.earthquakeMagnitude(energy);
+            chunk.destructionSum += ImpactPhysics.destructionRadiusKm(energy);
+            chunk.zoneScaleSum += zoneScale;
+
+            if (exposure != null) {
+                double pointLat = lat + scatterKm * random.nextGaussian() / GeoMath.KM_PER_DEGREE_LAT;
+                double pointLng = lng + scatterKm * random.nextGaussian() / kmPerDegreeLng;
+                double radiusKm = ImpactReport.searchRadiusKm(ImpactPhysics.SHRAPNEL_RADIUS_FACTOR * zoneScale);
+                int affected = exposure.countWithin(Math.max(-90, Math.min(90, pointLat)), pointLng, radiusKm);
+                chunk.exposure[exposureScale.bin(affected)]++;
+                chunk.exposureSum += affected;
+            }
+        }
+        return chunk;
+    }
+
+    private SimulationResult summarize(Chunk[] chunks, int samples, int bins) {
+        long[] energy = new long[energyScale.bins];
+        long[] crater = new long[craterScale.bins];
+        long[] exposed = exposureScale != null ? new long[exposureScale.bins] : null;
+        double energySum = 0, craterSum = 0, magnitudeSum = 0, destructionSum = 0, zoneScaleSum = 0, exposureSum = 0;
+        // merged in chunk order so the sums do not depend on scheduling
+        for (Chunk chunk : chunks) {
+            add(energy, chunk.energy);
+            add(crater, chunk.crater);
+            if (exposed != null) {
+                add(exposed, chunk.exposure);
+            }
+            energySum += chunk.energySum;
+            craterSum += chunk.craterSum;
+            magnitudeSum += chunk.magnitudeSum;
+            destructionSum += chunk.destructionSum;
+            zoneScaleSum += chunk.zoneScaleSum;
+            exposureSum += chunk.exposureSum;
+        }
+
+        SimulationResult result = new SimulationResult();
+        result.setKineticEnergyJoules(distribution(energy, energyScale, bins, energySum / samples, x -> x));
+        result.setCraterDiameterKm(distribution(crater, craterScale, bins, craterSum / samples, x -> x));
+        result.setEarthquakeMagnitude(distribution(energy, energyScale, bins, magnitudeSum / samples,
+                ImpactPhysics::earthquakeMagnitude));
+        result.setDestructionRadiusKm(distribution(energy, energyScale, bins, destructionSum / samples,
+                ImpactPhysics::destructionRadiusKm));
+        double zoneScaleMean = zoneScaleSum / samples;
+        result.setThermalRadiusKm(distribution(energy, energyScale, bins,
+                ImpactPhysics.THERMAL_RADIUS_FACTOR * zoneScaleMean,
+                e -> ImpactPhysics.THERMAL_RADIUS_FACTOR * ImpactPhysics.zoneScaleKm(e)));
+        result.setPressureRadiusKm(distribution(energy, energyScale, bins,
+                ImpactPhysics.PRESSURE_RADIUS_FACTOR * zoneScaleMean,
+                e -> ImpactPhysics.PRESSURE_RADIUS_FACTOR * ImpactPhysics.zoneScaleKm(e)));
+        result.setShrapnelRadiusKm(distribution(energy, energyScale, bins,
+                ImpactPhysics.SHRAPNEL_RADIUS_FACTOR * zoneScaleMean,
+                e -> ImpactPhysics.SHRAPNEL_RADIUS_FACTOR * ImpactPhysics.zoneScaleKm(e)));
+        if (exposed != null) {
+            result.setInfrastructureAffected(distribution(exposed, exposureScale, bins, exposureSum / samples, x -> x));
+        }
+        return result;
+    }
+
+    /**
+     * Percentiles from the fine histogram, and the histogram merged down to at most {@code bins}
+     * buckets, both passed through {@code map} (which must be increasing).
+     */
+    private static Distribution distribution(long[] fine, Scale scale, int bins, double mean, DoubleUnaryOperator map) {
+        long total = 0;
+        for (long count : fine) {
+            total += count;
+        }
+
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        for (int p : PERCENTILES) {
+            double target = total * p / 100.0;
+            long before = 0;
+            int bin = 0;
+            while (bin < fine.length - 1 && before + fine[bin] < target) {
+                before += fine[bin++];
+            }
+            // interpolate inside the bin for continuous scales; counts report the bin start
+            double position = bin;
+            if (scale.log && fine[bin] > 0) {
+                position += (target - before) / fine[bin];
+            }
+            percentiles.put("p" + p, map.applyAsDouble(scale.valueAt(position)));
+        }
+
+        int buckets = Math.min(bins, fine.length);
+        double[] edges = new double[buckets + 1];
+        long[] counts = new long[buckets];
+        for (int j = 0; j < buckets; j++) {
+            int from = (int) ((long) j * fine.length / buckets);
+            int to = (int) ((long) (j + 1) * fine.length / buckets);
+            edges[j] = map.applyAsDouble(scale.valueAt(from));
+            for (int i = from; i < to; i++) {
+                counts[j] += fine[i];
+            }
+        }
+        edges[buckets] = map.applyAsDouble(scale.valueAt(fine.length));
+        return new Distribution(mean, percentiles, edges, counts);
+    }
+
+    private static void add(long[] into, long[] from) {
+        for (int i = 0; i < into.length; i++) {
+            into[i] += from[i];
+        }
+    }
+
+    // per-chunk accumulators, allocated once before the chunk's sampling loop
+    private static final class Chunk {
+        final long[] energy;
+        final long[] crater;
+        final long[] exposure;
+        double energySum;
+        double craterSum;
+        double magnitudeSum;
+        double destructionSum;
+        double zoneScaleSum;
+        double exposureSum;
+
+        Chunk(int energyBins, int craterBins, int exposureBins) {
+            this.energy = new long[energyBins];
+            this.crater = new long[craterBins];
+            this.exposure = new long[exposureBins];
+        }
+    }
+
+    /**
+     * Fixed binning of a value range: log10-spaced for physical quantities, unit-width (or wider,
+     * past {@code FINE_BINS} values) for counts.
+     */
+    private static final class Scale {
+        final double lo;
+        final double width;
+        final int bins;
+        final boolean log;
+
+        private Scale(double lo, double width, int bins, boolean log) {
+            this.lo = lo;
+            this.width = width;
+            this.bins = bins;
+            this.log = log;
+        }
+
+        static Scale log(double min, double max) {
+            double lo = Math.log10(min);
+            double hi = Math.log10(max);
+            if (!(hi > lo)) {
+                hi = lo + 1e-9;
+            }
+            return new Scale(lo, (hi - lo) / FINE_BINS, FINE_BINS, true);
+        }
+
+        static Scale counts(int max) {
+            int width = (max + FINE_BINS) / FINE_BINS;
+            return new Scale(0, width, (max + width) / width, false);
+        }
+
+        int bin(double value) {
+            double position = ((log ? Math.log10(value) : value) - lo) / width;
+            if (!(position >= 0)) {
+                return 0;
+            }
+            return position >= bins ? bins - 1 : (int) position;
+        }
+
+        double valueAt(double position) {
+            double x = lo + position * width;
+            return log ? Math.pow(10, x) : x;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.neo.physics;
+
+import com.neo.model.EnrichedNearEarthObject;
+import com.neo.model.NearEarthObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adds impact estimates to feed NEOs in one {@link ImpactBatch}, using the average diameter
+ * like the frontend does. The cached NEOs are copied, never modified.
+ */
+public final class NeoImpactEnricher {
+
+    private NeoImpactEnricher() {
+    }
+
+    public static List<NearEarthObject> enrich(List<NearEarthObject> neos) {
+        ImpactBatch batch = new ImpactBatch(neos.size());
+        for (int i = 0; i < neos.size(); i++) {
+            NearEarthObject neo = neos.get(i);
+            batch.set(i, neo.getAverageDiameterMeters(), neo.getVelocityKmPerSec());
+        }
+        batch.compute();
+
+        List<NearEarthObject> enriched = new ArrayList<>(neos.size());
+        for (int i = 0; i < neos.size(); i++) {
+            enriched.add(new EnrichedNearEarthObject(neos.get(i), batch.getMassKg()[i],
+                    batch.getKineticEnergyJoules()[i], batch.getCraterDiameterKm()[i],
+                    batch.getEarthquakeMagnitude()[i], batch.getDestructionRadiusKm()[i]));
+        }
+        return enriched;
+    }
+}
@@ -0,0 +1,95 @@
+package com.neo.physics;
+
+/**
+ * Inputs for a {@link MonteCarloSimulation}. Location sampling is on when lat and lng are set;
+ * impact points then scatter around them with a standard deviation of {@code scatterKm}.
+ */
+public class SimulationRequest {
+
+    private double diameterMinMeters;
+    private double diameterMaxMeters;
+    private double velocityKmPerSec;
+    private int samples = 1_000_000;
+    private Long seed;
+    private int bins = 40;
+    private Double lat;
+    private Double lng;
+    private double scatterKm;
+
+    public double getDiameterMinMeters() {
+        return diameterMinMeters;
+    }
+
+    public void setDiameterMinMeters(double diameterMinMeters) {
+        this.diameterMinMeters = diameterMinMeters;
+    }
+
+    public double getDiameterMaxMeters() {
+        return diameterMaxMeters;
+    }
+
+    public void setDiameterMaxMeters(double diameterMaxMeters) {
+        this.diameterMaxMeters = diameterMaxMeters;
+    }
+
+    public double getVelocityKmPerSec() {
+        return velocityKmPerSec;
+    }
+
+    public void setVelocityKmPerSec(double velocityKmPerSec) {
+        this.velocityKmPerSec = velocityKmPerSec;
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    public void setSamples(int samples) {
+        this.samples = samples;
+    }
+
+    // null picks a random seed, which the result reports
+    public Long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
+    public int getBins() {
+        return bins;
+    }
+
+    public void setBins(int bins) {
+        this.bins = bins;
+    }
+
+    public Double getLat() {
+        return lat;
+    }
+
+    public void setLat(Double lat) {
+        this.lat = lat;
+    }
+
+    public Double getLng() {
+        return lng;
+    }
+
+    public void setLng(Double lng) {
+        this.lng = lng;
+    }
+
+    public double getScatterKm() {
+        return scatterKm;
+    }
+
+    public void setScatterKm(double scatterKm) {
+        this.scatterKm = scatterKm;
+    }
+
+    public boolean hasLocation() {
+        return lat != null && lng != null;
+    }
+}
@@ -0,0 +1,189 @@
+package com.neo.population;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Locale;
+
+/**
+ * Reads a population grid row by row, north to south, from an ESRI ASCII grid (the format GPW
+ * ships) or an ESRI float grid (.flt data with the same keys in a .hdr file). NODATA cells read
+ * as 0.
+ */
+final class GridReader implements AutoCloseable {
+
+    private final DataInputStream in;
+    private final boolean binary;
+    private final ByteOrder byteOrder;
+    private final byte[] rowBytes;
+    private final char[] token = new char[64];
+
+    private int ncols;
+    private int nrows;
+    private double xllCorner;
+    private double yllCorner;
+    private double cellSize;
+    private double noData = Double.NaN;
+
+    private GridReader(InputStream in) {
+        this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        this.binary = false;
+        this.byteOrder = null;
+        this.rowBytes = null;
+    }
+
+    private GridReader(InputStream in, GridReader header, ByteOrder byteOrder) {
+        this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        this.binary = true;
+        this.byteOrder = byteOrder;
+        this.ncols = header.ncols;
+        this.nrows = header.nrows;
+        this.xllCorner = header.xllCorner;
+        this.yllCorner = header.yllCorner;
+        this.cellSize = header.cellSize;
+        this.noData = header.noData;
+        this.rowBytes = new byte[ncols * 4];
+    }
+
+    static GridReader ascii(InputStream in) throws IOException {
+        GridReader reader = new GridReader(in);
+        reader.readHeader(true);
+        return reader;
+    }
+
+    static GridReader floatGrid(InputStream header, InputStream data) throws IOException {
+        GridReader keys = new GridReader(header);
+        String order = keys.readHeader(false);
+        ByteOrder byteOrder = order != null && order.startsWith("MSB") ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        return new GridReader(data, keys, byteOrder);
+    }
+
+    int getColumns() {
+        return ncols;
+    }
+
+    int getRows() {
+        return nrows;
+    }
+
+    double getWest() {
+        return xllCorner;
+    }
+
+    double getNorth() {
+        return yllCorner + nrows * cellSize;
+    }
+
+    double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Fills {@code row} with the next grid row.
+     */
+    void readRow(double[] row) throws IOException {
+        if (binary) {
+            in.readFully(rowBytes);
+            ByteBuffer buffer = ByteBuffer.wrap(rowBytes).order(byteOrder);
+            for (int c = 0; c < ncols; c++) {
+                row[c] = clean(buffer.getFloat(c * 4));
+            }
+        } else {
+            for (int c = 0; c < ncols; c++) {
+                int length = nextToken();
+                if (length < 0) {
+                    throw new EOFException("Population grid ends before " + nrows + " rows of " + ncols);
+                }
+                row[c] = clean(Double.parseDouble(new String(token, 0, length)));
+            }
+        }
+    }
+
+    private double clean(double value) {
+        return value == noData || !(value > 0) ? 0 : value;
+    }
+
+    // reads "key value" lines until the first numeric token (ASCII) or the end (.hdr); returns byteorder if given
+    private String readHeader(boolean dataFollows) throws IOException {
+        String byteOrder = null;
+        boolean xCenter = false;
+        boolean yCenter = false;
+        while (true) {
+            in.mark(128);
+            int length = nextToken();
+            if (length < 0) {
+                break;
+            }
+            char first = token[0];
+            if (dataFollows && (Character.isDigit(first) || first == '-' || first == '.')) {
+                in.reset();
+                break;
+            }
+            String key = new String(token, 0, length).toLowerCase(Locale.ROOT);
+            int valueLength = nextToken();
+            if (valueLength < 0) {
+                throw new IOException("Population grid header key " + key + " has no value");
+            }
+            String value = new String(token, 0, valueLength);
+            switch (key) {
+                case "ncols" -> ncols = Integer.parseInt(value);
+                case "nrows" -> nrows = Integer.parseInt(value);
+                case "xllcorner" -> xllCorner = Double.parseDouble(value);
+                case "yllcorner" -> yllCorner = Double.parseDouble(value);
+                case "xllcenter" -> {
+                    xllCorner = Double.parseDouble(value);
+                    xCenter = true;
+                }
+                case "yllcenter" -> {
+                    yllCorner = Double.parseDouble(value);
+                    yCenter = true;
+                }
+                case "cellsize" -> cellSize = Double.parseDouble(value);
+                case "nodata_value" -> noData = Double.parseDouble(value);
+                case "byteorder" -> byteOrder = value.toUpperCase(Locale.ROOT);
+                default -> {
+                    // other .hdr keys (nbits, layout, ...) do not matter for float grids
+                }
+            }
+        }
+        if (ncols <= 0 || nrows <= 0 || !(cellSize > 0)) {
+            throw new IOException("Population grid header needs positive ncols, nrows and cellsize");
+        }
+        if (xCenter) {
+            xllCorner -= cellSize / 2;
+        }
+        if (yCenter) {
+            yllCorner -= cellSize / 2;
+        }
+        return byteOrder;
+    }
+
+    // next whitespace-separated token into the shared buffer; -1 at end of input
+    private int nextToken() throws IOException {
+        int b = in.read();
+        while (b != -1 && Character.isWhitespace(b)) {
+            b = in.read();
+        }
+        if (b == -1) {
+            return -1;
+        }
+        int length = 0;
+        while (b != -1 && !Character.isWhitespace(b)) {
+            if (length == token.length) {
+                throw new IOException("Population grid token too long");
+            }
+            token[length++] = (char) b;
+            b = in.read();
+        }
+        return length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
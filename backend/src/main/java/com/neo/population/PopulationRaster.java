@@ -0,0 +1,341 @@
+package com.neo.population;
+
+import com.neo.config.PopulationConfig;
+import com.neo.geo.GeoMath;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Gridded population held as a summed-area table in a memory-mapped file, so the people inside
+ * any circle cost one O(1) lookup per raster row it spans.
+ *
+ * <pre>
+ * &lt;grid&gt;.sat  header(64): int magic, int version, int ncols, int nrows, double west,
+ *              double north, double cellSize, long sourceLength, long sourceModified
+ *              then (nrows + 1) x (ncols + 1) doubles, row-major, little-endian:
+ *              entry (r, c) is the population of rows [0, r) x columns [0, c), row 0 northmost
+ * </pre>
+ *
+ * The table is built from the source grid on first start and reused while the source is unchanged.
+ */
+@Component
+public class PopulationRaster {
+
+    private static final Logger log = LoggerFactory.getLogger(PopulationRaster.class);
+
+    private static final int MAGIC = 0x4E454F50; // "NEOP"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    // rows of the table per mapped segment, keeping each mapping under 1 GB
+    private static final long SEGMENT_BYTES = 1L << 30;
+    // row slicing for small circles: aim for this many slices per circle radius, at most MAX_SLICES per row
+    private static final double SLICE_CELLS = 4;
+    private static final int MAX_SLICES = 8;
+
+    private final boolean enabled;
+    private final String origin;
+
+    private FileChannel channel;
+    private DoubleBuffer[] segments;
+    private int rowsPerSegment;
+    private int stride;
+    private int ncols;
+    private int nrows;
+    private double west;
+    private double north;
+    private double cellSize;
+    private boolean wrapsLongitude;
+    private double total;
+    private long loadMillis;
+    private boolean builtTable;
+
+    public PopulationRaster(PopulationConfig config) {
+        Resource file = config.getFile();
+        this.origin = file.getDescription();
+        this.enabled = config.isEnabled() && file.exists();
+        if (!config.isEnabled()) {
+            return;
+        }
+        if (!enabled) {
+            log.warn("Population grid not found, reports will not estimate population grid={}", origin);
+            return;
+        }
+
+        long started = System.nanoTime();
+        try {
+            String name = file.getFilename() != null ? file.getFilename() : "population";
+            Path table = config.getCacheDir().resolve(name + ".sat");
+            long[] fingerprint = fingerprint(file);
+            if (!matches(table, fingerprint)) {
+                build(file, config.isDensity(), table, fingerprint);
+                builtTable = true;
+            }
+            map(table);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load population grid " + origin, e);
+        }
+        this.total = sum(0, nrows, 0, ncols);
+        this.loadMillis = (System.nanoTime() - started) / 1_000_000;
+        log.info("Population grid loaded grid={} columns={} rows={} people={} table={} millis={}", origin, ncols,
+                nrows, Math.round(total), builtTable ? "built" : "reused", loadMillis);
+    }
+
+    public boolean isAvailable() {
+        return enabled;
+    }
+
+    /**
+     * People within {@code radiusKm} great-circle distance of the point, or 0 without a grid.
+     * Each raster row inside the circle is cut at the circle's longitude half-width for that
+     * row's latitude; whole cells come from the table and the two edge cells are weighted by
+     * how much of them the circle covers.
+     */
+    public double estimate(double lat, double lng, double radiusKm) {
+        if (!enabled || !(radiusKm > 0)) {
+            return 0;
+        }
+        double angle = radiusKm / GeoMath.EARTH_RADIUS_KM;
+        double reachDeg = Math.toDegrees(angle);
+        double top = Math.min(lat + reachDeg, 90);
+        double bottom = Math.max(lat - reachDeg, -90);
+
+        int firstRow = Math.max(0, (int) Math.floor((north - top) / cellSize));
+        int lastRow = Math.min(nrows - 1, (int) Math.floor((north - bottom) / cellSize));
+        double sinLat = Math.sin(Math.toRadians(lat));
+        double cosLat = Math.cos(Math.toRadians(lat));
+        double cosAngle = Math.cos(angle);
+
+        // circles only a few cells tall are sliced finer, so their curvature is followed inside a row
+        int slices = (int) Math.min(MAX_SLICES, Math.max(1, Math.ceil(SLICE_CELLS * cellSize / reachDeg)));
+
+        double people = 0;
+        for (int row = firstRow; row <= lastRow; row++) {
+            double rowNorth = north - row * cellSize;
+            double coveredNorth = Math.min(rowNorth, top);
+            double coveredSouth = Math.max(rowNorth - cellSize, bottom);
+            if (coveredNorth <= coveredSouth) {
+                continue;
+            }
+            double sliceHeight = (coveredNorth - coveredSouth) / slices;
+            for (int slice = 0; slice < slices; slice++) {
+                // longitude half-width of the circle at the middle of the slice
+                double phi = Math.toRadians(coveredNorth - (slice + 0.5) * sliceHeight);
+                double cosWidth = (cosAngle - sinLat * Math.sin(phi)) / (cosLat * Math.cos(phi));
+                double halfWidth = cosWidth <= -1 ? 180 : cosWidth >= 1 ? 0 : Math.toDegrees(Math.acos(cosWidth));
+                if (halfWidth == 0) {
+                    continue;
+                }
+                double from = (lng - halfWidth - west) / cellSize;
+                double to = (lng + halfWidth - west) / cellSize;
+                people += sliceHeight / cellSize * rowSpan(row, from, to);
+            }
+        }
+        return people;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("available", enabled);
+        stats.put("grid", origin);
+        if (enabled) {
+            stats.put("columns", ncols);
+            stats.put("rows", nrows);
+            stats.put("cellSizeDegrees", cellSize);
+            stats.put("totalPopulation", Math.round(total));
+            stats.put("tableBuilt", builtTable);
+            stats.put("loadMillis", loadMillis);
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    // fractional column span [from, to) of one row, wrapping around a global grid
+    private double rowSpan(int row, double from, double to) {
+        if (to - from >= ncols && wrapsLongitude) {
+            return sum(row, row + 1, 0, ncols);
+        }
+        if (wrapsLongitude) {
+            double shift = Math.floor(from / ncols) * ncols;
+            from -= shift;
+            to -= shift;
+            if (to > ncols) {
+                return clippedSpan(row, from, ncols) + clippedSpan(row, 0, to - ncols);
+            }
+        }
+        return clippedSpan(row, Math.max(from, 0), Math.min(to, ncols));
+    }
+
+    private double clippedSpan(int row, double from, double to) {
+        if (to <= from) {
+            return 0;
+        }
+        int firstWhole = (int) Math.ceil(from);
+        int lastEdge = (int) Math.floor(to);
+        if ((int) Math.floor(from) == lastEdge || firstWhole > lastEdge) {
+            // both ends inside one cell
+            int cell = Math.min((int) Math.floor(from), ncols - 1);
+            return sum(row, row + 1, cell, cell + 1) * (to - from);
+        }
+        double people = sum(row, row + 1, firstWhole, lastEdge);
+        if (firstWhole > from) {
+            people += sum(row, row + 1, firstWhole - 1, firstWhole) * (firstWhole - from);
+        }
+        if (lastEdge < to && lastEdge < ncols) {
+            people += sum(row, row + 1, lastEdge, lastEdge + 1) * (to - lastEdge);
+        }
+        return people;
+    }
+
+    // population of rows [r0, r1) x columns [c0, c1)
+    private double sum(int r0, int r1, int c0, int c1) {
+        return table(r1, c1) - table(r0, c1) - table(r1, c0) + table(r0, c0);
+    }
+
+    private double table(int row, int col) {
+        return segments[row / rowsPerSegment].get((row % rowsPerSegment) * stride + col);
+    }
+
+    private void map(Path table) throws IOException {
+        channel = FileChannel.open(table, StandardOpenOption.READ);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        ncols = header.getInt(8);
+        nrows = header.getInt(12);
+        west = header.getDouble(16);
+        north = header.getDouble(24);
+        cellSize = header.getDouble(32);
+        wrapsLongitude = ncols * cellSize >= 360 - cellSize / 2;
+
+        stride = ncols + 1;
+        long rowBytes = (long) stride * Double.BYTES;
+        rowsPerSegment = (int) Math.max(1, SEGMENT_BYTES / rowBytes);
+        int rows = nrows + 1;
+        segments = new DoubleBuffer[(rows + rowsPerSegment - 1) / rowsPerSegment];
+        for (int s = 0; s < segments.length; s++) {
+            int segmentRows = Math.min(rowsPerSegment, rows - s * rowsPerSegment);
+            segments[s] = channel.map(FileChannel.MapMode.READ_ONLY,
+                            HEADER_BYTES + (long) s * rowsPerSegment * rowBytes, segmentRows * rowBytes)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asDoubleBuffer();
+        }
+    }
+
+    /**
+     * Streams the grid once, keeping only the previous table row, and writes the table next to a
+     * temporary name before moving it into place.
+     */
+    private static void build(Resource file, boolean density, Path table, long[] fingerprint) throws IOException {
+        Files.createDirectories(table.getParent());
+        Path partial = table.resolveSibling(table.getFileName() + ".tmp");
+        try (GridReader grid = open(file);
+             FileChannel out = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            int ncols = grid.getColumns();
+            int nrows = grid.getRows();
+            double cellSize = grid.getCellSize();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(ncols).putInt(nrows)
+                    .putDouble(grid.getWest()).putDouble(grid.getNorth()).putDouble(cellSize)
+                    .putLong(fingerprint[0]).putLong(fingerprint[1]);
+            header.clear();
+            write(out, header);
+
+            double[] values = new double[ncols];
+            double[] previous = new double[ncols + 1];
+            double[] current = new double[ncols + 1];
+            ByteBuffer rowBuffer = ByteBuffer.allocate((ncols + 1) * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            writeRow(out, rowBuffer, previous);
+            for (int row = 0; row < nrows; row++) {
+                grid.readRow(values);
+                double scale = density ? cellAreaKm2(grid.getNorth() - row * cellSize, cellSize) : 1;
+                double running = 0;
+                for (int col = 0; col < ncols; col++) {
+                    running += values[col] * scale;
+                    current[col + 1] = previous[col + 1] + running;
+                }
+                writeRow(out, rowBuffer, current);
+                double[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+        }
+        Files.move(partial, table, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static GridReader open(Resource file) throws IOException {
+        String name = file.getFilename() != null ? file.getFilename() : "";
+        if (name.endsWith(".flt")) {
+            Resource header = file.createRelative(name.substring(0, name.length() - 4) + ".hdr");
+            return GridReader.floatGrid(header.getInputStream(), file.getInputStream());
+        }
+        InputStream in = file.getInputStream();
+        return GridReader.ascii(name.endsWith(".gz") ? new GZIPInputStream(in) : in);
+    }
+
+    // the grid cell area shrinks toward the poles with the sine of latitude
+    private static double cellAreaKm2(double rowNorth, double cellSize) {
+        double r = GeoMath.EARTH_RADIUS_KM;
+        double sinNorth = Math.sin(Math.toRadians(rowNorth));
+        double sinSouth = Math.sin(Math.toRadians(rowNorth - cellSize));
+        return r * r * Math.toRadians(cellSize) * (sinNorth - sinSouth);
+    }
+
+    private static void writeRow(FileChannel out, ByteBuffer buffer, double[] row) throws IOException {
+        buffer.clear();
+        buffer.asDoubleBuffer().put(row);
+        write(out, buffer);
+    }
+
+    private static void write(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static boolean matches(Path table, long[] fingerprint) throws IOException {
+        if (fingerprint[0] < 0 || !Files.isRegularFile(table) || Files.size(table) < HEADER_BYTES) {
+            return false;
+        }
+        try (FileChannel in = FileChannel.open(table, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            in.read(header, 0);
+            long expected = HEADER_BYTES + (long) (header.getInt(8) + 1) * (header.getInt(12) + 1) * Double.BYTES;
+            return header.getInt(0) == MAGIC && header.getInt(4) == VERSION
+                    && header.getLong(40) == fingerprint[0] && header.getLong(48) == fingerprint[1]
+                    && Files.size(table) == expected;
+        }
+    }
+
+    private static long[] fingerprint(Resource file) {
+        try {
+            return new long[]{file.contentLength(), file.lastModified()};
+        } catch (IOException e) {
+            return new long[]{-1, -1}; // unknown: never matches a stored table, so it is rebuilt
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.neo.service;
+
+import com.neo.geo.GeoMath;
+import com.neo.infrastructure.FeatureTable;
+import com.neo.infrastructure.InfrastructureTags;
+import com.neo.model.ImpactReport;
+import com.neo.model.ImpactReport.InfrastructureCluster;
+import com.neo.model.ImpactReport.InfrastructureItem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The candidates inside one report's search radius, ranked by zone (thermal first), then
+ * criticality, then distance. Each rank is one long key: zone, criticality, distance in metres
+ * and row, from the high bits down. Listed items are found by partial selection, so a dense
+ * city costs one linear pass plus a sort of the few items actually returned.
+ */
+final class ExposureDigest {
+
+    private static final String[] ZONES = {"thermal", "pressure", "shrapnel"};
+    // cells across the search radius: about 50 cells per zone and category over the whole circle
+    private static final int CLUSTER_CELLS_PER_RADIUS = 4;
+    private static final double MIN_CLUSTER_CELL_KM = 0.25;
+    private static final long MAX_METRES = (1L << 26) - 1;
+
+    private final FeatureTable candidates;
+    private final double lat;
+    private final double lng;
+    private final double radiusKm;
+    // keys of the rows in range; ranked(0, k) moves the first k of the ranking to the front
+    private final long[] keys;
+    private final int count;
+    private final int[] categoryCounts = new int[InfrastructureTags.CATEGORY_COUNT];
+
+    ExposureDigest(ImpactReport radii, FeatureTable candidates, double radiusKm) {
+        this.candidates = candidates;
+        this.lat = radii.getLatitude();
+        this.lng = radii.getLongitude();
+        this.radiusKm = radiusKm;
+        this.keys = new long[candidates.size()];
+        int n = 0;
+        for (int row = 0; row < candidates.size(); row++) {
+            double distance = GeoMath.haversineDistance(lat, lng, candidates.lat(row), candidates.lng(row));
+            if (distance <= radiusKm) {
+                keys[n++] = key(zoneOf(radii, distance), InfrastructureTags.criticalityOfType(candidates.typeCode(row)),
+                        distance, row);
+                categoryCounts[candidates.category(row)]++;
+            }
+        }
+        this.count = n;
+    }
+
+    int size() {
+        return count;
+    }
+
+    int[] getCategoryCounts() {
+        return categoryCounts;
+    }
+
+    /**
+     * Items ranked {@code from} (inclusive) to {@code to} (exclusive). Names are only made here,
+     * for the rows returned.
+     */
+    List<InfrastructureItem> ranked(int from, int to) {
+        int end = Math.min(to, count);
+        if (from >= end) {
+            return List.of();
+        }
+        selectSmallest(keys, count, end);
+        Arrays.sort(keys, 0, end);
+        List<InfrastructureItem> items = new ArrayList<>(end - from);
+        for (int i = from; i < end; i++) {
+            int row = rowOf(keys[i]);
+            double distance = GeoMath.haversineDistance(lat, lng, candidates.lat(row), candidates.lng(row));
+            items.add(new InfrastructureItem(candidates.type(row), candidates.name(row),
+                    candidates.lat(row), candidates.lng(row), distance, ZONES[zoneOf(keys[i])]));
+        }
+        return items;
+    }
+
+    /**
+     * Everything ranked {@code from} onwards, grouped by zone, category and grid cell; call after
+     * {@code ranked(0, from)} so those are the rows left out of the list.
+     */
+    List<InfrastructureCluster> clusters(int from) {
+        double cellKm = Math.max(radiusKm / CLUSTER_CELLS_PER_RADIUS, MIN_CLUSTER_CELL_KM);
+        double kmPerDegreeLng = GeoMath.KM_PER_DEGREE_LAT * Math.max(Math.cos(Math.toRadians(lat)), 1e-6);
+        Map<Long, Cell> cells = new HashMap<>();
+        for (int i = Math.max(from, 0); i < count; i++) {
+            int row = rowOf(keys[i]);
+            int zone = zoneOf(keys[i]);
+            int category = candidates.category(row);
+            double dLat = candidates.lat(row) - lat;
+            double dLng = candidates.lng(row) - lng;
+            dLng -= 360 * Math.floor((dLng + 180) / 360);
+            long x = (long) Math.floor(dLng * kmPerDegreeLng / cellKm);
+            long y = (long) Math.floor(dLat * GeoMath.KM_PER_DEGREE_LAT / cellKm);
+            long id = (long) (zone * InfrastructureTags.CATEGORY_COUNT + category) << 52
+                    | (y & 0xffffffL) << 28 | (x & 0xfffffffL);
+            Cell cell = cells.computeIfAbsent(id, ignored -> new Cell(zone, category));
+            cell.count++;
+            cell.sumLat += dLat;
+            cell.sumLng += dLng;
+        }
+
+        List<Cell> sorted = new ArrayList<>(cells.values());
+        sorted.sort(Comparator.<Cell>comparingInt(cell -> cell.zone)
+                .thenComparingInt(cell -> cell.category)
+                .thenComparing(Comparator.<Cell>comparingInt(cell -> cell.count).reversed()));
+        List<InfrastructureCluster> clusters = new ArrayList<>(sorted.size());
+        for (Cell cell : sorted) {
+            double centroidLng = lng + cell.sumLng / cell.count;
+            centroidLng -= 360 * Math.floor((centroidLng + 180) / 360);
+            clusters.add(new InfrastructureCluster(ZONES[cell.zone], InfrastructureTags.categoryName(cell.category),
+                    cell.count, lat + cell.sumLat / cell.count, centroidLng));
+        }
+        return clusters;
+    }
+
+    // the energy-scaled radii; past the pressure radius everything out to the search radius is shrapnel
+    private static int zoneOf(ImpactReport radii, double distance) {
+        return distance <= radii.getThermalRadiusKm() ? 0 : distance <= radii.getPressureRadiusKm() ? 1 : 2;
+    }
+
+    // zone in bits 61-62, criticality in 58-60, metres in 32-57, row in 0-31; the sign bit stays clear
+    private static long key(int zone, int criticality, double distanceKm, int row) {
+        long metres = Math.min(Math.round(distanceKm * 1000), MAX_METRES);
+        return (long) zone << 61 | (long) criticality << 58 | metres << 32 | row;
+    }
+
+    private static int zoneOf(long key) {
+        return (int) (key >>> 61);
+    }
+
+    private static int rowOf(long key) {
+        return (int) key;
+    }
+
+    /**
+     * Moves the k smallest of {@code a[0, n)} to {@code a[0, k)}, in no particular order
+     * (quickselect with a median-of-three pivot).
+     */
+    static void selectSmallest(long[] a, int n, int k) {
+        int lo = 0;
+        int hi = n - 1;
+        while (lo < hi && k > lo && k <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long pivot = Math.max(Math.min(a[lo], a[mid]), Math.min(Math.max(a[lo], a[mid]), a[hi]));
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (a[i] < pivot) {
+                    i++;
+                }
+                while (a[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    long swap = a[i];
+                    a[i] = a[j];
+                    a[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            // a[lo, j] <= pivot <= a[i, hi], and anything between equals the pivot
+            if (k <= j) {
+                hi = j;
+            } else if (k > i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static class Cell {
+        final int zone;
+        final int category;
+        int count;
+        double sumLat;
+        double sumLng;
+
+        Cell(int zone, int category) {
+            this.zone = zone;
+            this.category = category;
+        }
+    }
+}
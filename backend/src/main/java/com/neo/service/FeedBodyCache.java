@@ -0,0 +1,107 @@
+package com.neo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neo.cache.BoundedCache;
+import com.neo.cache.CacheStats;
+import com.neo.cache.EncodedBody;
+import com.neo.cache.EncodedPayload;
+import com.neo.config.CacheConfig;
+import com.neo.model.NearEarthObject;
+import com.neo.physics.NeoImpactEnricher;
+import com.neo.upstream.UpstreamMetrics;
+import org.springframework.stereotype.Service;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Feed days as ready-to-send JSON. Each day's NEOs are serialized once into a bare array
+ * fragment (no brackets) and compressed on first use; a feed response is then the fragments of
+ * its days between brackets and commas. A fragment remembers the list it was built from, so a
+ * day the NASA cache has replaced is rebuilt on its next request without any invalidation.
+ */
+@Service
+public class FeedBodyCache {
+
+    private static final EncodedBody OPEN = constant("[");
+    private static final EncodedBody COMMA = constant(",");
+    private static final EncodedBody CLOSE = constant("]");
+
+    private final ObjectMapper objectMapper;
+    private final BoundedCache<String, DayBody> bodies;
+    private final Duration ttl;
+
+    public FeedBodyCache(ObjectMapper objectMapper, CacheConfig config, UpstreamMetrics metrics) {
+        this.objectMapper = objectMapper;
+        // a plain and an enriched body per day
+        this.bodies = new BoundedCache<>(config.getMaxDays() * 2, config.getBodyMaxWeightBytes(),
+                (key, body) -> body.fragment.weight());
+        this.ttl = config.getHistoricalTtl();
+        metrics.bindCache("neo-feed-bodies", bodies::stats);
+    }
+
+    /**
+     * The JSON array of every NEO in {@code days}, in the map's order.
+     */
+    public EncodedPayload encode(Map<LocalDate, List<NearEarthObject>> days, boolean enrich) {
+        List<EncodedBody> parts = new ArrayList<>();
+        parts.add(OPEN);
+        for (Map.Entry<LocalDate, List<NearEarthObject>> day : days.entrySet()) {
+            if (day.getValue().isEmpty()) {
+                continue;
+            }
+            if (parts.size() > 1) {
+                parts.add(COMMA);
+            }
+            parts.add(fragment(day.getKey(), day.getValue(), enrich));
+        }
+        parts.add(CLOSE);
+        return EncodedPayload.of(parts);
+    }
+
+    public CacheStats stats() {
+        return bodies.stats();
+    }
+
+    private EncodedBody fragment(LocalDate day, List<NearEarthObject> neos, boolean enrich) {
+        String key = enrich ? day + "/enriched" : day.toString();
+        DayBody cached = bodies.get(key);
+        if (cached != null && cached.source == neos) {
+            return cached.fragment;
+        }
+
+        byte[] array;
+        try {
+            array = objectMapper.writeValueAsBytes(enrich ? NeoImpactEnricher.enrich(neos) : neos);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        // drop the brackets; the payload puts its own around all the days
+        EncodedBody fragment = EncodedBody.of(Arrays.copyOfRange(array, 1, array.length - 1),
+                Deflater.BEST_COMPRESSION);
+        bodies.put(key, new DayBody(neos, fragment), ttl);
+        return fragment;
+    }
+
+    private static EncodedBody constant(String json) {
+        return EncodedBody.of(json.getBytes(StandardCharsets.UTF_8), Deflater.BEST_COMPRESSION);
+    }
+
+    private static class DayBody {
+        final List<NearEarthObject> source;
+        final EncodedBody fragment;
+
+        DayBody(List<NearEarthObject> source, EncodedBody fragment) {
+            this.source = source;
+            this.fragment = fragment;
+        }
+    }
+}
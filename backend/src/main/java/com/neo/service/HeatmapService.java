@@ -0,0 +1,275 @@
+package com.neo.service;
+
+import com.neo.config.HeatmapConfig;
+import com.neo.geo.BoundingBox;
+import com.neo.geo.GeoMath;
+import com.neo.geo.TileKey;
+import com.neo.infrastructure.LocalInfrastructureIndex;
+import com.neo.model.ImpactReport;
+import com.neo.physics.ImpactPhysics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+/**
+ * Pre-rendered exposure heatmap tiles: for every cell of every tile, how much infrastructure an
+ * impact there would reach, per standard energy class. Built in the background from the offline
+ * infrastructure index, so the map can show "where would this hurt most" without a report per
+ * click. Without the local source there is nothing to build from and the heatmap stays off.
+ */
+@Service
+public class HeatmapService {
+
+    private static final Logger log = LoggerFactory.getLogger(HeatmapService.class);
+
+    public static final int TILE_PIXELS = 256;
+    // exposure is computed per cell of CELLS x CELLS and drawn as blocks of CELL_PIXELS
+    private static final int CELLS = 64;
+    private static final int CELL_PIXELS = TILE_PIXELS / CELLS;
+
+    private final LocalInfrastructureIndex index;
+    private final HeatmapConfig config;
+    private final ExecutorService buildExecutor;
+    private final byte[] emptyTile;
+
+    private volatile Snapshot snapshot;
+
+    public HeatmapService(Optional<LocalInfrastructureIndex> index, HeatmapConfig config) {
+        this.index = index.orElse(null);
+        this.config = config;
+        this.buildExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "heatmap-build");
+            t.setDaemon(true);
+            return t;
+        });
+        this.emptyTile = encode(new BufferedImage(TILE_PIXELS, TILE_PIXELS, BufferedImage.TYPE_INT_ARGB));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (index != null && index.getBounds() != null) {
+            buildExecutor.submit(() -> {
+                try {
+                    build();
+                } catch (RuntimeException e) {
+                    log.error("Heatmap build failed", e);
+                }
+            });
+        }
+    }
+
+    public boolean isAvailable() {
+        return index != null;
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * PNG for the tile, a transparent tile if nothing is exposed there, or null if the class or
+     * zoom was not built.
+     */
+    public byte[] getTile(String energy, int zoom, int x, int y) {
+        Snapshot current = snapshot;
+        if (current == null || !current.maxCounts.containsKey(energy)
+                || zoom < config.getMinZoom() || zoom > current.maxZoom) {
+            return null;
+        }
+        byte[] tile = current.tiles.get(energy + "/" + zoom + "/" + x + "/" + y);
+        return tile != null ? tile : emptyTile;
+    }
+
+    // changes with every rebuild, so it doubles as the tiles' ETag
+    public String getVersion() {
+        Snapshot current = snapshot;
+        return current != null ? Long.toHexString(current.builtAt) : null;
+    }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("available", isAvailable());
+        Snapshot current = snapshot;
+        info.put("ready", current != null);
+        if (current == null) {
+            return info;
+        }
+        List<Map<String, Object>> classes = new ArrayList<>();
+        for (String energy : config.getEnergies()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("id", energy);
+            entry.put("kineticEnergyJoules", Double.parseDouble(energy));
+            entry.put("searchRadiusKm", searchRadiusKm(Double.parseDouble(energy)));
+            entry.put("maxCount", current.maxCounts.get(energy));
+            classes.add(entry);
+        }
+        info.put("energies", classes);
+        info.put("minZoom", config.getMinZoom());
+        info.put("maxZoom", current.maxZoom);
+        info.put("bounds", current.bounds);
+        info.put("tiles", current.tiles.size());
+        info.put("buildMillis", current.buildMillis);
+        return info;
+    }
+
+    private void build() {
+        long started = System.nanoTime();
+        double maxRadiusKm = 0;
+        for (String energy : config.getEnergies()) {
+            maxRadiusKm = Math.max(maxRadiusKm, searchRadiusKm(Double.parseDouble(energy)));
+        }
+        BoundingBox bounds = expand(index.getBounds(), maxRadiusKm);
+
+        // zoom levels up to the tile budget
+        List<TileKey> tiles = new ArrayList<>();
+        int maxZoom = config.getMinZoom() - 1;
+        for (int zoom = config.getMinZoom(); zoom <= config.getMaxZoom(); zoom++) {
+            List<TileKey> level = TileKey.covering(bounds, zoom);
+            if (tiles.size() + level.size() > config.getMaxTiles()) {
+                break;
+            }
+            tiles.addAll(level);
+            maxZoom = zoom;
+        }
+
+        Map<String, byte[]> rendered = new HashMap<>();
+        Map<String, Integer> maxCounts = new LinkedHashMap<>();
+        for (String energy : config.getEnergies()) {
+            double radiusKm = searchRadiusKm(Double.parseDouble(energy));
+            // counting pass: only each tile's peak is kept, so no more than one grid per worker is live
+            int[] peaks = new int[tiles.size()];
+            IntStream.range(0, tiles.size()).parallel().forEach(i -> peaks[i] = max(exposure(tiles.get(i), radiusKm)));
+
+            // one color scale per class and zoom, so neighbouring tiles match
+            Map<Integer, Integer> maxByZoom = new HashMap<>();
+            for (int i = 0; i < tiles.size(); i++) {
+                maxByZoom.merge(tiles.get(i).getZoom(), peaks[i], Math::max);
+            }
+            // render pass: exposed tiles are counted again and each grid dropped once drawn
+            byte[][] pngs = new byte[tiles.size()][];
+            IntStream.range(0, tiles.size()).parallel().forEach(i -> {
+                if (peaks[i] > 0) {
+                    pngs[i] = render(exposure(tiles.get(i), radiusKm), maxByZoom.get(tiles.get(i).getZoom()));
+                }
+            });
+            for (int i = 0; i < tiles.size(); i++) {
+                if (pngs[i] != null) {
+                    rendered.put(energy + "/" + tiles.get(i), pngs[i]);
+                }
+            }
+            maxCounts.put(energy, maxByZoom.values().stream().mapToInt(Integer::intValue).max().orElse(0));
+        }
+
+        long buildMillis = (System.nanoTime() - started) / 1_000_000;
+        this.snapshot = new Snapshot(rendered, maxCounts, maxZoom, bounds, buildMillis, System.currentTimeMillis());
+        log.info("Heatmap built tiles={} minZoom={} maxZoom={} millis={}", rendered.size(), config.getMinZoom(),
+                maxZoom, buildMillis);
+    }
+
+    // infrastructure within the search radius of each cell center, row by row from the north-west
+    private int[] exposure(TileKey tile, double radiusKm) {
+        int n = 1 << tile.getZoom();
+        int[] grid = new int[CELLS * CELLS];
+        for (int row = 0; row < CELLS; row++) {
+            double mercatorY = (tile.getY() + (row + 0.5) / CELLS) / n;
+            double lat = Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * mercatorY))));
+            for (int col = 0; col < CELLS; col++) {
+                double lng = (tile.getX() + (col + 0.5) / CELLS) / n * 360 - 180;
+                grid[row * CELLS + col] = index.countWithin(lat, lng, radiusKm);
+            }
+        }
+        return grid;
+    }
+
+    private static byte[] render(int[] grid, int maxCount) {
+        BufferedImage image = new BufferedImage(TILE_PIXELS, TILE_PIXELS, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = new int[CELL_PIXELS * CELL_PIXELS];
+        double logMax = Math.log1p(maxCount);
+        for (int row = 0; row < CELLS; row++) {
+            for (int col = 0; col < CELLS; col++) {
+                int count = grid[row * CELLS + col];
+                if (count == 0) {
+                    continue;
+                }
+                Arrays.fill(pixels, color(Math.log1p(count) / logMax));
+                image.setRGB(col * CELL_PIXELS, row * CELL_PIXELS, CELL_PIXELS, CELL_PIXELS, pixels, 0, CELL_PIXELS);
+            }
+        }
+        return encode(image);
+    }
+
+    // from the shrapnel-zone yellow to the thermal-zone red of the impact map, more opaque as it heats up
+    private static int color(double t) {
+        int alpha = (int) (90 + 110 * t);
+        int green = (int) (0xcc - (0xcc - 0x33) * t);
+        return alpha << 24 | 0xff << 16 | green << 8 | 0x33;
+    }
+
+    private static byte[] encode(BufferedImage image) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static double searchRadiusKm(double kineticEnergyJoules) {
+        double shrapnelKm = ImpactPhysics.SHRAPNEL_RADIUS_FACTOR * ImpactPhysics.zoneScaleKm(kineticEnergyJoules);
+        return ImpactReport.searchRadiusKm(shrapnelKm);
+    }
+
+    private static BoundingBox expand(BoundingBox box, double radiusKm) {
+        BoundingBox southWest = GeoMath.circleBounds(box.getSouth(), box.getWest(), radiusKm);
+        BoundingBox northEast = GeoMath.circleBounds(box.getNorth(), box.getEast(), radiusKm);
+        return southWest.union(northEast).union(GeoMath.circleBounds(box.getSouth(), box.getEast(), radiusKm))
+                .union(GeoMath.circleBounds(box.getNorth(), box.getWest(), radiusKm));
+    }
+
+    private static int max(int[] values) {
+        int max = 0;
+        for (int value : values) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+
+    // one finished build, swapped in whole
+    private static final class Snapshot {
+        final Map<String, byte[]> tiles;
+        final Map<String, Integer> maxCounts;
+        final int maxZoom;
+        final BoundingBox bounds;
+        final long buildMillis;
+        final long builtAt;
+
+        Snapshot(Map<String, byte[]> tiles, Map<String, Integer> maxCounts, int maxZoom, BoundingBox bounds,
+                long buildMillis, long builtAt) {
+            this.tiles = tiles;
+            this.maxCounts = maxCounts;
+            this.maxZoom = maxZoom;
+            this.bounds = bounds;
+            this.buildMillis = buildMillis;
+            this.builtAt = builtAt;
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.neo.service;
+
+import com.neo.config.ImpactConfig;
+import com.neo.geo.GeoMath;
+import com.neo.geo.SearchArea;
+import com.neo.infrastructure.Candidates;
+import com.neo.infrastructure.FeatureTable;
+import com.neo.infrastructure.InfrastructureSource;
+import com.neo.infrastructure.InfrastructureTags;
+import com.neo.model.EnergySweep;
+import com.neo.model.EnergySweep.SweepPoint;
+import com.neo.model.ImpactReport;
+import com.neo.model.InfrastructurePage;
+import com.neo.model.ImpactScenario;
+import com.neo.model.ScenarioResult;
+import com.neo.population.PopulationRaster;
+import com.neo.upstream.Bulkhead;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiFunction;
+
+@Service
+public class ImpactService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImpactService.class);
+
+    public static final int MAX_SWEEP_POINTS = 1000;
+    public static final int MAX_PAGE_ITEMS = 1000;
+
+    private final InfrastructureSource infrastructureSource;
+    private final PopulationRaster population;
+    private final int maxBatchScenarios;
+    private final int reportItems;
+    // batches queue here rather than in the upstream bulkhead, so they cannot crowd out single queries
+    private final Bulkhead batchLimiter;
+
+    public ImpactService(InfrastructureSource infrastructureSource, PopulationRaster population, ImpactConfig config) {
+        this.infrastructureSource = infrastructureSource;
+        this.population = population;
+        this.maxBatchScenarios = config.getMaxBatchScenarios();
+        this.reportItems = config.getReportItems();
+        this.batchLimiter = new Bulkhead("Impact batch", config.getBatchParallelism(), Integer.MAX_VALUE);
+    }
+
+    public CompletableFuture<ImpactReport> generateImpactReport(double lat, double lng, double kineticEnergyJoules) {
+        return generateImpactReport(lat, lng, kineticEnergyJoules, (report, version) -> report);
+    }
+
+    // hands over the version of the candidates the report was built from as well
+    <R> CompletableFuture<R> generateImpactReport(double lat, double lng, double kineticEnergyJoules,
+            BiFunction<ImpactReport, Object, R> withVersion) {
+        ImpactReport report = new ImpactReport(lat, lng, kineticEnergyJoules);
+        double radiusKm = searchRadiusKm(report);
+        return infrastructureSource.findCandidates(lat, lng, radiusKm)
+                .thenApply(candidates -> withVersion.apply(completeReport(report, candidates, radiusKm),
+                        candidates.getVersion()));
+    }
+
+    /**
+     * The version of the infrastructure a report for these arguments would be built from right
+     * now, or null when building it would load some; see {@link InfrastructureSource#currentVersion}.
+     */
+    Object infrastructureVersion(double lat, double lng, double kineticEnergyJoules) {
+        double radiusKm = searchRadiusKm(new ImpactReport(lat, lng, kineticEnergyJoules));
+        return infrastructureSource.currentVersion(lat, lng, radiusKm);
+    }
+
+    private ImpactReport completeReport(ImpactReport report, Candidates found, double radiusKm) {
+        ExposureDigest digest = new ExposureDigest(report, found.getFeatures(), radiusKm);
+        int[] counts = digest.getCategoryCounts();
+
+        int clinics = counts[InfrastructureTags.MEDICAL];
+        int schools = counts[InfrastructureTags.EDUCATION];
+        int industrial = counts[InfrastructureTags.INDUSTRIAL];
+        int farmland = counts[InfrastructureTags.AGRICULTURE];
+
+        report.setHospitalsAffected(clinics);
+        report.setSchoolsAffected(schools);
+        report.setIndustrialAffected(industrial);
+        report.setFarmlandAffected(farmland);
+        report.setInfrastructure(digest.ranked(0, reportItems));
+        report.setInfrastructureClusters(digest.clusters(reportItems));
+        report.setInfrastructureTotal(digest.size());
+        report.setInfrastructureCoverage(found.getCoverage());
+        setPopulation(report);
+
+        log.debug("Impact report lat={} lng={} energy={} clinics={} schools={} industrial={} farmland={} population={}",
+                report.getLatitude(), report.getLongitude(), report.getKineticEnergyJoules(),
+                clinics, schools, industrial, farmland, report.getEstimatedPopulation());
+
+        return report;
+    }
+
+    /**
+     * Every item a report for these arguments would count, a page at a time, in the order the
+     * report lists its top items.
+     */
+    public CompletableFuture<InfrastructurePage> listInfrastructure(double lat, double lng, double kineticEnergyJoules,
+            int offset, int limit) {
+        return listInfrastructure(lat, lng, kineticEnergyJoules, offset, limit, (page, version) -> page);
+    }
+
+    <R> CompletableFuture<R> listInfrastructure(double lat, double lng, double kineticEnergyJoules,
+            int offset, int limit, BiFunction<InfrastructurePage, Object, R> withVersion) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+        if (limit < 1 || limit > MAX_PAGE_ITEMS) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_ITEMS);
+        }
+        ImpactReport radii = new ImpactReport(lat, lng, kineticEnergyJoules);
+        double radiusKm = searchRadiusKm(radii);
+        int end = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        return infrastructureSource.findCandidates(lat, lng, radiusKm).thenApply(found -> {
+            ExposureDigest digest = new ExposureDigest(radii, found.getFeatures(), radiusKm);
+            return withVersion.apply(new InfrastructurePage(digest.size(), offset, digest.ranked(offset, end),
+                    found.getCoverage()), found.getVersion());
+        });
+    }
+
+    // the population estimate is not clamped to the infrastructure search radius
+    private void setPopulation(ImpactReport report) {
+        double lat = report.getLatitude();
+        double lng = report.getLongitude();
+        long thermal = Math.round(population.estimate(lat, lng, report.getThermalRadiusKm()));
+        long pressure = Math.round(population.estimate(lat, lng, report.getPressureRadiusKm()));
+        long shrapnel = Math.round(population.estimate(lat, lng, report.getShrapnelRadiusKm()));
+        report.setEstimatedPopulation(shrapnel);
+        report.setThermalZonePopulation(thermal);
+        report.setPressureZonePopulation(pressure - thermal);
+        report.setShrapnelZonePopulation(shrapnel - pressure);
+    }
+
+    /**
+     * Damage-vs-energy curve for one location. Infrastructure is fetched once at the largest search
+     * radius and kept as sorted distance arrays, so each energy costs a few binary searches against
+     * the radii from {@link ImpactReport} rather than another fetch.
+     */
+    public CompletableFuture<EnergySweep> generateSweep(double lat, double lng, double[] energies) {
+        if (energies.length == 0 || energies.length > MAX_SWEEP_POINTS) {
+            throw new IllegalArgumentException("Sweep needs between 1 and " + MAX_SWEEP_POINTS + " energies");
+        }
+        ImpactReport[] radii = new ImpactReport[energies.length];
+        double maxRadiusKm = 0;
+        for (int i = 0; i < energies.length; i++) {
+            if (!(energies[i] > 0) || Double.isInfinite(energies[i])) {
+                throw new IllegalArgumentException("kineticEnergy must be a positive number");
+            }
+            radii[i] = new ImpactReport(lat, lng, energies[i]);
+            maxRadiusKm = Math.max(maxRadiusKm, searchRadiusKm(radii[i]));
+        }
+
+        double fetchRadiusKm = maxRadiusKm;
+        return infrastructureSource.findCandidates(lat, lng, fetchRadiusKm)
+                .thenApply(candidates -> sweep(lat, lng, fetchRadiusKm, radii, candidates));
+    }
+
+    private EnergySweep sweep(double lat, double lng, double fetchRadiusKm, ImpactReport[] radii, Candidates found) {
+        FeatureTable candidates = found.getFeatures();
+        // distances of everything in range, plus one sorted array per category
+        double[] all = new double[candidates.size()];
+        int[] category = new int[candidates.size()];
+        int[] perCategory = new int[InfrastructureTags.CATEGORY_COUNT];
+        int n = 0;
+        for (int row = 0; row < candidates.size(); row++) {
+            double distance = GeoMath.haversineDistance(lat, lng, candidates.lat(row), candidates.lng(row));
+            if (distance <= fetchRadiusKm) {
+                all[n] = distance;
+                category[n] = candidates.category(row);
+                perCategory[category[n]]++;
+                n++;
+            }
+        }
+        double[][] byCategory = new double[InfrastructureTags.CATEGORY_COUNT][];
+        for (int c = 0; c < byCategory.length; c++) {
+            byCategory[c] = new double[perCategory[c]];
+            perCategory[c] = 0;
+        }
+        for (int i = 0; i < n; i++) {
+            byCategory[category[i]][perCategory[category[i]]++] = all[i];
+        }
+        all = Arrays.copyOf(all, n);
+        Arrays.sort(all);
+        for (double[] distances : byCategory) {
+            Arrays.sort(distances);
+        }
+
+        List<SweepPoint> points = new ArrayList<>(radii.length);
+        for (ImpactReport r : radii) {
+            double searchKm = searchRadiusKm(r);
+            int thermal = countWithin(all, Math.min(r.getThermalRadiusKm(), searchKm));
+            int pressure = countWithin(all, Math.min(r.getPressureRadiusKm(), searchKm));
+            int shrapnel = countWithin(all, searchKm);
+            long people = Math.round(population.estimate(lat, lng, r.getShrapnelRadiusKm()));
+            points.add(new SweepPoint(r, searchKm, thermal, pressure - thermal, shrapnel - pressure, people,
+                    countWithin(byCategory[InfrastructureTags.MEDICAL], searchKm),
+                    countWithin(byCategory[InfrastructureTags.EDUCATION], searchKm),
+                    countWithin(byCategory[InfrastructureTags.INDUSTRIAL], searchKm),
+                    countWithin(byCategory[InfrastructureTags.AGRICULTURE], searchKm)));
+        }
+        return new EnergySweep(lat, lng, fetchRadiusKm, n, found.getCoverage(), points);
+    }
+
+    // number of sorted distances <= radiusKm
+    private static int countWithin(double[] sorted, double radiusKm) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] <= radiusKm) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Evaluates many scenarios, at most {@code impact.batch.parallelism} groups at a time. Scenarios
+     * whose search areas overlap are grouped and their infrastructure is prefetched once per group
+     * before the reports are built. Results come back in request order; a failing scenario carries
+     * its error instead of a report.
+     */
+    public CompletableFuture<List<ScenarioResult>> generateBatch(List<ImpactScenario> scenarios) {
+        if (scenarios.size() > maxBatchScenarios) {
+            throw new IllegalArgumentException("Batch exceeds " + maxBatchScenarios + " scenarios");
+        }
+
+        SearchArea[] areas = new SearchArea[scenarios.size()];
+        ScenarioResult[] results = new ScenarioResult[scenarios.size()];
+        for (int i = 0; i < scenarios.size(); i++) {
+            ImpactScenario scenario = scenarios.get(i);
+            String problem = validate(scenario);
+            if (problem != null) {
+                results[i] = ScenarioResult.failure(i, problem);
+                continue;
+            }
+            ImpactReport radii = new ImpactReport(scenario.getLat(), scenario.getLng(), scenario.getKineticEnergy());
+            areas[i] = new SearchArea(scenario.getLat(), scenario.getLng(), searchRadiusKm(radii));
+        }
+
+        List<CompletableFuture<Void>> groups = new ArrayList<>();
+        for (List<Integer> group : groupOverlapping(areas)) {
+            List<SearchArea> groupAreas = new ArrayList<>(group.size());
+            group.forEach(i -> groupAreas.add(areas[i]));
+
+            groups.add(batchLimiter.submit(() -> infrastructureSource.prefetch(groupAreas)
+                    .exceptionally(e -> null) // each scenario reports its own failure below
+                    .thenCompose(ignored -> CompletableFuture.allOf(group.stream()
+                            .map(index -> evaluate(index, scenarios.get(index))
+                                    .thenAccept(result -> results[index] = result))
+                            .toArray(CompletableFuture[]::new))))
+                    .exceptionally(e -> {
+                        group.forEach(index -> {
+                            if (results[index] == null) {
+                                results[index] = ScenarioResult.failure(index, describe(e));
+                            }
+                        });
+                        return null;
+                    }));
+        }
+
+        return CompletableFuture.allOf(groups.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> Arrays.asList(results));
+    }
+
+    private CompletableFuture<ScenarioResult> evaluate(int index, ImpactScenario scenario) {
+        return generateImpactReport(scenario.getLat(), scenario.getLng(), scenario.getKineticEnergy())
+                .handle((report, error) -> error != null
+                        ? ScenarioResult.failure(index, describe(error))
+                        : ScenarioResult.success(index, report));
+    }
+
+    public Map<String, Object> getInfrastructureStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(infrastructureSource.getStats());
+        stats.put("batch", batchLimiter.stats());
+        stats.put("population", population.getStats());
+        return stats;
+    }
+
+    private static double searchRadiusKm(ImpactReport report) {
+        return ImpactReport.searchRadiusKm(report.getShrapnelRadiusKm());
+    }
+
+    private static String validate(ImpactScenario scenario) {
+        if (scenario == null) {
+            return "scenario is missing";
+        }
+        if (!(scenario.getLat() >= -90 && scenario.getLat() <= 90)) {
+            return "lat must be between -90 and 90";
+        }
+        if (!(scenario.getLng() >= -180 && scenario.getLng() <= 180)) {
+            return "lng must be between -180 and 180";
+        }
+        if (!(scenario.getKineticEnergy() > 0) || Double.isInfinite(scenario.getKineticEnergy())) {
+            return "kineticEnergy must be a positive number";
+        }
+        return null;
+    }
+
+    /**
+     * Connected groups of areas whose circles overlap, skipping null (invalid) entries.
+     */
+    private static List<List<Integer>> groupOverlapping(SearchArea[] areas) {
+        int[] parent = new int[areas.length];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        for (int i = 0; i < areas.length; i++) {
+            for (int j = i + 1; areas[i] != null && j < areas.length; j++) {
+                if (areas[j] != null && overlaps(areas[i], areas[j])) {
+                    parent[root(parent, i)] = root(parent, j);
+                }
+            }
+        }
+
+        Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < areas.length; i++) {
+            if (areas[i] != null) {
+                groups.computeIfAbsent(root(parent, i), k -> new ArrayList<>()).add(i);
+            }
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private static boolean overlaps(SearchArea a, SearchArea b) {
+        double reach = a.getRadiusKm() + b.getRadiusKm();
+        // cheap latitude reject before the haversine
+        if (Math.abs(a.getLat() - b.getLat()) * GeoMath.KM_PER_DEGREE_LAT > reach) {
+            return false;
+        }
+        return GeoMath.haversineDistance(a.getLat(), a.getLng(), b.getLat(), b.getLng()) <= reach;
+    }
+
+    private static int root(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static String describe(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause.getMessage() != null ? cause.getMessage() : cause.toString();
+    }
+}
@@ -1,134 +1,551 @@
 package com.neo.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neo.archive.NeoArchive;
+import com.neo.cache.BoundedCache;
+import com.neo.cache.CacheStats;
+import com.neo.config.CacheConfig;
 import com.neo.config.NasaApiConfig;
 import com.neo.model.NearEarthObject;
+import com.neo.store.NeoColumnStore;
+import com.neo.upstream.Bulkhead;
+import com.neo.upstream.BulkheadFullException;
+import com.neo.upstream.QuotaScheduler;
+import com.neo.upstream.QuotaScheduler.Priority;
+import com.neo.upstream.SingleFlight;
+import com.neo.upstream.UpstreamMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class NasaProxyService {
 
+    private static final Logger log = LoggerFactory.getLogger(NasaProxyService.class);
+    private static final String UPSTREAM = "nasa";
+
     private final NasaApiConfig config;
+    private final CacheConfig cacheConfig;
+    private final NeoArchive archive;
+    private final NeoColumnStore columnStore;
     private final HttpClient httpClient;
-    private final ObjectMapper objectMapper;
-    private final Map<String, CachedResponse> cache;
+    private final NeoFeedParser feedParser;
+    private final BoundedCache<LocalDate, List<NearEarthObject>> cache;
+    private final ExecutorService fetchExecutor;
+    private final Bulkhead bulkhead;
+    private final QuotaScheduler quota;
+    private final SingleFlight<String, Map<LocalDate, List<NearEarthObject>>> inFlightChunks;
+    private final UpstreamMetrics metrics;
 
-    private static final Duration CACHE_TTL = Duration.ofHours(1);
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE;
 
-    public NasaProxyService(NasaApiConfig config) {
+    // NeoWs rejects feed requests spanning more than 7 days
+    private static final int MAX_CHUNK_DAYS = 7;
+    private static final int FETCH_THREADS = 4;
+    private static final int STREAM_WINDOW = FETCH_THREADS;
+
+    // rough per-object heap estimate used to weigh cached days
+    private static final long NEO_BASE_BYTES = 120;
+    private static final long DAY_BASE_BYTES = 64;
+
+    public NasaProxyService(NasaApiConfig config, CacheConfig cacheConfig, NeoArchive archive,
+            NeoColumnStore columnStore, UpstreamMetrics metrics) {
         this.config = config;
+        this.cacheConfig = cacheConfig;
+        this.archive = archive;
+        this.columnStore = columnStore;
+        this.feedParser = new NeoFeedParser(new ObjectMapper().getFactory());
+        this.cache = new BoundedCache<>(cacheConfig.getMaxDays(), cacheConfig.getMaxWeightBytes(),
+                cacheConfig.getStaleWindow(), (day, data) -> estimateWeight(data));
+
+        // responses are delivered and parsed on NASA's own threads, never on Overpass's or Tomcat's
+        AtomicInteger threadCount = new AtomicInteger();
+        this.fetchExecutor = Executors.newFixedThreadPool(FETCH_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "nasa-fetch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
         this.httpClient = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(10))
+                .executor(fetchExecutor)
                 .build();
-        this.objectMapper = new ObjectMapper();
-        this.cache = new ConcurrentHashMap<>();
+        this.bulkhead = new Bulkhead("NASA NeoWs", config.getMaxConcurrent(), config.getMaxQueued());
+        this.quota = new QuotaScheduler("NASA NeoWs", config.getRequestsPerHour(), config.getInteractiveReserve(),
+                config.getQuotaMaxQueued(), config.getQuotaMaxWait());
+        this.inFlightChunks = new SingleFlight<>();
+        this.metrics = metrics;
+        metrics.bindBulkhead(UPSTREAM, bulkhead);
+        metrics.bindQuota(UPSTREAM, quota);
+        metrics.bindCache("neo-feed", cache::stats);
+
+        loadArchive();
+    }
+
+    /**
+     * Receives one feed day at a time, in date order.
+     */
+    @FunctionalInterface
+    public interface FeedDaySink {
+        void accept(LocalDate day, List<NearEarthObject> neos) throws IOException;
     }
 
-    public List<NearEarthObject> fetchNeoFeed(LocalDate startDate, LocalDate endDate) {
-        String cacheKey = buildCacheKey(startDate, endDate);
+    /**
+     * Serves the range day by day from the cache; days that are missing are grouped into chunks
+     * of at most 7 days and fetched from NASA concurrently. Stale days are served as they are
+     * while a background refresh brings them up to date. No thread waits on NASA meanwhile.
+     */
+    public CompletableFuture<List<NearEarthObject>> fetchNeoFeedAsync(LocalDate startDate, LocalDate endDate) {
+        return fetchNeoFeedDaysAsync(startDate, endDate).thenApply(days -> {
+            List<NearEarthObject> results = new ArrayList<>();
+            days.values().forEach(results::addAll);
+            return results;
+        });
+    }
 
-        CachedResponse cached = cache.get(cacheKey);
-        if (cached != null && !cached.isExpired()) {
-            return cached.data;
+    /**
+     * Same as {@link #fetchNeoFeedAsync} but keeps the days apart, in date order; a day without
+     * close approaches maps to an empty list. The lists are the cached instances themselves.
+     */
+    public CompletableFuture<Map<LocalDate, List<NearEarthObject>>> fetchNeoFeedDaysAsync(LocalDate startDate,
+            LocalDate endDate) {
+        RangePlan plan = planRange(startDate, endDate);
+        List<CompletableFuture<Map<LocalDate, List<NearEarthObject>>>> pending = new ArrayList<>();
+        for (DateChunk chunk : plan.chunks) {
+            pending.add(submitChunk(chunk, false, Priority.INTERACTIVE));
         }
 
-        String url = config.buildFeedUrl(
-                startDate.format(DATE_FORMAT),
-                endDate.format(DATE_FORMAT));
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]))
+                .handle((ignored, error) -> {
+                    if (error != null) {
+                        throw fetchFailure(error);
+                    }
+                    pending.forEach(chunk -> plan.days.putAll(chunk.join()));
+                    Map<LocalDate, List<NearEarthObject>> results = new LinkedHashMap<>();
+                    for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+                        results.put(day, plan.days.getOrDefault(day, List.of()));
+                    }
+                    return results;
+                });
+    }
+
+    /**
+     * Like {@link #fetchNeoFeedAsync} but hands each day to the sink as soon as it is available.
+     * At most {@code STREAM_WINDOW} chunks are fetched ahead of the sink, so a slow consumer
+     * holds back upstream fetches instead of buffering the whole range.
+     */
+    public void streamNeoFeed(LocalDate startDate, LocalDate endDate, FeedDaySink sink) throws IOException {
+        forEachDay(startDate, endDate, STREAM_WINDOW, sink);
+    }
+
+    private void forEachDay(LocalDate startDate, LocalDate endDate, int window, FeedDaySink sink)
+            throws IOException {
+        RangePlan plan = planRange(startDate, endDate);
+        Map<LocalDate, List<NearEarthObject>> days = plan.days;
+        List<DateChunk> chunks = plan.chunks;
+        List<CompletableFuture<Map<LocalDate, List<NearEarthObject>>>> pending = new ArrayList<>();
+        fillWindow(chunks, pending, window);
+
+        int chunkIndex = 0;
+        Map<LocalDate, List<NearEarthObject>> fetched = Map.of();
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            List<NearEarthObject> data = days.get(day);
+            if (data == null) {
+                DateChunk chunk = chunks.get(chunkIndex);
+                if (day.equals(chunk.start)) {
+                    fetched = join(pending.get(chunkIndex));
+                    pending.set(chunkIndex, null);
+                    fillWindow(chunks, pending, chunkIndex + 1L + window);
+                }
+                data = fetched.getOrDefault(day, List.of());
+                if (day.equals(chunk.end)) {
+                    chunkIndex++;
+                }
+            }
+            sink.accept(day, data);
+        }
+    }
+
+    /**
+     * Splits the range into days the cache or archive can serve now and chunks that must be fetched.
+     */
+    private RangePlan planRange(LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("endDate must not be before startDate");
+        }
+
+        Map<LocalDate, List<NearEarthObject>> days = new HashMap<>();
+        List<LocalDate> missing = new ArrayList<>();
+        List<LocalDate> stale = new ArrayList<>();
+
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            BoundedCache.Lookup<List<NearEarthObject>> cached = cache.lookup(day);
+            if (cached != null && !cached.isStale()) {
+                days.put(day, cached.value());
+                continue;
+            }
+
+            // archived days are final, so they are reloaded from disk rather than refreshed upstream
+            List<NearEarthObject> archived = archive.read(day);
+            if (archived != null) {
+                cacheDay(day, archived);
+                days.put(day, archived);
+            } else if (cached != null) {
+                days.put(day, cached.value());
+                stale.add(day);
+            } else {
+                missing.add(day);
+            }
+        }
 
+        if (!stale.isEmpty()) {
+            refreshInBackground(stale, false);
+        }
+        return new RangePlan(days, groupIntoChunks(missing));
+    }
+
+    private void fillWindow(List<DateChunk> chunks,
+            List<CompletableFuture<Map<LocalDate, List<NearEarthObject>>>> pending, long upTo) {
+        while (pending.size() < chunks.size() && pending.size() < upTo) {
+            pending.add(submitChunk(chunks.get(pending.size()), false, Priority.INTERACTIVE));
+        }
+    }
+
+    private static Map<LocalDate, List<NearEarthObject>> join(
+            CompletableFuture<Map<LocalDate, List<NearEarthObject>>> future) {
         try {
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .GET()
-                    .build();
+            return future.join();
+        } catch (CompletionException e) {
+            throw fetchFailure(e);
+        }
+    }
+
+    // rejections pass through untouched so callers can tell "busy" from "broken"
+    private static RuntimeException fetchFailure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof BulkheadFullException busy) {
+            return busy;
+        }
+        return new RuntimeException("Failed to fetch NEO data: " + cause.getMessage(), cause);
+    }
+
+    public CompletableFuture<List<NearEarthObject>> fetchTodayFeedAsync() {
+        LocalDate today = LocalDate.now();
+        return fetchNeoFeedAsync(today, today);
+    }
+
+    /**
+     * Refetches the whole range in the background, fresh or not, so the cache is warm before users ask.
+     */
+    public CompletableFuture<Void> prefetch(LocalDate startDate, LocalDate endDate) {
+        List<LocalDate> days = new ArrayList<>();
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            days.add(day);
+        }
+        return refreshInBackground(days, true);
+    }
+
+    public long getCoalescedRequestCount() {
+        return inFlightChunks.getCoalescedCount();
+    }
+
+    public long getUpstreamRequestCount() {
+        return inFlightChunks.getExecutionCount();
+    }
+
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    public Map<String, Object> getBulkheadStats() {
+        return bulkhead.stats();
+    }
+
+    public Map<String, Object> getQuotaStats() {
+        return quota.stats();
+    }
+
+    @Scheduled(fixedDelayString = "${neo.cache.sweepIntervalMs:60000}")
+    public void sweepExpiredCache() {
+        cache.sweepExpired();
+    }
+
+    private CompletableFuture<Void> refreshInBackground(List<LocalDate> days, boolean force) {
+        List<CompletableFuture<Map<LocalDate, List<NearEarthObject>>>> refreshes = new ArrayList<>();
+        for (DateChunk chunk : groupIntoChunks(days)) {
+            refreshes.add(submitChunk(chunk, force, Priority.BACKGROUND));
+        }
+        return CompletableFuture.allOf(refreshes.toArray(new CompletableFuture<?>[0]))
+                .exceptionally(e -> {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    log.warn("Background NEO refresh failed days={} cause={}", days.size(), cause.toString());
+                    return null;
+                });
+    }
+
+    private CompletableFuture<Map<LocalDate, List<NearEarthObject>>> submitChunk(DateChunk chunk, boolean force,
+            Priority priority) {
+        // concurrent requests and refreshes for the same chunk share one upstream call
+        CompletableFuture<Map<LocalDate, List<NearEarthObject>>> result =
+                inFlightChunks.submit(chunk.key(), () -> fetchChunk(chunk, force, priority));
+        if (priority == Priority.INTERACTIVE) {
+            // a user joining a queued prefetch should not wait behind other prefetches
+            quota.promote(chunk.key());
+        }
+        return result;
+    }
+
+    private CompletableFuture<Map<LocalDate, List<NearEarthObject>>> fetchChunk(DateChunk chunk, boolean force,
+            Priority priority) {
+        // a previous leader may have filled the chunk between our cache check and now
+        Map<LocalDate, List<NearEarthObject>> cachedChunk = force ? null : readCachedChunk(chunk);
+        if (cachedChunk != null) {
+            return CompletableFuture.completedFuture(cachedChunk);
+        }
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        String url = config.buildFeedUrl(
+                chunk.start.format(DATE_FORMAT),
+                chunk.end.format(DATE_FORMAT));
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(config.getTimeout())
+                .GET()
+                .build();
 
+        return quota.submit(chunk.key(), priority, () -> bulkhead.submit(() -> fetchAndParse(request, chunk)))
+                .thenApply(byDay -> {
+                    // days without any close approach are absent from the response but still worth caching
+                    for (LocalDate day = chunk.start; !day.isAfter(chunk.end); day = day.plusDays(1)) {
+                        List<NearEarthObject> data = byDay.computeIfAbsent(day, d -> List.of());
+                        cacheDay(day, data);
+                        if (day.isBefore(LocalDate.now())) {
+                            archiveDay(day, data);
+                        }
+                    }
+                    return byDay;
+                });
+    }
+
+    /**
+     * The response body is decoded as it arrives, on the fetch executor, and the bulkhead permit
+     * is held until decoding ends, so the permit bounds bodies being read as well as requests.
+     */
+    private CompletableFuture<Map<LocalDate, List<NearEarthObject>>> fetchAndParse(HttpRequest request,
+            DateChunk chunk) {
+        CompletableFuture<HttpResponse<InputStream>> sent = timedSend(request);
+        CompletableFuture<Map<LocalDate, List<NearEarthObject>>> parsed =
+                sent.thenApplyAsync(response -> decode(response, chunk), fetchExecutor);
+        // the bulkhead cancels the future it was handed; pass that on to the exchange, and close
+        // a body already being read so the parse stops
+        parsed.whenComplete((byDay, error) -> {
+            if (parsed.isCancelled()) {
+                sent.cancel(true);
+                sent.thenAccept(response -> closeQuietly(response.body()));
+            }
+        });
+        return parsed;
+    }
+
+    private Map<LocalDate, List<NearEarthObject>> decode(HttpResponse<InputStream> response, DateChunk chunk) {
+        // the request timeout only covers the headers; a body that stalls is closed, which
+        // fails the blocked read instead of holding this thread and the permit
+        CompletableFuture<Void> bodyDeadline = CompletableFuture.runAsync(() -> closeQuietly(response.body()),
+                CompletableFuture.delayedExecutor(config.getTimeout().toMillis(), TimeUnit.MILLISECONDS));
+        try (InputStream body = response.body()) {
+            if (response.statusCode() == 429) {
+                throw new BulkheadFullException("NASA API rate limit reached, retry later",
+                        retryAfterSeconds(response));
+            }
             if (response.statusCode() != 200) {
                 throw new RuntimeException("NASA API returned status: " + response.statusCode());
             }
+            // includes reading the body off the wire, which the streaming parse overlaps
+            long parseStarted = System.nanoTime();
+            Map<LocalDate, List<NearEarthObject>> byDay = parseNasaResponse(body);
+            int neos = byDay.values().stream().mapToInt(List::size).sum();
+            metrics.recordParse(UPSTREAM, System.nanoTime() - parseStarted, neos);
+            log.debug("NeoWs chunk start={} end={} neos={}", chunk.start, chunk.end, neos);
+            return byDay;
+        } catch (IOException e) {
+            if (bodyDeadline.isDone()) {
+                throw new UncheckedIOException(new HttpTimeoutException("NASA API response body timed out"));
+            }
+            throw new UncheckedIOException(e);
+        } finally {
+            bodyDeadline.cancel(false);
+        }
+    }
 
-            List<NearEarthObject> neoList = parseNasaResponse(response.body());
-            cache.put(cacheKey, new CachedResponse(neoList));
-            return neoList;
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException ignored) {
+            // closing only interrupts the read; nothing else to release
+        }
+    }
 
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to fetch NEO data: " + e.getMessage(), e);
+    private CompletableFuture<HttpResponse<InputStream>> timedSend(HttpRequest request) {
+        long started = System.nanoTime();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .whenComplete((response, error) -> {
+                    metrics.recordCall(UPSTREAM,
+                            response != null ? String.valueOf(response.statusCode()) : UpstreamMetrics.NO_RESPONSE,
+                            System.nanoTime() - started);
+                    if (response != null) {
+                        observeQuota(response);
+                    }
+                });
+    }
+
+    // NASA reports the key's hourly limit and what is left of it on every response
+    private void observeQuota(HttpResponse<?> response) {
+        if (response.statusCode() == 429) {
+            log.warn("NASA API quota exhausted retryAfter={}", retryAfterSeconds(response));
+            quota.exhausted();
+            return;
         }
+        quota.observe(intHeader(response, "X-RateLimit-Remaining"), intHeader(response, "X-RateLimit-Limit"));
     }
 
-    public List<NearEarthObject> fetchTodayFeed() {
-        LocalDate today = LocalDate.now();
-        return fetchNeoFeed(today, today);
+    private static int intHeader(HttpResponse<?> response, String name) {
+        try {
+            return response.headers().firstValue(name).map(Integer::parseInt).orElse(-1);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
 
-    private List<NearEarthObject> parseNasaResponse(String json) throws Exception {
-        List<NearEarthObject> results = new ArrayList<>();
-        JsonNode root = objectMapper.readTree(json);
-        JsonNode nearEarthObjects = root.get("near_earth_objects");
+    private static long retryAfterSeconds(HttpResponse<?> response) {
+        int seconds = intHeader(response, "Retry-After");
+        return seconds > 0 ? seconds : 60;
+    }
 
-        nearEarthObjects.fields().forEachRemaining(entry -> {
-            String date = entry.getKey();
-            JsonNode objects = entry.getValue();
+    private void loadArchive() {
+        if (!archive.isEnabled()) {
+            return;
+        }
+        long started = System.nanoTime();
+        Map<LocalDate, List<NearEarthObject>> archived = archive.readAll();
+        archived.forEach(this::cacheDay);
+        log.info("Loaded archived NEO days days={} millis={}", archived.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // every day that enters the cache is also made queryable in the column store
+    private void cacheDay(LocalDate day, List<NearEarthObject> data) {
+        cache.put(day, data, ttlFor(day));
+        columnStore.ingest(day, data);
+    }
+
+    private void archiveDay(LocalDate day, List<NearEarthObject> data) {
+        try {
+            archive.append(day, data);
+        } catch (UncheckedIOException e) {
+            // the archive is an optimisation; a failed write must not fail the request
+            log.warn("NEO archive write failed day={} error={}", day, e.getMessage());
+        }
+    }
 
-            for (JsonNode obj : objects) {
-                results.add(parseNeoObject(obj, date));
+    private Map<LocalDate, List<NearEarthObject>> readCachedChunk(DateChunk chunk) {
+        Map<LocalDate, List<NearEarthObject>> byDay = new HashMap<>();
+        for (LocalDate day = chunk.start; !day.isAfter(chunk.end); day = day.plusDays(1)) {
+            List<NearEarthObject> cached = cache.peek(day);
+            if (cached == null) {
+                return null;
             }
-        });
+            byDay.put(day, cached);
+        }
+        return byDay;
+    }
 
-        return results;
+    Map<LocalDate, List<NearEarthObject>> parseNasaResponse(InputStream body) throws IOException {
+        return feedParser.parse(body);
     }
 
-    private NearEarthObject parseNeoObject(JsonNode obj, String date) {
-        String id = obj.get("id").asText();
-        String name = obj.get("name").asText();
-        boolean hazardous = obj.get("is_potentially_hazardous_asteroid").asBoolean();
+    private Duration ttlFor(LocalDate day) {
+        return day.isBefore(LocalDate.now()) ? cacheConfig.getHistoricalTtl() : cacheConfig.getTodayTtl();
+    }
 
-        JsonNode diameter = obj.get("estimated_diameter").get("meters");
-        double diameterMin = diameter.get("estimated_diameter_min").asDouble();
-        double diameterMax = diameter.get("estimated_diameter_max").asDouble();
+    private static long estimateWeight(List<NearEarthObject> data) {
+        long weight = DAY_BASE_BYTES;
+        for (NearEarthObject neo : data) {
+            weight += NEO_BASE_BYTES + 2L * (neo.getId().length() + neo.getName().length());
+        }
+        return weight;
+    }
 
-        JsonNode closeApproach = obj.get("close_approach_data").get(0);
-        JsonNode relativeVelocity = closeApproach.get("relative_velocity");
-        double velocityKmPerSec = relativeVelocity.get("kilometers_per_second").asDouble();
+    /**
+     * Splits the (sorted) missing days into contiguous runs, each capped at MAX_CHUNK_DAYS.
+     */
+    private List<DateChunk> groupIntoChunks(List<LocalDate> missingDays) {
+        List<DateChunk> chunks = new ArrayList<>();
+        LocalDate chunkStart = null;
+        LocalDate previous = null;
 
-        JsonNode missDistance = closeApproach.get("miss_distance");
-        double missDistanceKm = missDistance.get("kilometers").asDouble();
+        for (LocalDate day : missingDays) {
+            boolean contiguous = previous != null && day.equals(previous.plusDays(1));
+            boolean full = chunkStart != null && day.isAfter(chunkStart.plusDays(MAX_CHUNK_DAYS - 1));
 
-        return new NearEarthObject(
-                id, name, diameterMin, diameterMax,
-                velocityKmPerSec, missDistanceKm, hazardous, date);
+            if (chunkStart == null || !contiguous || full) {
+                if (chunkStart != null) {
+                    chunks.add(new DateChunk(chunkStart, previous));
+                }
+                chunkStart = day;
+            }
+            previous = day;
+        }
+
+        if (chunkStart != null) {
+            chunks.add(new DateChunk(chunkStart, previous));
+        }
+        return chunks;
     }
 
-    private String buildCacheKey(LocalDate start, LocalDate end) {
-        return start.format(DATE_FORMAT) + "_" + end.format(DATE_FORMAT);
+    private static class RangePlan {
+        final Map<LocalDate, List<NearEarthObject>> days;
+        final List<DateChunk> chunks;
+
+        RangePlan(Map<LocalDate, List<NearEarthObject>> days, List<DateChunk> chunks) {
+            this.days = days;
+            this.chunks = chunks;
+        }
     }
 
-    private static class CachedResponse {
-        final List<NearEarthObject> data;
-        final long timestamp;
+    private static class DateChunk {
+        final LocalDate start;
+        final LocalDate end;
 
-        CachedResponse(List<NearEarthObject> data) {
-            this.data = data;
-            this.timestamp = System.currentTimeMillis();
+        DateChunk(LocalDate start, LocalDate end) {
+            this.start = start;
+            this.end = end;
         }
 
-        boolean isExpired() {
-            return System.currentTimeMillis() - timestamp > CACHE_TTL.toMillis();
+        String key() {
+            return start.format(DATE_FORMAT) + "_" + end.format(DATE_FORMAT);
         }
     }
 }
@@ -0,0 +1,215 @@
+package com.neo.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.neo.model.NearEarthObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Token-level parser for the NeoWs feed response. Only the fields we keep are read;
+ * everything else (links, other diameter units, extra close approaches) is skipped
+ * without being materialised. Missing fields fail with a JsonParseException that names
+ * the field and the NEO instead of an NPE deep in a tree walk.
+ */
+public class NeoFeedParser {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE;
+
+    private final JsonFactory jsonFactory;
+
+    public NeoFeedParser(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    public Map<LocalDate, List<NearEarthObject>> parse(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return parseRoot(parser);
+        }
+    }
+
+    private Map<LocalDate, List<NearEarthObject>> parseRoot(JsonParser parser) throws IOException {
+        expect(parser, parser.nextToken(), JsonToken.START_OBJECT, "response");
+
+        Map<LocalDate, List<NearEarthObject>> byDay = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("near_earth_objects".equals(field)) {
+                byDay = parseDays(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (byDay == null) {
+            throw new JsonParseException(parser, "NeoWs response has no 'near_earth_objects'");
+        }
+        return byDay;
+    }
+
+    private Map<LocalDate, List<NearEarthObject>> parseDays(JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT, "near_earth_objects");
+
+        Map<LocalDate, List<NearEarthObject>> byDay = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String date = parser.currentName();
+            LocalDate day;
+            try {
+                day = LocalDate.parse(date, DATE_FORMAT);
+            } catch (DateTimeParseException e) {
+                throw new JsonParseException(parser, "Invalid feed date '" + date + "'", e);
+            }
+
+            expect(parser, parser.nextToken(), JsonToken.START_ARRAY, date);
+            List<NearEarthObject> dayList = new ArrayList<>();
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                dayList.add(parseNeo(parser, date));
+            }
+            byDay.put(day, dayList);
+        }
+        return byDay;
+    }
+
+    private NearEarthObject parseNeo(JsonParser parser, String date) throws IOException {
+        String id = null;
+        String name = null;
+        Boolean hazardous = null;
+        double[] diameter = null;
+        double[] approach = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id" -> id = parser.getValueAsString();
+                case "name" -> name = parser.getValueAsString();
+                case "is_potentially_hazardous_asteroid" -> hazardous = value == JsonToken.VALUE_TRUE;
+                case "estimated_diameter" -> diameter = parseDiameterMeters(parser);
+                case "close_approach_data" -> approach = parseFirstApproach(parser);
+                default -> parser.skipChildren();
+            }
+        }
+
+        String label = id != null ? id : "(no id)";
+        require(parser, id, "id", label);
+        require(parser, name, "name", label);
+        require(parser, hazardous, "is_potentially_hazardous_asteroid", label);
+        require(parser, diameter, "estimated_diameter.meters", label);
+        require(parser, approach, "close_approach_data", label);
+
+        return new NearEarthObject(id, name, diameter[0], diameter[1],
+                approach[0], approach[1], hazardous, date);
+    }
+
+    // returns {min, max} from estimated_diameter.meters, skipping the other units
+    private double[] parseDiameterMeters(JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT, "estimated_diameter");
+
+        double[] meters = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String unit = parser.currentName();
+            parser.nextToken();
+            if (!"meters".equals(unit)) {
+                parser.skipChildren();
+                continue;
+            }
+
+            double min = Double.NaN;
+            double max = Double.NaN;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("estimated_diameter_min".equals(field)) {
+                    min = parser.getValueAsDouble(Double.NaN);
+                } else if ("estimated_diameter_max".equals(field)) {
+                    max = parser.getValueAsDouble(Double.NaN);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (!Double.isNaN(min) && !Double.isNaN(max)) {
+                meters = new double[]{min, max};
+            }
+        }
+        return meters;
+    }
+
+    // returns {velocityKmPerSec, missDistanceKm} from the first close approach
+    private double[] parseFirstApproach(JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_ARRAY, "close_approach_data");
+
+        double[] approach = null;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            if (approach != null) {
+                parser.skipChildren();
+                continue;
+            }
+
+            double velocity = Double.NaN;
+            double missDistance = Double.NaN;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("relative_velocity".equals(field)) {
+                    velocity = readNestedDouble(parser, "kilometers_per_second");
+                } else if ("miss_distance".equals(field)) {
+                    missDistance = readNestedDouble(parser, "kilometers");
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (Double.isNaN(velocity) || Double.isNaN(missDistance)) {
+                throw new JsonParseException(parser,
+                        "close approach is missing relative_velocity.kilometers_per_second or miss_distance.kilometers");
+            }
+            approach = new double[]{velocity, missDistance};
+        }
+        return approach;
+    }
+
+    // NeoWs sends these numbers as strings; getValueAsDouble handles both
+    private double readNestedDouble(JsonParser parser, String wanted) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return Double.NaN;
+        }
+
+        double result = Double.NaN;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (wanted.equals(field)) {
+                result = parser.getValueAsDouble(Double.NaN);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return result;
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected, String context)
+            throws JsonParseException {
+        if (actual != expected) {
+            throw new JsonParseException(parser,
+                    "Expected " + expected + " for " + context + " but found " + actual);
+        }
+    }
+
+    private static void require(JsonParser parser, Object value, String field, String neoId)
+            throws JsonParseException {
+        if (value == null) {
+            throw new JsonParseException(parser, "NEO " + neoId + " is missing '" + field + "'");
+        }
+    }
+}
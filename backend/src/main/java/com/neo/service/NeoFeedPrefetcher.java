@@ -0,0 +1,45 @@
+package com.neo.service;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Keeps today and the coming week warm in the feed cache so /feed/today never waits on NASA.
+ * The refresh interval is kept below the today TTL, and the rollover job fetches the next
+ * window shortly before midnight.
+ */
+@Component
+public class NeoFeedPrefetcher {
+
+    private static final int DAYS_AHEAD = 7;
+
+    private final NasaProxyService nasaProxyService;
+
+    public NeoFeedPrefetcher(NasaProxyService nasaProxyService) {
+        this.nasaProxyService = nasaProxyService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmOnStartup() {
+        prefetchWindow(LocalDate.now());
+    }
+
+    @Scheduled(fixedRateString = "${neo.prefetch.intervalMs:2700000}",
+            initialDelayString = "${neo.prefetch.intervalMs:2700000}")
+    public void refreshUpcoming() {
+        prefetchWindow(LocalDate.now());
+    }
+
+    @Scheduled(cron = "${neo.prefetch.rolloverCron:0 55 23 * * *}")
+    public void prefetchRollover() {
+        prefetchWindow(LocalDate.now().plusDays(1));
+    }
+
+    private void prefetchWindow(LocalDate from) {
+        nasaProxyService.prefetch(from, from.plusDays(DAYS_AHEAD));
+    }
+}
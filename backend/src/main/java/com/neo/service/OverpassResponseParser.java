@@ -0,0 +1,195 @@
+package com.neo.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.neo.infrastructure.FeatureTable;
+import com.neo.infrastructure.InfrastructureFeature;
+import com.neo.infrastructure.InfrastructureTags;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Token-level decoder for Overpass {@code out center} JSON. Each element goes straight into a
+ * {@link FeatureTable} row in one pass: ids and coordinates as numbers, amenity / landuse /
+ * building values matched to type codes inside the parser's buffer, names copied as chars.
+ * Nothing is built per element, and tags other than those few are skipped unread.
+ */
+public class OverpassResponseParser {
+
+    private final JsonFactory jsonFactory;
+
+    public OverpassResponseParser(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    public FeatureTable parse(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return parseRoot(parser);
+        }
+    }
+
+    private FeatureTable parseRoot(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Overpass response is not a JSON object");
+        }
+
+        FeatureTable table = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("elements".equals(field) && parser.currentToken() == JsonToken.START_ARRAY) {
+                table = parseElements(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return table != null ? table : FeatureTable.EMPTY;
+    }
+
+    private FeatureTable parseElements(JsonParser parser) throws IOException {
+        FeatureTable.Builder builder = new FeatureTable.Builder(1024);
+        Element element = new Element();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            element.reset();
+            readElement(parser, element);
+            if (element.placed() && element.tagged) {
+                element.addTo(builder);
+            }
+        }
+        return builder.build();
+    }
+
+    private void readElement(JsonParser parser, Element element) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "type" -> element.kind = kindOf(parser);
+                case "id" -> element.id = parser.getValueAsLong();
+                case "lat" -> element.lat = parser.getValueAsDouble(Double.NaN);
+                case "lon" -> element.lng = parser.getValueAsDouble(Double.NaN);
+                case "center" -> readCenter(parser, element);
+                case "tags" -> {
+                    if (value == JsonToken.START_OBJECT) {
+                        element.tagged = true;
+                        readTags(parser, element);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    // ways come with "center" instead of their own lat / lon
+    private void readCenter(JsonParser parser, Element element) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("lat".equals(field)) {
+                element.centerLat = parser.getValueAsDouble(Double.NaN);
+            } else if ("lon".equals(field)) {
+                element.centerLng = parser.getValueAsDouble(Double.NaN);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void readTags(JsonParser parser, Element element) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.currentName();
+            if (parser.nextToken() != JsonToken.VALUE_STRING) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (key) {
+                case "amenity" -> element.amenity = typeCode(parser);
+                case "landuse" -> element.landuse = typeCode(parser);
+                case "building" -> element.building = typeCode(parser);
+                case "name" -> element.name.copy(parser);
+                case "name:en" -> element.nameEn.copy(parser);
+                case "name:tr" -> element.nameTr.copy(parser);
+                default -> {
+                }
+            }
+        }
+    }
+
+    private static int typeCode(JsonParser parser) throws IOException {
+        return InfrastructureTags.typeCode(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+
+    // "node", "way" or "relation", told apart by length without making a String
+    private static int kindOf(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_STRING) {
+            return InfrastructureFeature.NODE;
+        }
+        return switch (parser.getTextLength()) {
+            case 3 -> InfrastructureFeature.WAY;
+            case 8 -> InfrastructureFeature.RELATION;
+            default -> InfrastructureFeature.NODE;
+        };
+    }
+
+    // one element's fields while it is being read; reused for every element of a response
+    private static class Element {
+        int kind;
+        long id;
+        double lat;
+        double lng;
+        double centerLat;
+        double centerLng;
+        boolean tagged;
+        int amenity;
+        int landuse;
+        int building;
+        final Name name = new Name();
+        final Name nameEn = new Name();
+        final Name nameTr = new Name();
+
+        void reset() {
+            kind = InfrastructureFeature.NODE;
+            id = 0;
+            lat = lng = centerLat = centerLng = Double.NaN;
+            tagged = false;
+            amenity = landuse = building = -1;
+            name.length = nameEn.length = nameTr.length = 0;
+        }
+
+        boolean placed() {
+            return !Double.isNaN(centerLat) && !Double.isNaN(centerLng) || !Double.isNaN(lat) && !Double.isNaN(lng);
+        }
+
+        void addTo(FeatureTable.Builder builder) {
+            boolean center = !Double.isNaN(centerLat) && !Double.isNaN(centerLng);
+            int type = amenity >= 0 ? amenity : landuse >= 0 ? landuse : building >= 0 ? building
+                    : InfrastructureTags.UNKNOWN_TYPE;
+            Name chosen = name.length > 0 ? name : nameEn.length > 0 ? nameEn : nameTr;
+            builder.add(InfrastructureFeature.osmKey(kind, id), center ? centerLat : lat, center ? centerLng : lng,
+                    type, chosen.chars, 0, chosen.length);
+        }
+    }
+
+    private static class Name {
+        char[] chars = new char[64];
+        int length;
+
+        void copy(JsonParser parser) throws IOException {
+            length = parser.getTextLength();
+            if (length > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(length, chars.length * 2));
+            }
+            System.arraycopy(parser.getTextCharacters(), parser.getTextOffset(), chars, 0, length);
+        }
+    }
+}
@@ -1,208 +1,353 @@
 package com.neo.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.neo.model.ImpactReport;
-import com.neo.model.ImpactReport.InfrastructureItem;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.neo.cache.CacheStats;
+import com.neo.config.OverpassConfig;
+import com.neo.geo.BoundingBox;
+import com.neo.geo.SearchArea;
+import com.neo.geo.TileKey;
+import com.neo.infrastructure.Candidates;
+import com.neo.infrastructure.FeatureTable;
+import com.neo.infrastructure.InfrastructureSource;
+import com.neo.infrastructure.InfrastructureTileCache;
+import com.neo.infrastructure.InfrastructureUnavailableException;
+import com.neo.upstream.Bulkhead;
+import com.neo.upstream.HedgedMirrors;
+import com.neo.upstream.UpstreamMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import javax.net.ssl.SSLSession;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
-public class OverpassService {
+@ConditionalOnProperty(name = "impact.infrastructure.source", havingValue = "overpass", matchIfMissing = true)
+public class OverpassService implements InfrastructureSource {
 
-    private static final String OVERPASS_API_URL = "https://overpass-api.de/api/interpreter";
+    private static final Logger log = LoggerFactory.getLogger(OverpassService.class);
+    private static final String UPSTREAM = "overpass";
 
-    private final HttpClient httpClient;
-    private final ObjectMapper objectMapper;
+    // about 8x8 tiles, roughly 80 km across at zoom 12
+    private static final int MAX_PREFETCH_TILES = 64;
+    private static final int HTTP_THREADS = 4;
 
-    public OverpassService() {
+    private final OverpassConfig config;
+    private final HttpClient httpClient;
+    private final ExecutorService parseExecutor;
+    private final OverpassResponseParser parser;
+    private final InfrastructureTileCache tileCache;
+    private final Bulkhead bulkhead;
+    private final HedgedMirrors mirrors;
+    private final UpstreamMetrics metrics;
+
+    public OverpassService(OverpassConfig config, UpstreamMetrics metrics) {
+        this.config = config;
+        this.metrics = metrics;
+
+        // a separate pool from NASA's, so slow Overpass responses cannot starve feed requests
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(HTTP_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "overpass-http-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
         this.httpClient = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(30))
+                .executor(executor)
                 .build();
-        this.objectMapper = new ObjectMapper();
+        // bodies are read and parsed here, one thread per bulkhead permit, so a slow body never
+        // holds up the client's delivery threads
+        AtomicInteger parseThreadCount = new AtomicInteger();
+        this.parseExecutor = Executors.newFixedThreadPool(config.getMaxConcurrent(), runnable -> {
+            Thread thread = new Thread(runnable, "overpass-parse-" + parseThreadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.bulkhead = new Bulkhead("Overpass", config.getMaxConcurrent(), config.getMaxQueued());
+        this.mirrors = new HedgedMirrors("Overpass", config.getUrls(), config.isHedgeEnabled(),
+                config.getHedgeMinDelay(), config.getHedgeMaxDelay(),
+                config.getBreakerFailureThreshold(), config.getBreakerOpenDuration());
+        this.parser = new OverpassResponseParser(new JsonFactory());
+        this.tileCache = new InfrastructureTileCache(config.getTileZoom(), config.getMaxTiles(),
+                config.getMaxWeightBytes(), config.getTileTtl(), config.getMaxTilesPerQuery(),
+                config.getFanOutParallelism(), config.getFanOutDeadline());
+        metrics.bindBulkhead(UPSTREAM, bulkhead);
+        metrics.bindMirrors(UPSTREAM, mirrors);
+        metrics.bindCache("overpass-tiles", tileCache::stats);
     }
 
-    public ImpactReport generateImpactReport(double lat, double lng, double kineticEnergyJoules) {
-        ImpactReport report = new ImpactReport(lat, lng, kineticEnergyJoules);
+    public long getCoalescedRequestCount() {
+        return tileCache.getCoalescedTileCount();
+    }
 
-        System.out.println("=== Impact Report ===");
-        System.out.println("Coords: " + lat + ", " + lng);
+    public long getUpstreamRequestCount() {
+        return tileCache.getUpstreamFetchCount();
+    }
 
-        // maybe make these configurable
-        double searchRadiusMeters = Math.min(report.getShrapnelRadiusKm() * 1000, 15000);
-        searchRadiusMeters = Math.max(searchRadiusMeters, 2000);
+    public CacheStats getTileCacheStats() {
+        return tileCache.stats();
+    }
 
-        List<InfrastructureItem> infrastructure = queryOverpass(lat, lng, searchRadiusMeters);
+    @Scheduled(fixedDelayString = "${overpass.tiles.sweepIntervalMs:300000}")
+    public void sweepExpiredTiles() {
+        tileCache.sweepExpired();
+    }
 
-        int clinics = 0, schools = 0, industrial = 0, farmland = 0;
-        for (InfrastructureItem item : infrastructure) {
-            String type = item.getType();
-            if ("hospital".equals(type) || "clinic".equals(type) || "doctors".equals(type))
-                clinics++;
-            if ("school".equals(type) || "university".equals(type) || "kindergarten".equals(type))
-                schools++;
-            if ("industrial".equals(type) || "factory".equals(type) || "warehouse".equals(type))
-                industrial++;
-            if ("farm".equals(type) || "farmland".equals(type) || "farmyard".equals(type))
-                farmland++;
-        }
+    /**
+     * Loads the tiles covering the search circle; only the uncached ones go to Overpass. Tiles that
+     * fail leave a partial result, and only a lookup where every tile failed fails.
+     */
+    @Override
+    public CompletableFuture<Candidates> findCandidates(double lat, double lng, double radiusKm) {
+        List<TileKey> tiles = TileKey.covering(lat, lng, radiusKm, tileCache.getZoom());
+        return tileCache.load(tiles, this::queryOverpass).thenApply(lookup -> {
+            if (lookup.getFailure() == null) {
+                return Candidates.complete(lookup.getFeatures(), lookup.getVersion());
+            }
+            if (lookup.getFailedTiles() == tiles.size()) {
+                throw new InfrastructureUnavailableException("Overpass error (" + tiles.size() + " of "
+                        + tiles.size() + " tiles missing): " + lookup.getFailure().getMessage(), lookup.getFailure());
+            }
+            // loaded tiles stay cached; only the failed ones are retried next time
+            log.warn("Overpass partial result lat={} lng={} radiusKm={} failedTiles={} tiles={} error={}",
+                    lat, lng, radiusKm, lookup.getFailedTiles(), tiles.size(), lookup.getFailure().getMessage());
+            return new Candidates(lookup.getFeatures(), 1 - (double) lookup.getFailedTiles() / tiles.size());
+        });
+    }
 
-        report.setHospitalsAffected(clinics);
-        report.setSchoolsAffected(schools);
-        report.setIndustrialAffected(industrial);
-        report.setFarmlandAffected(farmland);
-        report.setInfrastructure(infrastructure);
+    @Override
+    public Object currentVersion(double lat, double lng, double radiusKm) {
+        return tileCache.version(TileKey.covering(lat, lng, radiusKm, tileCache.getZoom()));
+    }
 
-        System.out.println("Clinics: " + clinics + ", Schools: " + schools +
-                ", Industrial: " + industrial + ", Farmland: " + farmland);
-        System.out.println("=====================");
+    /**
+     * Loads the union of the areas' tiles, in row-ordered groups so each upstream query stays small.
+     */
+    @Override
+    public CompletableFuture<Void> prefetch(List<SearchArea> areas) {
+        Set<TileKey> union = new HashSet<>();
+        for (SearchArea area : areas) {
+            union.addAll(TileKey.covering(area.getLat(), area.getLng(), area.getRadiusKm(), tileCache.getZoom()));
+        }
+        List<TileKey> tiles = new ArrayList<>(union);
+        tiles.sort(Comparator.comparingInt(TileKey::getY).thenComparingInt(TileKey::getX));
+
+        List<CompletableFuture<Void>> groups = new ArrayList<>();
+        for (int from = 0; from < tiles.size(); from += MAX_PREFETCH_TILES) {
+            List<TileKey> group = tiles.subList(from, Math.min(from + MAX_PREFETCH_TILES, tiles.size()));
+            groups.add(tileCache.load(group, this::queryOverpass).thenAccept(lookup -> {
+                if (lookup.getFailure() != null) {
+                    log.warn("Overpass prefetch failed tiles={} error={}", lookup.getFailedTiles(),
+                            lookup.getFailure().getMessage());
+                }
+            }));
+        }
+        return CompletableFuture.allOf(groups.toArray(new CompletableFuture<?>[0]));
+    }
 
-        return report;
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("source", "overpass");
+        stats.put("upstreamRequests", getUpstreamRequestCount());
+        stats.put("coalescedRequests", getCoalescedRequestCount());
+        stats.put("tileCache", getTileCacheStats());
+        stats.put("bulkhead", bulkhead.stats());
+        stats.put("mirrors", mirrors.stats());
+        return stats;
     }
 
-    private List<InfrastructureItem> queryOverpass(double lat, double lng, double radiusMeters) {
-        List<InfrastructureItem> items = new ArrayList<>();
+    private CompletableFuture<FeatureTable> queryOverpass(BoundingBox bounds) {
+        String bbox = bounds.toOverpassFilter();
+        log.debug("Overpass query bbox={}", bbox);
+
+        String form = "data=" + URLEncoder.encode(query(bbox), StandardCharsets.UTF_8);
+
+        // each mirror attempt takes its own bulkhead permit, held until its body is parsed; a losing
+        // hedge gives it back when cancelled
+        return mirrors.send(url -> bulkhead.submit(() -> fetchAndParse(HttpRequest.newBuilder()
+                        .uri(URI.create(url))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .timeout(config.getTimeout()) // increase if api slow
+                        .POST(HttpRequest.BodyPublishers.ofString(form))
+                        .build())))
+                .thenApply(HttpResponse::body);
+    }
 
-        String query = "[out:json][timeout:25];" +
+    // the selectors InfrastructureTags mirrors for the local source
+    static String query(String bbox) {
+        return "[out:json][timeout:25];" +
                 "(" +
                 // Medical facilities
-                "node[\"amenity\"~\"hospital|clinic|doctors\"](around:" + (int) radiusMeters + "," + lat + "," + lng
-                + ");" +
-                "way[\"amenity\"~\"hospital|clinic\"](around:" + (int) radiusMeters + "," + lat + "," + lng + ");" +
+                "node[\"amenity\"~\"hospital|clinic|doctors\"]" + bbox + ";" +
+                "way[\"amenity\"~\"hospital|clinic\"]" + bbox + ";" +
                 // Educational facilities
-                "node[\"amenity\"~\"school|university|college|kindergarten\"](around:" + (int) radiusMeters + "," + lat
-                + "," + lng + ");" +
-                "way[\"amenity\"~\"school|university\"](around:" + (int) radiusMeters + "," + lat + "," + lng + ");" +
+                "node[\"amenity\"~\"school|university|college|kindergarten\"]" + bbox + ";" +
+                "way[\"amenity\"~\"school|university\"]" + bbox + ";" +
                 // Emergency services
-                "node[\"amenity\"~\"fire_station|police\"](around:" + (int) radiusMeters + "," + lat + "," + lng + ");"
-                +
+                "node[\"amenity\"~\"fire_station|police\"]" + bbox + ";" +
                 // Industrial areas
-                "node[\"landuse\"=\"industrial\"](around:" + (int) radiusMeters + "," + lat + "," + lng + ");" +
-                "way[\"landuse\"=\"industrial\"](around:" + (int) radiusMeters + "," + lat + "," + lng + ");" +
-                "node[\"building\"~\"industrial|warehouse|factory\"](around:" + (int) radiusMeters + "," + lat + ","
-                + lng + ");" +
-                "way[\"building\"~\"industrial|warehouse|factory\"](around:" + (int) radiusMeters + "," + lat + ","
-                + lng + ");" +
+                "node[\"landuse\"=\"industrial\"]" + bbox + ";" +
+                "way[\"landuse\"=\"industrial\"]" + bbox + ";" +
+                "node[\"building\"~\"industrial|warehouse|factory\"]" + bbox + ";" +
+                "way[\"building\"~\"industrial|warehouse|factory\"]" + bbox + ";" +
                 // Agricultural areas
-                "way[\"landuse\"~\"farmland|farmyard|orchard|vineyard\"](around:" + (int) radiusMeters + "," + lat + ","
-                + lng + ");" +
-                "node[\"landuse\"~\"farmland|farm\"](around:" + (int) radiusMeters + "," + lat + "," + lng + ");" +
-                "way[\"building\"=\"farm\"](around:" + (int) radiusMeters + "," + lat + "," + lng + ");" +
+                "way[\"landuse\"~\"farmland|farmyard|orchard|vineyard\"]" + bbox + ";" +
+                "node[\"landuse\"~\"farmland|farm\"]" + bbox + ";" +
+                "way[\"building\"=\"farm\"]" + bbox + ";" +
                 ");" +
                 "out center;";
+    }
+
+    /**
+     * The body is decoded as it arrives, on the parse executor. Cancelling the returned future
+     * aborts the exchange and closes a body already being read, so the parse stops.
+     */
+    private CompletableFuture<HttpResponse<FeatureTable>> fetchAndParse(HttpRequest request) {
+        CompletableFuture<HttpResponse<InputStream>> sent = timedSend(request);
+        CompletableFuture<HttpResponse<FeatureTable>> parsed = sent.thenApplyAsync(this::decode, parseExecutor);
+        parsed.whenComplete((response, error) -> {
+            if (parsed.isCancelled()) {
+                sent.cancel(true);
+                sent.thenAccept(streamed -> closeQuietly(streamed.body()));
+            }
+        });
+        return parsed;
+    }
 
-        System.out.println("Overpass query radius: " + (int) radiusMeters + "m");
+    private HttpResponse<FeatureTable> decode(HttpResponse<InputStream> response) {
+        // the request timeout only covers the headers; a body that stalls is closed, which
+        // fails the blocked read instead of holding this thread and the permit
+        CompletableFuture<Void> bodyDeadline = CompletableFuture.runAsync(() -> closeQuietly(response.body()),
+                CompletableFuture.delayedExecutor(config.getTimeout().toMillis(), TimeUnit.MILLISECONDS));
+        try (InputStream body = response.body()) {
+            if (response.statusCode() / 100 != 2) {
+                // closed unread; the mirrors fail over on the status
+                return new ParsedResponse(response, null);
+            }
+            // includes reading the body off the wire, which the streaming parse overlaps
+            long started = System.nanoTime();
+            FeatureTable features = parser.parse(body);
+            metrics.recordParse(UPSTREAM, System.nanoTime() - started, features.size());
+            log.debug("Overpass response features={}", features.size());
+            return new ParsedResponse(response, features);
+        } catch (IOException e) {
+            if (bodyDeadline.isDone()) {
+                throw new UncheckedIOException(new HttpTimeoutException("Overpass response body timed out"));
+            }
+            throw new UncheckedIOException(e);
+        } finally {
+            bodyDeadline.cancel(false);
+        }
+    }
 
+    private static void closeQuietly(InputStream body) {
         try {
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(OVERPASS_API_URL))
-                    .header("Content-Type", "application/x-www-form-urlencoded")
-                    .timeout(Duration.ofSeconds(30)) // increase if api slow
-                    .POST(HttpRequest.BodyPublishers.ofString("data=" + java.net.URLEncoder.encode(query, "UTF-8")))
-                    .build();
-
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() == 200) {
-                JsonNode root = objectMapper.readTree(response.body());
-                JsonNode elements = root.get("elements");
-
-                if (elements != null && elements.isArray()) {
-                    System.out.println("Overpass found: " + elements.size() + " elements");
-
-                    for (JsonNode element : elements) {
-                        InfrastructureItem item = parseElement(element, lat, lng);
-                        if (item != null) {
-                            items.add(item);
-                        }
-                    }
-                }
-            } else {
-                System.err.println("Overpass HTTP " + response.statusCode());
-            }
-        } catch (Exception e) {
-            System.err.println("Overpass error: " + e.getMessage());
+            body.close();
+        } catch (IOException ignored) {
+            // closing only interrupts the read; nothing else to release
         }
+    }
 
-        return items;
+    private CompletableFuture<HttpResponse<InputStream>> timedSend(HttpRequest request) {
+        long started = System.nanoTime();
+        CompletableFuture<HttpResponse<InputStream>> sent = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        CompletableFuture<HttpResponse<InputStream>> timed = new CompletableFuture<>();
+        sent.whenComplete((response, error) -> {
+            // an aborted exchange fails with an IOException, so cancellation is read off our side
+            metrics.recordCall(UPSTREAM, response != null ? String.valueOf(response.statusCode())
+                    : timed.isCancelled() ? UpstreamMetrics.CANCELLED : UpstreamMetrics.NO_RESPONSE,
+                    System.nanoTime() - started);
+            if (error != null) {
+                timed.completeExceptionally(error);
+            } else {
+                timed.complete(response);
+            }
+        });
+        // cancelling a hedge that lost aborts its exchange
+        timed.whenComplete((response, error) -> {
+            if (timed.isCancelled()) {
+                sent.cancel(true);
+            }
+        });
+        return timed;
     }
 
-    private InfrastructureItem parseElement(JsonNode element, double impactLat, double impactLng) {
-        double lat, lng;
+    // the streamed response with its body swapped for the parsed table, so the mirrors still see the status
+    private static final class ParsedResponse implements HttpResponse<FeatureTable> {
+        private final HttpResponse<InputStream> response;
+        private final FeatureTable features;
 
-        if (element.has("center")) {
-            JsonNode center = element.get("center");
-            lat = center.get("lat").asDouble();
-            lng = center.get("lon").asDouble();
-        } else if (element.has("lat") && element.has("lon")) {
-            lat = element.get("lat").asDouble();
-            lng = element.get("lon").asDouble();
-        } else {
-            return null;
+        ParsedResponse(HttpResponse<InputStream> response, FeatureTable features) {
+            this.response = response;
+            this.features = features;
         }
 
-        double distance = haversineDistance(impactLat, impactLng, lat, lng);
+        @Override
+        public int statusCode() {
+            return response.statusCode();
+        }
 
-        JsonNode tags = element.get("tags");
-        if (tags == null)
-            return null;
+        @Override
+        public HttpRequest request() {
+            return response.request();
+        }
 
-        String type = "unknown";
-        String name = "Unnamed";
+        @Override
+        public Optional<HttpResponse<FeatureTable>> previousResponse() {
+            return Optional.empty();
+        }
 
-        // Determine type from tags
-        if (tags.has("amenity")) {
-            type = tags.get("amenity").asText();
-        } else if (tags.has("landuse")) {
-            type = tags.get("landuse").asText();
-        } else if (tags.has("building")) {
-            type = tags.get("building").asText();
+        @Override
+        public HttpHeaders headers() {
+            return response.headers();
         }
 
-        // Get name
-        if (tags.has("name"))
-            name = tags.get("name").asText();
-        else if (tags.has("name:en"))
-            name = tags.get("name:en").asText();
-        else if (tags.has("name:tr"))
-            name = tags.get("name:tr").asText();
-        else {
-            // Generate descriptive name for unnamed features
-            if ("industrial".equals(type))
-                name = "Industrial Area";
-            else if ("farmland".equals(type) || "farmyard".equals(type))
-                name = "Agricultural Land";
-            else if ("factory".equals(type))
-                name = "Factory";
-            else if ("warehouse".equals(type))
-                name = "Warehouse";
-            else if ("orchard".equals(type))
-                name = "Orchard";
-            else if ("vineyard".equals(type))
-                name = "Vineyard";
+        @Override
+        public FeatureTable body() {
+            return features;
         }
 
-        // todo refine zone thresholds based on energy
-        String zone = distance < 5 ? "thermal" : distance < 12 ? "pressure" : "shrapnel";
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return response.sslSession();
+        }
 
-        return new InfrastructureItem(type, name, lat, lng, distance, zone);
-    }
+        @Override
+        public URI uri() {
+            return response.uri();
+        }
 
-    private double haversineDistance(double lat1, double lon1, double lat2, double lon2) {
-        final double R = 6371.0;
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
-                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
-                        Math.sin(dLon / 2) * Math.sin(dLon / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return R * c;
+        @Override
+        public HttpClient.Version version() {
+            return response.version();
+        }
     }
 }
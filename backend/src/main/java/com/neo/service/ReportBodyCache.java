@@ -0,0 +1,89 @@
+package com.neo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neo.cache.BoundedCache;
+import com.neo.cache.CacheStats;
+import com.neo.cache.EncodedBody;
+import com.neo.cache.EncodedPayload;
+import com.neo.config.ImpactConfig;
+import com.neo.upstream.UpstreamMetrics;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+
+/**
+ * Impact reports and infrastructure pages as ready-to-send JSON. A body is kept with the version
+ * of the infrastructure it was built from and reused, ETag and gzip form included, for as long
+ * as the source reports that same version without loading anything; a repeat query, or its 304,
+ * then costs no lookup, digest or serialization. Partial results carry no version and are never kept.
+ */
+@Service
+public class ReportBodyCache {
+
+    private final ImpactService impactService;
+    private final ObjectMapper objectMapper;
+    private final BoundedCache<String, ReportBody> bodies;
+    private final Duration ttl;
+
+    public ReportBodyCache(ImpactService impactService, ObjectMapper objectMapper, ImpactConfig config,
+            UpstreamMetrics metrics) {
+        this.impactService = impactService;
+        this.objectMapper = objectMapper;
+        this.bodies = new BoundedCache<>(config.getReportCacheEntries(), config.getReportCacheMaxWeightBytes(),
+                (key, body) -> body.body.weight());
+        this.ttl = config.getReportCacheTtl();
+        metrics.bindCache("impact-report-bodies", bodies::stats);
+    }
+
+    public CompletableFuture<EncodedPayload> report(double lat, double lng, double kineticEnergyJoules) {
+        String key = lat + "," + lng + "," + kineticEnergyJoules;
+        return encoded(key, impactService.infrastructureVersion(lat, lng, kineticEnergyJoules),
+                () -> impactService.generateImpactReport(lat, lng, kineticEnergyJoules,
+                        (report, version) -> store(key, report, version)));
+    }
+
+    public CompletableFuture<EncodedPayload> page(double lat, double lng, double kineticEnergyJoules,
+            int offset, int limit) {
+        String key = lat + "," + lng + "," + kineticEnergyJoules + "/" + offset + "+" + limit;
+        return encoded(key, impactService.infrastructureVersion(lat, lng, kineticEnergyJoules),
+                () -> impactService.listInfrastructure(lat, lng, kineticEnergyJoules, offset, limit,
+                        (page, version) -> store(key, page, version)));
+    }
+
+    public CacheStats stats() {
+        return bodies.stats();
+    }
+
+    private CompletableFuture<EncodedPayload> encoded(String key, Object version,
+            Supplier<CompletableFuture<EncodedPayload>> build) {
+        ReportBody cached = version == null ? null : bodies.get(key);
+        if (cached != null && cached.version.equals(version)) {
+            return CompletableFuture.completedFuture(cached.payload);
+        }
+        return build.get();
+    }
+
+    private EncodedPayload store(String key, Object value, Object version) {
+        EncodedBody body = EncodedBody.json(objectMapper, value, Deflater.DEFAULT_COMPRESSION);
+        ReportBody built = new ReportBody(version, body);
+        if (version != null) {
+            bodies.put(key, built, ttl);
+        }
+        return built.payload;
+    }
+
+    private static class ReportBody {
+        final Object version;
+        final EncodedBody body;
+        final EncodedPayload payload;
+
+        ReportBody(Object version, EncodedBody body) {
+            this.version = version;
+            this.body = body;
+            this.payload = EncodedPayload.of(body);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.neo.service;
+
+import com.neo.config.ImpactConfig;
+import com.neo.geo.KdTree;
+import com.neo.infrastructure.FeatureTable;
+import com.neo.infrastructure.InfrastructureSource;
+import com.neo.model.NearEarthObject;
+import com.neo.model.SimulationResult;
+import com.neo.physics.MonteCarloSimulation;
+import com.neo.physics.SimulationRequest;
+import com.neo.store.NeoColumnStore;
+import com.neo.upstream.Bulkhead;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+
+@Service
+public class SimulationService {
+
+    private final NeoColumnStore columnStore;
+    private final InfrastructureSource infrastructureSource;
+    private final int maxSamples;
+    private final double maxScatterKm;
+    // each run already uses every core, so only a few may run at once
+    private final Bulkhead limiter;
+
+    public SimulationService(NeoColumnStore columnStore, InfrastructureSource infrastructureSource,
+            ImpactConfig config) {
+        this.columnStore = columnStore;
+        this.infrastructureSource = infrastructureSource;
+        this.maxSamples = config.getMaxSimulationSamples();
+        this.maxScatterKm = config.getMaxScatterKm();
+        this.limiter = new Bulkhead("Simulation", config.getMaxConcurrentSimulations(),
+                config.getMaxQueuedSimulations());
+    }
+
+    /**
+     * Simulates the NEO with {@code neoId} (which must have been loaded through a feed), or the
+     * diameter and velocity already set on the request when the id is null.
+     */
+    public CompletableFuture<SimulationResult> simulate(String neoId, SimulationRequest request) {
+        NearEarthObject neo = null;
+        if (neoId != null) {
+            neo = columnStore.findById(neoId);
+            if (neo == null) {
+                throw new NoSuchElementException("NEO " + neoId + " has not been loaded; fetch a feed range that includes it");
+            }
+            request.setDiameterMinMeters(neo.getDiameterMinMeters());
+            request.setDiameterMaxMeters(neo.getDiameterMaxMeters());
+            request.setVelocityKmPerSec(neo.getVelocityKmPerSec());
+        }
+        validate(request);
+
+        NearEarthObject simulated = neo;
+        CompletableFuture<SimulationResult> result;
+        if (!request.hasLocation()) {
+            result = limiter.submit(() -> CompletableFuture.supplyAsync(() -> MonteCarloSimulation.run(request, null)));
+        } else {
+            double lat = request.getLat();
+            double lng = request.getLng();
+            result = limiter.submit(() -> infrastructureSource
+                    .findCandidates(lat, lng, MonteCarloSimulation.exposureRadiusKm(request))
+                    .thenApplyAsync(candidates -> {
+                        SimulationResult r = MonteCarloSimulation.run(request, exposureTree(lng, candidates.getFeatures()));
+                        r.setInfrastructureCoverage(candidates.getCoverage());
+                        return r;
+                    }));
+        }
+        return result.thenApply(r -> {
+            if (simulated != null) {
+                r.setNeoId(simulated.getId());
+                r.setName(simulated.getName());
+            }
+            return r;
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        return limiter.stats();
+    }
+
+    private void validate(SimulationRequest request) {
+        if (!(request.getDiameterMinMeters() > 0) || !(request.getDiameterMaxMeters() >= request.getDiameterMinMeters())
+                || Double.isInfinite(request.getDiameterMaxMeters())) {
+            throw new IllegalArgumentException("Need 0 < diameterMin <= diameterMax");
+        }
+        if (!(request.getVelocityKmPerSec() > 0) || Double.isInfinite(request.getVelocityKmPerSec())) {
+            throw new IllegalArgumentException("velocity must be a positive number");
+        }
+        if (request.getSamples() < 1 || request.getSamples() > maxSamples) {
+            throw new IllegalArgumentException("samples must be between 1 and " + maxSamples);
+        }
+        if (request.getBins() < 1 || request.getBins() > 1000) {
+            throw new IllegalArgumentException("bins must be between 1 and 1000");
+        }
+        if (request.hasLocation()) {
+            if (!(request.getLat() >= -90 && request.getLat() <= 90)) {
+                throw new IllegalArgumentException("lat must be between -90 and 90");
+            }
+            if (!(request.getLng() >= -180 && request.getLng() <= 180)) {
+                throw new IllegalArgumentException("lng must be between -180 and 180");
+            }
+        }
+        if (!(request.getScatterKm() >= 0 && request.getScatterKm() <= maxScatterKm)) {
+            throw new IllegalArgumentException("scatterKm must be between 0 and " + maxScatterKm);
+        }
+    }
+
+    // longitudes unwrapped around the target so scattered points never cross the dateline
+    private static KdTree exposureTree(double targetLng, FeatureTable candidates) {
+        double[] lat = new double[candidates.size()];
+        double[] lng = new double[candidates.size()];
+        for (int i = 0; i < lat.length; i++) {
+            double offset = candidates.lng(i) - targetLng;
+            offset -= 360 * Math.floor((offset + 180) / 360);
+            lat[i] = candidates.lat(i);
+            lng[i] = targetLng + offset;
+        }
+        return new KdTree(lat, lng);
+    }
+}
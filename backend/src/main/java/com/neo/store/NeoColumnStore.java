@@ -0,0 +1,386 @@
+package com.neo.store;
+
+import com.neo.config.CacheConfig;
+import com.neo.model.NearEarthObject;
+import com.neo.model.NeoQueryResult;
+import com.neo.physics.ImpactPhysics;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Every NEO the backend has seen, one row per (id, close approach day), held in primitive
+ * columns so filters, sorting and top-K run as plain array scans. Bounded by day count: past
+ * {@code neo.cache.storeMaxDays} the least recently loaded day is dropped and the columns compacted.
+ */
+@Component
+public class NeoColumnStore {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> rowByKey = new HashMap<>();
+    // epoch days held, least recently loaded first
+    private final LinkedHashSet<Integer> days = new LinkedHashSet<>();
+    private final long maxDays;
+    private long evictedDays;
+
+    private int size;
+    private int[] epochDay = new int[INITIAL_CAPACITY];
+    private double[] diameterMin = new double[INITIAL_CAPACITY];
+    private double[] diameterMax = new double[INITIAL_CAPACITY];
+    private double[] velocity = new double[INITIAL_CAPACITY];
+    private double[] missDistance = new double[INITIAL_CAPACITY];
+    private double[] energy = new double[INITIAL_CAPACITY];
+    private final BitSet hazardous = new BitSet();
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+
+    public NeoColumnStore(CacheConfig config) {
+        this.maxDays = config.getStoreMaxDays();
+    }
+
+    /**
+     * Adds or replaces the rows for one feed day: a NEO no longer listed for a day it was
+     * loaded for before loses its row.
+     */
+    public void ingest(LocalDate day, List<NearEarthObject> neos) {
+        int dayValue = (int) day.toEpochDay();
+        lock.writeLock().lock();
+        try {
+            // rows still listed are updated in place; the others are dropped below
+            Set<String> listed = days.remove(dayValue) ? new HashSet<>() : null;
+            for (NearEarthObject neo : neos) {
+                String key = neo.getId() + "|" + dayValue;
+                if (listed != null) {
+                    listed.add(key);
+                }
+                Integer existing = rowByKey.get(key);
+                int row;
+                if (existing != null) {
+                    row = existing;
+                } else {
+                    ensureCapacity(size + 1);
+                    row = size++;
+                    rowByKey.put(key, row);
+                }
+
+                epochDay[row] = dayValue;
+                diameterMin[row] = neo.getDiameterMinMeters();
+                diameterMax[row] = neo.getDiameterMaxMeters();
+                velocity[row] = neo.getVelocityKmPerSec();
+                missDistance[row] = neo.getMissDistanceKm();
+                energy[row] = ImpactPhysics.kineticEnergy(neo.getAverageDiameterMeters(), neo.getVelocityKmPerSec());
+                hazardous.set(row, neo.isPotentiallyHazardous());
+                ids[row] = neo.getId();
+                names[row] = neo.getName();
+            }
+            if (listed != null && rowsOn(dayValue) > listed.size()) {
+                removeRows(dayValue, listed);
+            }
+            days.add(dayValue);
+
+            Iterator<Integer> eldest = days.iterator();
+            while (days.size() > maxDays) {
+                int evicted = eldest.next();
+                eldest.remove();
+                removeRows(evicted, null);
+                evictedDays++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int dayCount() {
+        lock.readLock().lock();
+        try {
+            return days.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getEvictedDays() {
+        lock.readLock().lock();
+        try {
+            return evictedDays;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The NEO with this id at its latest close approach day loaded so far, or null.
+     */
+    public NearEarthObject findById(String id) {
+        lock.readLock().lock();
+        try {
+            int best = -1;
+            for (int row = 0; row < size; row++) {
+                if (id.equals(ids[row]) && (best < 0 || epochDay[row] > epochDay[best])) {
+                    best = row;
+                }
+            }
+            return best < 0 ? null : toNeo(best);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scans all rows once, keeping the best {@code limit} rows after the cursor in a bounded heap.
+     * Rows are ordered by a rank where lower is better, ties broken by day and then id, and the
+     * cursor is the (rank, day, id) of the last row of the previous page. Unlike a row number,
+     * that position survives rows being dropped or reloaded between pages.
+     */
+    public NeoQueryResult query(NeoQuery query) {
+        boolean hazardousOnly = query.isHazardousOnly();
+        double minDiameter = query.getMinDiameterMeters();
+        double maxMiss = query.getMaxMissDistanceKm();
+        int fromDay = query.getStartDate() != null ? (int) query.getStartDate().toEpochDay() : Integer.MIN_VALUE;
+        int toDay = query.getEndDate() != null ? (int) query.getEndDate().toEpochDay() : Integer.MAX_VALUE;
+        NeoQuery.Sort sort = query.getSort();
+        int limit = query.getLimit();
+
+        boolean paged = query.getCursor() != null;
+        double cursorRank = 0;
+        int cursorDay = 0;
+        String cursorId = null;
+        if (paged) {
+            ByteBuffer decoded = decodeCursor(query.getCursor());
+            cursorRank = decoded.getDouble();
+            cursorDay = decoded.getInt();
+            cursorId = StandardCharsets.UTF_8.decode(decoded).toString();
+        }
+
+        // max-heap on (rank, row): the root is the worst row kept so far
+        double[] heapRank = new double[limit];
+        int[] heapRow = new int[limit];
+        int heapSize = 0;
+        int matched = 0;
+        int afterCursor = 0;
+
+        lock.readLock().lock();
+        try {
+            for (int row = 0; row < size; row++) {
+                if (hazardousOnly && !hazardous.get(row)) {
+                    continue;
+                }
+                if (epochDay[row] < fromDay || epochDay[row] > toDay) {
+                    continue;
+                }
+                if (!Double.isNaN(minDiameter) && (diameterMin[row] + diameterMax[row]) / 2 < minDiameter) {
+                    continue;
+                }
+                if (!Double.isNaN(maxMiss) && missDistance[row] > maxMiss) {
+                    continue;
+                }
+                matched++;
+
+                double rank = rank(sort, row);
+                if (paged && !isAfter(rank, epochDay[row], ids[row], cursorRank, cursorDay, cursorId)) {
+                    continue;
+                }
+                afterCursor++;
+
+                if (heapSize < limit) {
+                    heapRank[heapSize] = rank;
+                    heapRow[heapSize] = row;
+                    siftUp(heapRank, heapRow, heapSize++);
+                } else if (isAfter(heapRank[0], heapRow[0], rank, row)) {
+                    heapRank[0] = rank;
+                    heapRow[0] = row;
+                    siftDown(heapRank, heapRow, heapSize);
+                }
+            }
+
+            // popping the max-heap yields the page back to front
+            NearEarthObject[] page = new NearEarthObject[heapSize];
+            double lastRank = 0;
+            int lastRow = -1;
+            for (int i = heapSize - 1; i >= 0; i--) {
+                int row = heapRow[0];
+                if (i == heapSize - 1) {
+                    lastRank = heapRank[0];
+                    lastRow = row;
+                }
+                page[i] = toNeo(row);
+                heapRank[0] = heapRank[i];
+                heapRow[0] = heapRow[i];
+                siftDown(heapRank, heapRow, i);
+            }
+
+            String nextCursor = afterCursor > heapSize ? encodeCursor(lastRank, epochDay[lastRow], ids[lastRow]) : null;
+            return new NeoQueryResult(Arrays.asList(page), matched, nextCursor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double rank(NeoQuery.Sort sort, int row) {
+        return switch (sort) {
+            case ENERGY -> -energy[row];
+            case CLOSEST -> missDistance[row];
+            case DIAMETER -> -(diameterMin[row] + diameterMax[row]) / 2;
+            case DATE -> epochDay[row];
+        };
+    }
+
+    private NearEarthObject toNeo(int row) {
+        return new NearEarthObject(ids[row], names[row], diameterMin[row], diameterMax[row],
+                velocity[row], missDistance[row], hazardous.get(row),
+                LocalDate.ofEpochDay(epochDay[row]).toString());
+    }
+
+    private boolean isAfter(double rank, int row, double otherRank, int otherRow) {
+        return isAfter(rank, epochDay[row], ids[row], otherRank, epochDay[otherRow], ids[otherRow]);
+    }
+
+    // (id, day) is unique, so this is a total order
+    private static boolean isAfter(double rank, int day, String id, double otherRank, int otherDay, String otherId) {
+        int byRank = Double.compare(rank, otherRank);
+        if (byRank != 0) {
+            return byRank > 0;
+        }
+        return day != otherDay ? day > otherDay : id.compareTo(otherId) > 0;
+    }
+
+    private void siftUp(double[] rank, int[] row, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!isAfter(rank[index], row[index], rank[parent], row[parent])) {
+                return;
+            }
+            swap(rank, row, index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(double[] rank, int[] row, int heapSize) {
+        int index = 0;
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= heapSize) {
+                return;
+            }
+            int largest = left;
+            int right = left + 1;
+            if (right < heapSize && isAfter(rank[right], row[right], rank[left], row[left])) {
+                largest = right;
+            }
+            if (!isAfter(rank[largest], row[largest], rank[index], row[index])) {
+                return;
+            }
+            swap(rank, row, index, largest);
+            index = largest;
+        }
+    }
+
+    private static void swap(double[] rank, int[] row, int a, int b) {
+        double r = rank[a];
+        rank[a] = rank[b];
+        rank[b] = r;
+        int x = row[a];
+        row[a] = row[b];
+        row[b] = x;
+    }
+
+    private static String encodeCursor(double rank, int day, String id) {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(12 + idBytes.length).putDouble(rank).putInt(day).put(idBytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    private static ByteBuffer decodeCursor(String cursor) {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length < 12) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return ByteBuffer.wrap(bytes);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private int rowsOn(int day) {
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            if (epochDay[row] == day) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // drops the day's rows whose key is not in keep (all of them for null), moving the other
+    // rows down over them in their relative order
+    private void removeRows(int day, Set<String> keep) {
+        int kept = 0;
+        for (int row = 0; row < size; row++) {
+            if (epochDay[row] == day) {
+                String key = ids[row] + "|" + day;
+                if (keep == null || !keep.contains(key)) {
+                    rowByKey.remove(key);
+                    continue;
+                }
+            }
+            if (kept != row) {
+                epochDay[kept] = epochDay[row];
+                diameterMin[kept] = diameterMin[row];
+                diameterMax[kept] = diameterMax[row];
+                velocity[kept] = velocity[row];
+                missDistance[kept] = missDistance[row];
+                energy[kept] = energy[row];
+                hazardous.set(kept, hazardous.get(row));
+                ids[kept] = ids[row];
+                names[kept] = names[row];
+                rowByKey.put(ids[kept] + "|" + epochDay[kept], kept);
+            }
+            kept++;
+        }
+        Arrays.fill(ids, kept, size, null);
+        Arrays.fill(names, kept, size, null);
+        hazardous.clear(kept, size);
+        size = kept;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(needed, ids.length * 2);
+        epochDay = Arrays.copyOf(epochDay, capacity);
+        diameterMin = Arrays.copyOf(diameterMin, capacity);
+        diameterMax = Arrays.copyOf(diameterMax, capacity);
+        velocity = Arrays.copyOf(velocity, capacity);
+        missDistance = Arrays.copyOf(missDistance, capacity);
+        energy = Arrays.copyOf(energy, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        names = Arrays.copyOf(names, capacity);
+    }
+}
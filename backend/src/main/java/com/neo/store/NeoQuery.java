@@ -0,0 +1,89 @@
+package com.neo.store;
+
+import java.time.LocalDate;
+
+/**
+ * Filter, ordering and page for a {@link NeoColumnStore} scan. Unset bounds are NaN / null.
+ */
+public class NeoQuery {
+
+    public enum Sort {
+        ENERGY, CLOSEST, DIAMETER, DATE
+    }
+
+    private boolean hazardousOnly;
+    private double minDiameterMeters = Double.NaN;
+    private double maxMissDistanceKm = Double.NaN;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Sort sort = Sort.ENERGY;
+    private int limit = 50;
+    private String cursor;
+
+    public boolean isHazardousOnly() {
+        return hazardousOnly;
+    }
+
+    public void setHazardousOnly(boolean hazardousOnly) {
+        this.hazardousOnly = hazardousOnly;
+    }
+
+    public double getMinDiameterMeters() {
+        return minDiameterMeters;
+    }
+
+    public void setMinDiameterMeters(double minDiameterMeters) {
+        this.minDiameterMeters = minDiameterMeters;
+    }
+
+    public double getMaxMissDistanceKm() {
+        return maxMissDistanceKm;
+    }
+
+    public void setMaxMissDistanceKm(double maxMissDistanceKm) {
+        this.maxMissDistanceKm = maxMissDistanceKm;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public void setSort(Sort sort) {
+        this.sort = sort;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        this.limit = limit;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+}
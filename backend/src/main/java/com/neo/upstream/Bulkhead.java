@@ -0,0 +1,141 @@
+package com.neo.upstream;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caps the asynchronous calls in flight to one upstream. Calls over the limit wait in a bounded
+ * queue without holding a thread; once the queue is full new calls fail at once with
+ * {@link BulkheadFullException}, so one slow upstream cannot absorb every request.
+ * Cancelling a returned future cancels the call, or drops it if it has not started yet.
+ */
+public class Bulkhead {
+
+    // permits handed over on a thread that is already running a hand-over are queued here
+    // instead of recursing, so a run of synchronously completing calls cannot blow the stack
+    private static final ThreadLocal<Deque<Runnable>> HANDOFFS = new ThreadLocal<>();
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final Queue<Runnable> queue = new ArrayDeque<>();
+    private final AtomicLong rejected = new AtomicLong();
+    private int active;
+
+    public Bulkhead(String name, int maxConcurrent, int maxQueued) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("maxConcurrent must be positive");
+        }
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+    }
+
+    /**
+     * Starts the call now if a permit is free, later if not. The supplier only has to start the call.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            if (result.isDone()) {
+                release(); // cancelled while it waited
+                return;
+            }
+            CompletableFuture<T> upstream;
+            try {
+                upstream = call.get();
+            } catch (RuntimeException e) {
+                upstream = CompletableFuture.failedFuture(e);
+            }
+            upstream.whenComplete((value, error) -> {
+                release();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+            // cancelling the caller's future cancels the call itself
+            CompletableFuture<T> started = upstream;
+            result.whenComplete((value, error) -> {
+                if (result.isCancelled()) {
+                    started.cancel(true);
+                }
+            });
+        };
+
+        synchronized (this) {
+            if (active < maxConcurrent) {
+                active++;
+            } else if (queue.size() < maxQueued) {
+                queue.add(start);
+                return result;
+            } else {
+                rejected.incrementAndGet();
+                return CompletableFuture.failedFuture(new BulkheadFullException(name));
+            }
+        }
+        run(start);
+        return result;
+    }
+
+    public synchronized int getActiveCount() {
+        return active;
+    }
+
+    public synchronized int getQueuedCount() {
+        return queue.size();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("active", active);
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("queued", queue.size());
+        stats.put("maxQueued", maxQueued);
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+
+    // the finishing call's permit goes straight to the next queued call, if any
+    private void release() {
+        Runnable next;
+        synchronized (this) {
+            next = queue.poll();
+            if (next == null) {
+                active--;
+                return;
+            }
+        }
+        run(next);
+    }
+
+    private static void run(Runnable task) {
+        Deque<Runnable> pending = HANDOFFS.get();
+        if (pending != null) {
+            pending.add(task);
+            return;
+        }
+        pending = new ArrayDeque<>();
+        HANDOFFS.set(pending);
+        try {
+            task.run();
+            Runnable next;
+            while ((next = pending.poll()) != null) {
+                next.run();
+            }
+        } finally {
+            HANDOFFS.remove();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.neo.upstream;
+
+/**
+ * The upstream cannot take the call now: its bulkhead is full, its quota is spent or no mirror
+ * is healthy. Retry after {@link #getRetryAfterSeconds()}.
+ */
+public class BulkheadFullException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public BulkheadFullException(String upstream) {
+        super(upstream + " is busy, retry later");
+        this.retryAfterSeconds = 1;
+    }
+
+    public BulkheadFullException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,106 @@
+package com.neo.upstream;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Health of one upstream endpoint. After {@code failureThreshold} failures in a row it opens and
+ * turns calls away for {@code openDuration}; then a single probe call is let through, which
+ * closes it on success and opens it again on failure.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probing;
+    private long opened;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("failureThreshold must be positive");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Whether a call may go out now. A true answer in the half-open state claims the probe, so it
+     * must be followed by {@link #onSuccess}, {@link #onFailure} or {@link #onAbandoned}.
+     */
+    public synchronized boolean tryAcquire() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> {
+                if (System.nanoTime() - openedAt < openNanos) {
+                    yield false;
+                }
+                // the open period is over and this call becomes the probe
+                state = State.HALF_OPEN;
+                probing = true;
+                yield true;
+            }
+            case HALF_OPEN -> {
+                if (probing) {
+                    yield false;
+                }
+                probing = true;
+                yield true;
+            }
+        };
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probing = false;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                opened++;
+            }
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+        probing = false;
+    }
+
+    /**
+     * The call ended without saying anything about the endpoint's health, e.g. it was cancelled.
+     */
+    public synchronized void onAbandoned() {
+        probing = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    // how long until an open breaker lets a probe through; zero otherwise
+    public synchronized long remainingOpenNanos() {
+        return state == State.OPEN ? Math.max(0, openNanos - (System.nanoTime() - openedAt)) : 0;
+    }
+
+    public synchronized long getOpenedCount() {
+        return opened;
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", state.name());
+        stats.put("consecutiveFailures", consecutiveFailures);
+        stats.put("opened", opened);
+        return stats;
+    }
+}
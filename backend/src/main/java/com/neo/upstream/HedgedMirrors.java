@@ -0,0 +1,289 @@
+package com.neo.upstream;
+
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Several mirrors of one HTTP API, tried in the configured order. A call goes to the first
+ * healthy mirror; if no answer has come by the recent p95 latency, a duplicate goes to the next
+ * one, the first success wins and the other attempt is cancelled. A failed attempt fails over to
+ * the next mirror at once. Mirrors that keep failing are skipped by their {@link CircuitBreaker}.
+ */
+public class HedgedMirrors {
+
+    private static final int LATENCY_SAMPLES = 128;
+    // below this many samples the p95 is noise, so the hedge waits the full maxDelay
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    private final String name;
+    private final List<Mirror> mirrors;
+    private final boolean hedging;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final ScheduledExecutorService timer;
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyCount;
+    private final AtomicLong hedged = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong failovers = new AtomicLong();
+
+    public HedgedMirrors(String name, List<String> urls, boolean hedging, Duration minDelay, Duration maxDelay,
+            int failureThreshold, Duration openDuration) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException(name + " needs at least one URL");
+        }
+        this.name = name;
+        this.mirrors = new ArrayList<>();
+        for (String url : urls) {
+            mirrors.add(new Mirror(url, new CircuitBreaker(failureThreshold, openDuration)));
+        }
+        this.hedging = hedging;
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name.toLowerCase().replace(' ', '-') + "-hedge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs {@code attempt} against mirror URLs until one answers 2xx. Attempts must be cancellable:
+     * cancelling the returned future should abort the request.
+     */
+    public <B> CompletableFuture<HttpResponse<B>> send(Function<String, CompletableFuture<HttpResponse<B>>> attempt) {
+        Call<B> call = new Call<>(attempt);
+        call.launch(false);
+        if (hedging && mirrors.size() > 1 && !call.result.isDone()) {
+            ScheduledFuture<?> hedge = timer.schedule(() -> call.launch(true), hedgeDelayNanos(), TimeUnit.NANOSECONDS);
+            call.result.whenComplete((response, error) -> hedge.cancel(false));
+        }
+        return call.result;
+    }
+
+    public List<Mirror> getMirrors() {
+        return mirrors;
+    }
+
+    public long getHedgedCount() {
+        return hedged.get();
+    }
+
+    public long getHedgeWinCount() {
+        return hedgeWins.get();
+    }
+
+    public long getFailoverCount() {
+        return failovers.get();
+    }
+
+    public Map<String, Object> stats() {
+        List<Map<String, Object>> perMirror = new ArrayList<>();
+        for (Mirror mirror : mirrors) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("url", mirror.url);
+            stats.putAll(mirror.breaker.stats());
+            perMirror.add(stats);
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mirrors", perMirror);
+        stats.put("hedgeDelayMs", TimeUnit.NANOSECONDS.toMillis(hedgeDelayNanos()));
+        stats.put("hedged", hedged.get());
+        stats.put("hedgeWins", hedgeWins.get());
+        stats.put("failovers", failovers.get());
+        return stats;
+    }
+
+    // the recent p95 of successful attempts, kept within [minDelay, maxDelay]
+    synchronized long hedgeDelayNanos() {
+        int count = Math.min(latencyCount, LATENCY_SAMPLES);
+        if (count < MIN_LATENCY_SAMPLES) {
+            return maxDelayNanos;
+        }
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        long p95 = sorted[(int) Math.ceil(count * 0.95) - 1];
+        return Math.max(minDelayNanos, Math.min(maxDelayNanos, p95));
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        latencies[latencyCount++ % LATENCY_SAMPLES] = nanos;
+        if (latencyCount == 2 * LATENCY_SAMPLES) {
+            latencyCount = LATENCY_SAMPLES; // keeps the index in range without losing the position
+        }
+    }
+
+    private BulkheadFullException noMirror() {
+        long nanos = Long.MAX_VALUE;
+        for (Mirror mirror : mirrors) {
+            nanos = Math.min(nanos, mirror.breaker.remainingOpenNanos());
+        }
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(nanos) + 1);
+        return new BulkheadFullException("No healthy " + name + " mirror, retry in " + seconds + " s", seconds);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    public static class Mirror {
+        private final String url;
+        private final String authority;
+        private final CircuitBreaker breaker;
+
+        Mirror(String url, CircuitBreaker breaker) {
+            this.url = url;
+            this.authority = URI.create(url).getAuthority();
+            this.breaker = breaker;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public String getAuthority() {
+            return authority;
+        }
+
+        public CircuitBreaker getBreaker() {
+            return breaker;
+        }
+    }
+
+    private class Call<B> {
+        final Function<String, CompletableFuture<HttpResponse<B>>> attempt;
+        final CompletableFuture<HttpResponse<B>> result = new CompletableFuture<>();
+        final List<CompletableFuture<HttpResponse<B>>> attempts = new ArrayList<>();
+        int nextMirror;
+        int running;
+        Throwable lastError;
+
+        Call(Function<String, CompletableFuture<HttpResponse<B>>> attempt) {
+            this.attempt = attempt;
+        }
+
+        // false when no mirror was left to try
+        boolean launch(boolean hedge) {
+            Mirror mirror = null;
+            Throwable failure = null;
+            synchronized (this) {
+                if (result.isDone()) {
+                    return false;
+                }
+                while (mirror == null && nextMirror < mirrors.size()) {
+                    Mirror candidate = mirrors.get(nextMirror++);
+                    if (candidate.breaker.tryAcquire()) {
+                        mirror = candidate;
+                    }
+                }
+                if (mirror != null) {
+                    running++;
+                } else if (running == 0) {
+                    failure = lastError != null ? lastError : noMirror();
+                }
+            }
+            if (mirror == null) {
+                if (failure != null) {
+                    result.completeExceptionally(failure);
+                }
+                return false;
+            }
+
+            if (hedge) {
+                hedged.incrementAndGet();
+            }
+            Mirror target = mirror;
+            long started = System.nanoTime();
+            CompletableFuture<HttpResponse<B>> future;
+            try {
+                future = attempt.apply(target.url);
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            synchronized (this) {
+                attempts.add(future);
+            }
+            if (result.isDone()) {
+                future.cancel(true); // another attempt won while this one was starting
+            }
+            future.whenComplete((response, error) -> finished(target, hedge, started, response, error));
+            return true;
+        }
+
+        void finished(Mirror mirror, boolean hedge, long started, HttpResponse<B> response, Throwable error) {
+            Throwable cause = error != null ? unwrap(error) : null;
+            if (cause instanceof CancellationException) {
+                mirror.breaker.onAbandoned();
+                synchronized (this) {
+                    running--;
+                }
+                return;
+            }
+
+            if (cause == null && response.statusCode() / 100 == 2) {
+                mirror.breaker.onSuccess();
+                recordLatency(System.nanoTime() - started);
+                synchronized (this) {
+                    running--;
+                }
+                if (result.complete(response)) {
+                    if (hedge) {
+                        hedgeWins.incrementAndGet();
+                    }
+                    cancelOthers();
+                }
+                return;
+            }
+
+            // a full bulkhead says nothing about the mirror, and the next one shares the bulkhead
+            boolean rejected = cause instanceof BulkheadFullException;
+            if (rejected) {
+                mirror.breaker.onAbandoned();
+            } else {
+                mirror.breaker.onFailure();
+            }
+            boolean last;
+            synchronized (this) {
+                running--;
+                lastError = cause != null ? cause : new RuntimeException(name + " HTTP " + response.statusCode());
+                last = running == 0;
+            }
+            if (rejected) {
+                if (last) {
+                    result.completeExceptionally(lastError);
+                }
+                return;
+            }
+            if (!result.isDone() && launch(false)) {
+                failovers.incrementAndGet();
+            }
+        }
+
+        private void cancelOthers() {
+            List<CompletableFuture<HttpResponse<B>>> others;
+            synchronized (this) {
+                others = new ArrayList<>(attempts);
+            }
+            for (CompletableFuture<HttpResponse<B>> other : others) {
+                if (!other.isDone()) {
+                    other.cancel(true);
+                }
+            }
+        }
+    }
+}
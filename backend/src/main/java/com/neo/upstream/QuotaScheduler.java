@@ -0,0 +1,307 @@
+package com.neo.upstream;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Paces calls to an upstream with an hourly request quota. A token bucket refills at the quota's
+ * rate and is corrected from what the upstream reports as remaining. Calls that find no token
+ * wait in a priority queue, interactive ones ahead of background ones, and background calls never
+ * take the last {@code reserve} tokens, so prefetching cannot spend what users need.
+ * An interactive call that would wait longer than {@code maxWait}, or any call that finds the
+ * queue full, fails at once with a {@link BulkheadFullException} saying when to retry.
+ */
+public class QuotaScheduler {
+
+    public enum Priority {
+        INTERACTIVE, BACKGROUND
+    }
+
+    private static final double NANOS_PER_HOUR = 3_600e9;
+
+    private final String name;
+    private final int reserve;
+    private final int maxQueued;
+    private final long maxWaitNanos;
+    private final LongSupplier nanoTime;
+    private final ScheduledExecutorService timer;
+    private final PriorityQueue<Pending<?>> queue = new PriorityQueue<>(
+            Comparator.<Pending<?>, Priority>comparing(pending -> pending.priority)
+                    .thenComparingLong(pending -> pending.sequence));
+    private final Map<String, Pending<?>> queuedByTag = new HashMap<>();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private double requestsPerHour;
+    private double tokens;
+    private long refilledAt;
+    private int inFlight;
+    private int lastRemaining = -1;
+    private long sequence;
+    private ScheduledFuture<?> wakeUp;
+
+    public QuotaScheduler(String name, int requestsPerHour, int reserve, int maxQueued, Duration maxWait) {
+        this(name, requestsPerHour, reserve, maxQueued, maxWait, System::nanoTime);
+    }
+
+    // the bucket refills by this ticker; tests pass their own and call drain() after moving it
+    QuotaScheduler(String name, int requestsPerHour, int reserve, int maxQueued, Duration maxWait,
+            LongSupplier nanoTime) {
+        if (requestsPerHour <= 0) {
+            throw new IllegalArgumentException("requestsPerHour must be positive");
+        }
+        this.name = name;
+        this.requestsPerHour = requestsPerHour;
+        this.reserve = reserve;
+        this.maxQueued = maxQueued;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.nanoTime = nanoTime;
+        this.tokens = requestsPerHour;
+        this.refilledAt = nanoTime.getAsLong();
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name.toLowerCase().replace(' ', '-') + "-quota");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts the call as soon as the quota allows. {@code tag} names the call for {@link #promote}.
+     */
+    public <T> CompletableFuture<T> submit(String tag, Priority priority, Supplier<CompletableFuture<T>> call) {
+        Pending<T> pending = new Pending<>(tag, priority, call);
+        Pending<?> evicted = null;
+        long evictedWait = 0;
+        synchronized (this) {
+            refill();
+            pending.sequence = sequence++;
+            if (!queue.isEmpty() || !canTake(priority)) {
+                long waitNanos = waitNanos(priority);
+                if (priority == Priority.INTERACTIVE && waitNanos > maxWaitNanos) {
+                    return reject(waitNanos);
+                }
+                if (queue.size() >= maxQueued) {
+                    // a user waiting beats a prefetch; the newest prefetch has waited least
+                    evicted = priority == Priority.INTERACTIVE ? removeNewestBackground() : null;
+                    if (evicted == null) {
+                        return reject(waitNanos);
+                    }
+                    evictedWait = waitNanos(Priority.BACKGROUND);
+                }
+                queue.add(pending);
+                queuedByTag.put(tag, pending);
+                scheduleWakeUp();
+            } else {
+                tokens--;
+                inFlight++;
+                pending.dispatched = true;
+            }
+        }
+        if (evicted != null) {
+            rejected.incrementAndGet();
+            evicted.result.completeExceptionally(rejection(evictedWait));
+        }
+        if (pending.dispatched) {
+            dispatch(pending);
+        }
+        return pending.result;
+    }
+
+    /**
+     * Moves a queued background call up with the interactive ones, for when a user now waits on it.
+     */
+    public void promote(String tag) {
+        synchronized (this) {
+            Pending<?> pending = queuedByTag.get(tag);
+            if (pending == null || pending.priority == Priority.INTERACTIVE) {
+                return;
+            }
+            queue.remove(pending);
+            pending.priority = Priority.INTERACTIVE;
+            queue.add(pending);
+        }
+        drain();
+    }
+
+    /**
+     * Corrects the bucket from the quota headers of a response; pass -1 for a missing header.
+     * Calls still in flight will spend part of what the upstream reports, so they are held back.
+     */
+    public synchronized void observe(int remaining, int limit) {
+        refill();
+        if (limit > 0) {
+            requestsPerHour = limit;
+        }
+        if (remaining >= 0) {
+            lastRemaining = remaining;
+            // this call is still counted in flight, but its request is already in remaining
+            tokens = Math.max(0, Math.min(requestsPerHour, remaining - (inFlight - 1)));
+        }
+        tokens = Math.min(tokens, requestsPerHour);
+    }
+
+    /**
+     * The upstream refused a call for exceeding the quota: nothing is left until the bucket refills.
+     */
+    public synchronized void exhausted() {
+        refill();
+        tokens = 0;
+        lastRemaining = 0;
+    }
+
+    public synchronized double getTokens() {
+        refill();
+        return tokens;
+    }
+
+    public synchronized int getQueuedCount() {
+        return queue.size();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public synchronized Map<String, Object> stats() {
+        refill();
+        int interactive = 0;
+        for (Pending<?> pending : queue) {
+            if (pending.priority == Priority.INTERACTIVE) {
+                interactive++;
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requestsPerHour", (int) requestsPerHour);
+        stats.put("tokens", Math.floor(tokens * 100) / 100);
+        stats.put("reserve", reserve);
+        stats.put("lastRemaining", lastRemaining);
+        stats.put("inFlight", inFlight);
+        stats.put("queuedInteractive", interactive);
+        stats.put("queuedBackground", queue.size() - interactive);
+        stats.put("maxQueued", maxQueued);
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+
+    void drain() {
+        List<Pending<?>> ready = new ArrayList<>();
+        synchronized (this) {
+            refill();
+            while (!queue.isEmpty() && canTake(queue.peek().priority)) {
+                Pending<?> next = queue.poll();
+                queuedByTag.remove(next.tag, next);
+                tokens--;
+                inFlight++;
+                ready.add(next);
+            }
+            scheduleWakeUp();
+        }
+        ready.forEach(this::dispatch);
+    }
+
+    private <T> void dispatch(Pending<T> pending) {
+        CompletableFuture<T> upstream;
+        try {
+            upstream = pending.call.get();
+        } catch (RuntimeException e) {
+            upstream = CompletableFuture.failedFuture(e);
+        }
+        upstream.whenComplete((value, error) -> {
+            synchronized (this) {
+                inFlight--;
+            }
+            if (error != null) {
+                pending.result.completeExceptionally(error);
+            } else {
+                pending.result.complete(value);
+            }
+        });
+    }
+
+    private boolean canTake(Priority priority) {
+        return tokens >= (priority == Priority.INTERACTIVE ? 1 : 1 + reserve);
+    }
+
+    // time until a call of this priority, queued now, would get its token
+    private long waitNanos(Priority priority) {
+        int ahead = 0;
+        for (Pending<?> pending : queue) {
+            if (pending.priority.compareTo(priority) <= 0) {
+                ahead++;
+            }
+        }
+        double needed = ahead + 1 + (priority == Priority.INTERACTIVE ? 0 : reserve) - tokens;
+        return needed <= 0 ? 0 : (long) (needed * NANOS_PER_HOUR / requestsPerHour);
+    }
+
+    private Pending<?> removeNewestBackground() {
+        Pending<?> newest = null;
+        for (Pending<?> pending : queue) {
+            if (pending.priority == Priority.BACKGROUND && (newest == null || pending.sequence > newest.sequence)) {
+                newest = pending;
+            }
+        }
+        if (newest != null) {
+            queue.remove(newest);
+            queuedByTag.remove(newest.tag, newest);
+        }
+        return newest;
+    }
+
+    private <T> CompletableFuture<T> reject(long waitNanos) {
+        rejected.incrementAndGet();
+        return CompletableFuture.failedFuture(rejection(waitNanos));
+    }
+
+    private BulkheadFullException rejection(long waitNanos) {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+        return new BulkheadFullException(name + " request quota is used up, retry in " + seconds + " s", seconds);
+    }
+
+    private void refill() {
+        long now = nanoTime.getAsLong();
+        tokens = Math.min(requestsPerHour, tokens + (now - refilledAt) * requestsPerHour / NANOS_PER_HOUR);
+        refilledAt = now;
+    }
+
+    private void scheduleWakeUp() {
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+            wakeUp = null;
+        }
+        if (queue.isEmpty()) {
+            return;
+        }
+        double needed = (queue.peek().priority == Priority.INTERACTIVE ? 1 : 1 + reserve) - tokens;
+        long delay = needed <= 0 ? 0 : (long) Math.ceil(needed * NANOS_PER_HOUR / requestsPerHour);
+        wakeUp = timer.schedule(this::drain, delay, TimeUnit.NANOSECONDS);
+    }
+
+    private static class Pending<T> {
+        final String tag;
+        final Supplier<CompletableFuture<T>> call;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        Priority priority;
+        long sequence;
+        boolean dispatched;
+
+        Pending(String tag, Priority priority, Supplier<CompletableFuture<T>> call) {
+            this.tag = tag;
+            this.priority = priority;
+            this.call = call;
+        }
+    }
+}
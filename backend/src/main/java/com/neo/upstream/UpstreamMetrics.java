@@ -0,0 +1,152 @@
+package com.neo.upstream;
+
+import com.neo.cache.CacheStats;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Micrometer meters shared by the upstream clients (NASA NeoWs, Overpass): call latency by
+ * status, parse cost, and gauges over their bulkheads and caches. Everything is tagged with the
+ * upstream or cache name, so one dashboard covers both.
+ */
+@Component
+public class UpstreamMetrics {
+
+    // status tag for calls that ended without an HTTP response (timeout, refused, reset)
+    public static final String NO_RESPONSE = "error";
+    // status tag for hedged calls cancelled because another mirror answered first
+    public static final String CANCELLED = "cancelled";
+
+    private final MeterRegistry registry;
+    // meters reference their sources weakly; the stats suppliers live as long as this does
+    private final List<Supplier<CacheStats>> cacheSources = new CopyOnWriteArrayList<>();
+
+    public UpstreamMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * One upstream HTTP call, timed from when it left the bulkhead until its response arrived.
+     */
+    public void recordCall(String upstream, String status, long nanos) {
+        Timer.builder("neo.upstream.requests")
+                .description("Upstream HTTP calls")
+                .tag("upstream", upstream)
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Parsing one upstream response that held {@code elements} records.
+     */
+    public void recordParse(String upstream, long nanos, int elements) {
+        Timer.builder("neo.upstream.parse")
+                .description("Time spent parsing upstream responses")
+                .tag("upstream", upstream)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("neo.upstream.elements")
+                .description("Records per upstream response")
+                .tag("upstream", upstream)
+                .register(registry)
+                .record(elements);
+    }
+
+    public void bindBulkhead(String upstream, Bulkhead bulkhead) {
+        Gauge.builder("neo.upstream.inflight", bulkhead, Bulkhead::getActiveCount)
+                .description("Upstream calls in flight")
+                .tag("upstream", upstream)
+                .register(registry);
+        Gauge.builder("neo.upstream.queued", bulkhead, Bulkhead::getQueuedCount)
+                .description("Upstream calls waiting for a bulkhead permit")
+                .tag("upstream", upstream)
+                .register(registry);
+        FunctionCounter.builder("neo.upstream.rejected", bulkhead, Bulkhead::getRejectedCount)
+                .description("Upstream calls turned away by a full bulkhead")
+                .tag("upstream", upstream)
+                .register(registry);
+    }
+
+    public void bindMirrors(String upstream, HedgedMirrors mirrors) {
+        FunctionCounter.builder("neo.upstream.hedges", mirrors, HedgedMirrors::getHedgedCount)
+                .description("Duplicate calls sent to a second mirror after the hedge delay")
+                .tag("upstream", upstream)
+                .register(registry);
+        FunctionCounter.builder("neo.upstream.hedge.wins", mirrors, HedgedMirrors::getHedgeWinCount)
+                .description("Hedged calls that answered first")
+                .tag("upstream", upstream)
+                .register(registry);
+        FunctionCounter.builder("neo.upstream.failovers", mirrors, HedgedMirrors::getFailoverCount)
+                .description("Calls retried on the next mirror after a failure")
+                .tag("upstream", upstream)
+                .register(registry);
+        for (HedgedMirrors.Mirror mirror : mirrors.getMirrors()) {
+            Gauge.builder("neo.upstream.circuit.open", mirror.getBreaker(),
+                            breaker -> breaker.getState() == CircuitBreaker.State.OPEN ? 1 : 0)
+                    .description("1 while the mirror's circuit breaker is open")
+                    .tag("upstream", upstream)
+                    .tag("mirror", mirror.getAuthority())
+                    .register(registry);
+        }
+    }
+
+    public void bindQuota(String upstream, QuotaScheduler quota) {
+        Gauge.builder("neo.upstream.quota.tokens", quota, QuotaScheduler::getTokens)
+                .description("Requests the upstream quota allows right now")
+                .tag("upstream", upstream)
+                .register(registry);
+        Gauge.builder("neo.upstream.quota.queued", quota, QuotaScheduler::getQueuedCount)
+                .description("Upstream calls waiting for quota")
+                .tag("upstream", upstream)
+                .register(registry);
+        FunctionCounter.builder("neo.upstream.quota.rejected", quota, QuotaScheduler::getRejectedCount)
+                .description("Upstream calls turned away for lack of quota")
+                .tag("upstream", upstream)
+                .register(registry);
+    }
+
+    /**
+     * Cache meters under Micrometer's usual {@code cache.*} names, read from a stats snapshot
+     * at scrape time so the cache itself carries no extra bookkeeping.
+     */
+    public void bindCache(String cache, Supplier<CacheStats> stats) {
+        cacheSources.add(stats);
+        cacheGets(cache, "hit", stats, CacheStats::getHits);
+        cacheGets(cache, "stale", stats, CacheStats::getStaleHits);
+        cacheGets(cache, "miss", stats, CacheStats::getMisses);
+        FunctionCounter.builder("cache.evictions", stats, s -> s.get().getEvictions() + s.get().getExpirations())
+                .description("Entries evicted or expired")
+                .tag("cache", cache)
+                .register(registry);
+        Gauge.builder("cache.size", stats, s -> s.get().getSize())
+                .description("Entries in the cache")
+                .tag("cache", cache)
+                .register(registry);
+        Gauge.builder("cache.weight", stats, s -> s.get().getWeightBytes())
+                .description("Estimated heap held by the cache")
+                .tag("cache", cache)
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private void cacheGets(String cache, String result, Supplier<CacheStats> stats,
+            ToLongFunction<CacheStats> count) {
+        FunctionCounter.builder("cache.gets", stats, s -> count.applyAsLong(s.get()))
+                .description("Cache lookups by result")
+                .tag("cache", cache)
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,160 @@
+package com.neo.archive;
+
+import com.neo.config.ArchiveConfig;
+import com.neo.model.NearEarthObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NeoArchiveTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 3, 1);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reopensWithEveryDayAndSharedStrings() throws IOException {
+        NeoArchive archive = open();
+        archive.append(FIRST_DAY, neos(FIRST_DAY, 0, 5));
+        archive.append(FIRST_DAY.plusDays(1), List.of());
+        long stringBytes = Files.size(dir.resolve("neo-archive.str"));
+        // the same NEOs again on a later day add no strings
+        archive.append(FIRST_DAY.plusDays(2), neos(FIRST_DAY.plusDays(2), 0, 5));
+        assertThat(Files.size(dir.resolve("neo-archive.str"))).isEqualTo(stringBytes);
+        archive.close();
+
+        NeoArchive reopened = open();
+        try {
+            assertThat(reopened.getArchivedDayCount()).isEqualTo(3);
+            assertThat(reopened.read(FIRST_DAY.plusDays(1))).isEmpty();
+            assertThat(reopened.read(FIRST_DAY.plusDays(3))).isNull();
+            assertSameNeos(reopened.read(FIRST_DAY.plusDays(2)), neos(FIRST_DAY.plusDays(2), 0, 5));
+
+            // appending after a reopen still reuses the strings already on disk
+            reopened.append(FIRST_DAY.plusDays(3), neos(FIRST_DAY.plusDays(3), 3, 7));
+            // only NEOs 5 and 6 are new: "300000N" and "(2024 ÅBN)", each behind a length
+            assertThat(Files.size(dir.resolve("neo-archive.str"))).isEqualTo(stringBytes + 2 * (4 + 7 + 4 + 11));
+            Map<LocalDate, List<NearEarthObject>> all = reopened.readAll();
+            assertThat(all.keySet()).containsExactly(FIRST_DAY, FIRST_DAY.plusDays(1), FIRST_DAY.plusDays(2),
+                    FIRST_DAY.plusDays(3));
+            assertSameNeos(all.get(FIRST_DAY.plusDays(3)), neos(FIRST_DAY.plusDays(3), 3, 7));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void reopensAfterATornTail() throws IOException {
+        NeoArchive archive = open();
+        archive.append(FIRST_DAY, neos(FIRST_DAY, 0, 4));
+        archive.readAll(); // maps the data file with headroom past the last record
+        archive.close();
+        long dataBytes = 16 + 5 * 48;
+        long stringBytes = Files.size(dir.resolve("neo-archive.str"));
+
+        // an append cut short: two records without their marker plus half a record, and half a string
+        try (FileChannel data = FileChannel.open(dir.resolve("neo-archive.dat"), StandardOpenOption.WRITE)) {
+            ByteBuffer torn = ByteBuffer.allocate(2 * 48 + 20).order(ByteOrder.LITTLE_ENDIAN);
+            torn.putInt((int) FIRST_DAY.plusDays(1).toEpochDay()).putInt(0).putInt(8).putInt(8);
+            torn.position(48).putInt((int) FIRST_DAY.plusDays(1).toEpochDay()).putInt(0).putInt(8).putInt(8);
+            data.write(torn.position(0), dataBytes);
+        }
+        try (FileChannel strings = FileChannel.open(dir.resolve("neo-archive.str"), StandardOpenOption.APPEND)) {
+            strings.write(ByteBuffer.allocate(6).order(ByteOrder.LITTLE_ENDIAN).putInt(40).put((byte) 'x').flip());
+        }
+
+        NeoArchive reopened = open();
+        try {
+            assertThat(Files.size(dir.resolve("neo-archive.dat"))).isEqualTo(dataBytes);
+            assertThat(Files.size(dir.resolve("neo-archive.str"))).isEqualTo(stringBytes);
+            assertThat(reopened.getArchivedDayCount()).isEqualTo(1);
+            assertSameNeos(reopened.read(FIRST_DAY), neos(FIRST_DAY, 0, 4));
+
+            reopened.append(FIRST_DAY.plusDays(1), neos(FIRST_DAY.plusDays(1), 2, 6));
+        } finally {
+            reopened.close();
+        }
+
+        NeoArchive again = open();
+        try {
+            assertThat(again.getArchivedDayCount()).isEqualTo(2);
+            assertSameNeos(again.read(FIRST_DAY), neos(FIRST_DAY, 0, 4));
+            assertSameNeos(again.read(FIRST_DAY.plusDays(1)), neos(FIRST_DAY.plusDays(1), 2, 6));
+        } finally {
+            again.close();
+        }
+    }
+
+    @Test
+    void dropsADayWhoseStringsAreMissing() throws IOException {
+        NeoArchive archive = open();
+        archive.append(FIRST_DAY, neos(FIRST_DAY, 0, 3));
+        archive.close();
+        long stringBytes = Files.size(dir.resolve("neo-archive.str"));
+
+        archive = open();
+        archive.append(FIRST_DAY.plusDays(1), neos(FIRST_DAY.plusDays(1), 10, 13));
+        archive.close();
+        // the second day's records made it to disk but its new strings did not
+        try (FileChannel strings = FileChannel.open(dir.resolve("neo-archive.str"), StandardOpenOption.WRITE)) {
+            strings.truncate(stringBytes);
+        }
+
+        NeoArchive reopened = open();
+        try {
+            assertThat(reopened.getArchivedDayCount()).isEqualTo(1);
+            assertThat(reopened.contains(FIRST_DAY.plusDays(1))).isFalse();
+            assertSameNeos(reopened.read(FIRST_DAY), neos(FIRST_DAY, 0, 3));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private static void assertSameNeos(List<NearEarthObject> actual, List<NearEarthObject> expected) {
+        assertThat(actual).hasSameSizeAs(expected);
+        for (int i = 0; i < expected.size(); i++) {
+            NearEarthObject a = actual.get(i);
+            NearEarthObject e = expected.get(i);
+            assertThat(a.getId()).isEqualTo(e.getId());
+            assertThat(a.getName()).isEqualTo(e.getName());
+            assertThat(a.getDiameterMinMeters()).isEqualTo(e.getDiameterMinMeters());
+            assertThat(a.getDiameterMaxMeters()).isEqualTo(e.getDiameterMaxMeters());
+            assertThat(a.getVelocityKmPerSec()).isEqualTo(e.getVelocityKmPerSec());
+            assertThat(a.getMissDistanceKm()).isEqualTo(e.getMissDistanceKm());
+            assertThat(a.isPotentiallyHazardous()).isEqualTo(e.isPotentiallyHazardous());
+            assertThat(a.getCloseApproachDate()).isEqualTo(e.getCloseApproachDate());
+        }
+    }
+
+    // NEOs numbered from first to last, exclusive; names include a multi-byte character
+    private static List<NearEarthObject> neos(LocalDate day, int first, int last) {
+        List<NearEarthObject> neos = new ArrayList<>();
+        for (int i = first; i < last; i++) {
+            neos.add(new NearEarthObject(String.valueOf(3000000 + i), "(2024 ÅB" + i + ")", 10 + i, 20 + i,
+                    5 + i * 0.5, 1e6 * (i + 1), i % 2 == 0, day.toString()));
+        }
+        return neos;
+    }
+
+    private NeoArchive open() {
+        ArchiveConfig config = new ArchiveConfig();
+        ReflectionTestUtils.setField(config, "enabled", true);
+        ReflectionTestUtils.setField(config, "directory", dir.toString());
+        return new NeoArchive(config);
+    }
+}
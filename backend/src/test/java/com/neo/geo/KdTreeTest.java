@@ -0,0 +1,90 @@
+package com.neo.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KdTreeTest {
+
+    @Test
+    void boxQueryMatchesAScan() {
+        Random random = new Random(11);
+        double[] lat = new double[5000];
+        double[] lng = new double[5000];
+        for (int i = 0; i < lat.length; i++) {
+            lat[i] = 40 + random.nextDouble() * 2;
+            lng[i] = 28 + random.nextDouble() * 2;
+        }
+        KdTree tree = new KdTree(lat, lng);
+        assertThat(tree.size()).isEqualTo(lat.length);
+
+        for (int q = 0; q < 50; q++) {
+            double south = 40 + random.nextDouble() * 2;
+            double west = 28 + random.nextDouble() * 2;
+            BoundingBox box = new BoundingBox(south, west, south + random.nextDouble() * 0.5, west + random.nextDouble() * 0.5);
+
+            List<Integer> found = new ArrayList<>();
+            tree.forEachWithin(box, found::add);
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < lat.length; i++) {
+                if (box.contains(lat[i], lng[i])) {
+                    expected.add(i);
+                }
+            }
+            assertThat(found).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    @Test
+    void radiusCountMatchesAHaversineScan() {
+        Random random = new Random(12);
+        double[] lat = new double[5000];
+        double[] lng = new double[5000];
+        for (int i = 0; i < lat.length; i++) {
+            lat[i] = -60 + random.nextDouble() * 130;
+            lng[i] = -30 + random.nextDouble() * 60;
+        }
+        KdTree tree = new KdTree(lat, lng);
+
+        for (int q = 0; q < 50; q++) {
+            double centerLat = -60 + random.nextDouble() * 130;
+            double centerLng = -30 + random.nextDouble() * 60;
+            double radiusKm = 50 + random.nextDouble() * 1500;
+            int expected = 0;
+            for (int i = 0; i < lat.length; i++) {
+                if (GeoMath.haversineDistance(centerLat, centerLng, lat[i], lng[i]) <= radiusKm) {
+                    expected++;
+                }
+            }
+            assertThat(tree.countWithin(centerLat, centerLng, radiusKm))
+                    .as("%s, %s radius %s km", centerLat, centerLng, radiusKm)
+                    .isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void keepsCoincidentPointsAndOriginalIndexes() {
+        double[] lat = {41, 41, 41, 10, 41};
+        double[] lng = {29, 29, 29, 10, 29};
+        KdTree tree = new KdTree(lat, lng);
+
+        List<Integer> found = new ArrayList<>();
+        tree.forEachWithin(new BoundingBox(40.9, 28.9, 41.1, 29.1), found::add);
+        assertThat(found).containsExactlyInAnyOrder(0, 1, 2, 4);
+        assertThat(tree.countWithin(41, 29, 1)).isEqualTo(4);
+        assertThat(tree.countWithin(10, 10, 1)).isEqualTo(1);
+    }
+
+    @Test
+    void emptyTreeFindsNothing() {
+        KdTree tree = new KdTree(new double[0], new double[0]);
+        List<Integer> found = new ArrayList<>();
+        tree.forEachWithin(new BoundingBox(-90, -180, 90, 180), found::add);
+        assertThat(found).isEmpty();
+        assertThat(tree.countWithin(0, 0, 20_000)).isZero();
+    }
+}
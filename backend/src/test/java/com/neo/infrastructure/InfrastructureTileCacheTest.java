@@ -0,0 +1,66 @@
+package com.neo.infrastructure;
+
+import com.neo.geo.BoundingBox;
+import com.neo.geo.TileKey;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InfrastructureTileCacheTest {
+
+    private static final int ZOOM = 12;
+
+    @Test
+    void versionHoldsUntilATileIsReloaded() throws InterruptedException {
+        InfrastructureTileCache cache = new InfrastructureTileCache(ZOOM, 1000, 1 << 20, Duration.ofMillis(200),
+                16, 2, Duration.ofSeconds(5));
+        List<TileKey> wanted = TileKey.covering(41.01, 28.98, 3, ZOOM);
+        AtomicInteger fetches = new AtomicInteger();
+        Function<BoundingBox, CompletableFuture<FeatureTable>> fetcher = box -> {
+            fetches.incrementAndGet();
+            return CompletableFuture.completedFuture(FeatureTable.of(features(box)));
+        };
+        assertThat(cache.version(wanted)).isNull();
+
+        InfrastructureTileCache.TileLookup loaded = cache.load(wanted, fetcher).join();
+        assertThat(loaded.getVersion()).hasSize(wanted.size()).doesNotHaveDuplicates();
+        assertThat(cache.version(wanted)).isEqualTo(loaded.getVersion());
+        assertThat(cache.load(wanted, fetcher).join().getVersion()).isEqualTo(loaded.getVersion());
+        assertThat(fetches).hasValue(1);
+
+        // once the tiles expire the version is gone, and the reload gets a new one
+        Thread.sleep(250);
+        assertThat(cache.version(wanted)).isNull();
+        List<Long> reloaded = cache.load(wanted, fetcher).join().getVersion();
+        assertThat(fetches).hasValue(2);
+        assertThat(reloaded).isNotNull().doesNotContainAnyElementsOf(loaded.getVersion());
+        assertThat(cache.version(wanted)).isEqualTo(reloaded);
+    }
+
+    @Test
+    void aFailedTileLeavesNoVersion() {
+        InfrastructureTileCache cache = new InfrastructureTileCache(ZOOM, 1000, 1 << 20, Duration.ofMinutes(5),
+                16, 2, Duration.ofSeconds(5));
+        List<TileKey> wanted = TileKey.covering(41.01, 28.98, 3, ZOOM);
+        InfrastructureTileCache.TileLookup failed = cache.load(wanted,
+                box -> CompletableFuture.failedFuture(new IllegalStateException("down"))).join();
+        assertThat(failed.getFailedTiles()).isEqualTo(wanted.size());
+        assertThat(failed.getVersion()).isNull();
+        assertThat(cache.version(wanted)).isNull();
+    }
+
+    // one feature at the middle of the box
+    private static List<InfrastructureFeature> features(BoundingBox box) {
+        List<InfrastructureFeature> features = new ArrayList<>();
+        features.add(new InfrastructureFeature(InfrastructureFeature.osmKey(InfrastructureFeature.NODE, 1),
+                "hospital", "Clinic", (box.getSouth() + box.getNorth()) / 2, (box.getWest() + box.getEast()) / 2));
+        return features;
+    }
+}
@@ -0,0 +1,134 @@
+package com.neo.infrastructure;
+
+import com.neo.config.InfrastructureConfig;
+import com.neo.geo.BoundingBox;
+import com.neo.geo.GeoMath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalInfrastructureIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void sampleQueriesMatchABruteForceScan() throws IOException {
+        List<InfrastructureFeature> all;
+        try (InputStream in = getClass().getResourceAsStream("/osm/sample-istanbul.osm")) {
+            all = new OsmExtractReader().read(in);
+        }
+        LocalInfrastructureIndex index = index(new ClassPathResource("osm/sample-istanbul.osm"));
+        assertThat(index.size()).isEqualTo(all.size());
+
+        double[][] circles = {{41.01, 28.98, 2}, {41.01, 28.98, 10}, {41.05, 29.05, 25}, {40.98, 28.80, 5},
+                {41.2, 29.3, 1}, {41.0, 29.0, 200}};
+        for (double[] circle : circles) {
+            assertMatchesScan(index, all, circle[0], circle[1], circle[2]);
+        }
+    }
+
+    @Test
+    void circlesAcrossTheDatelineSeeBothSides() throws IOException {
+        // points either side of 180°, around Fiji
+        Random random = new Random(5);
+        List<InfrastructureFeature> all = new ArrayList<>();
+        for (int i = 1; i <= 2000; i++) {
+            double lat = -18 + random.nextDouble() * 2;
+            double lng = random.nextBoolean() ? 178 + random.nextDouble() * 2 : -180 + random.nextDouble() * 2;
+            all.add(new InfrastructureFeature(InfrastructureFeature.osmKey(InfrastructureFeature.NODE, i),
+                    "hospital", null, lat, lng));
+        }
+        Path extract = writeGzipExtract(all);
+        LocalInfrastructureIndex index = index(new FileSystemResource(extract));
+        assertThat(index.size()).isEqualTo(all.size());
+        assertThat(index.getBounds().getWest()).isLessThan(-179);
+        assertThat(index.getBounds().getEast()).isGreaterThan(179);
+
+        // east of the line hanging west over it, west of the line hanging east, and one that stays clear
+        double[][] circles = {{-17, 179.9, 30}, {-17, 179.99, 120}, {-16.5, -179.95, 30}, {-17.5, -179.5, 90},
+                {-17, 178.6, 20}};
+        for (double[] circle : circles) {
+            int crossing = assertMatchesScan(index, all, circle[0], circle[1], circle[2]);
+            if (circle[2] > 25 && Math.abs(circle[1]) > 179) {
+                assertThat(crossing).as("features across the line from %s", circle[1]).isPositive();
+            }
+        }
+    }
+
+    // returns how many matches lie on the other side of the dateline from the center
+    private static int assertMatchesScan(LocalInfrastructureIndex index, List<InfrastructureFeature> all,
+            double lat, double lng, double radiusKm) {
+        FeatureTable candidates = index.findCandidates(lat, lng, radiusKm).join().getFeatures();
+        Set<Long> found = new HashSet<>();
+        for (int row = 0; row < candidates.size(); row++) {
+            found.add(candidates.osmId(row));
+        }
+
+        BoundingBox box = GeoMath.circleBounds(lat, lng, radiusKm);
+        Set<Long> inBox = new HashSet<>();
+        Set<Long> inCircle = new HashSet<>();
+        int crossing = 0;
+        for (InfrastructureFeature feature : all) {
+            double fLng = feature.getLng();
+            if (box.contains(feature.getLat(), fLng) || box.contains(feature.getLat(), fLng + 360)
+                    || box.contains(feature.getLat(), fLng - 360)) {
+                inBox.add(feature.getOsmId());
+            }
+            if (GeoMath.haversineDistance(lat, lng, feature.getLat(), fLng) <= radiusKm) {
+                inCircle.add(feature.getOsmId());
+                if (Math.signum(fLng) != Math.signum(lng)) {
+                    crossing++;
+                }
+            }
+        }
+
+        String circle = lat + ", " + lng + " radius " + radiusKm + " km";
+        assertThat(found).as("candidates for %s", circle).isEqualTo(inBox);
+        assertThat(found).as("candidates for %s", circle).containsAll(inCircle);
+        assertThat(candidates.size()).as("no duplicates for %s", circle).isEqualTo(found.size());
+        assertThat(index.countWithin(lat, lng, radiusKm)).as("count for %s", circle).isEqualTo(inCircle.size());
+        return crossing;
+    }
+
+    private Path writeGzipExtract(List<InfrastructureFeature> features) throws IOException {
+        Path file = dir.resolve("dateline.osm.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file));
+             Writer xml = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            xml.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<osm version=\"0.6\">\n");
+            for (InfrastructureFeature feature : features) {
+                long id = feature.getOsmId() & ((1L << 56) - 1);
+                xml.write("  <node id=\"" + id + "\" lat=\"" + feature.getLat() + "\" lon=\"" + feature.getLng()
+                        + "\"><tag k=\"amenity\" v=\"" + feature.getType() + "\"/></node>\n");
+            }
+            xml.write("</osm>\n");
+        }
+        return file;
+    }
+
+    private static LocalInfrastructureIndex index(Resource osmFile) {
+        InfrastructureConfig config = new InfrastructureConfig();
+        ReflectionTestUtils.setField(config, "osmFile", osmFile);
+        return new LocalInfrastructureIndex(config);
+    }
+}
@@ -0,0 +1,133 @@
+package com.neo.infrastructure;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OsmExtractReaderTest {
+
+    private static final String SAMPLE = "/osm/sample-istanbul.osm";
+
+    @Test
+    void readsTheSampleLikeAPlainDomWalk() throws Exception {
+        Map<Long, double[]> expected = expectedFeatures();
+        List<InfrastructureFeature> features;
+        try (InputStream in = getClass().getResourceAsStream(SAMPLE)) {
+            features = new OsmExtractReader().read(in);
+        }
+
+        Map<Long, double[]> read = new HashMap<>();
+        for (InfrastructureFeature feature : features) {
+            read.put(feature.getOsmId(), new double[]{feature.getLat(), feature.getLng()});
+        }
+        assertThat(read.keySet()).containsExactlyInAnyOrderElementsOf(expected.keySet());
+        for (Map.Entry<Long, double[]> entry : expected.entrySet()) {
+            assertThat(read.get(entry.getKey())).as("element %x", entry.getKey()).containsExactly(entry.getValue());
+        }
+        // both kinds are in the sample, and a way's name survives the UTF-8 decode
+        assertThat(features).anyMatch(f -> f.getOsmId() >>> 56 == InfrastructureFeature.WAY
+                && "İkitelli Industrial Zone".equals(f.getName()));
+        assertThat(features).anyMatch(f -> f.getOsmId() >>> 56 == InfrastructureFeature.NODE);
+    }
+
+    @Test
+    void placesWaysAtTheirBoundingBoxCenter() throws IOException {
+        // node ids out of order, and one way ref outside the extract
+        List<InfrastructureFeature> features = read("""
+                <osm version="0.6">
+                  <node id="30" lat="41.0" lon="29.0"/>
+                  <node id="10" lat="41.2" lon="29.6"/>
+                  <node id="20" lat="41.1" lon="28.8"/>
+                  <way id="7">
+                    <nd ref="10"/><nd ref="20"/><nd ref="30"/><nd ref="99"/><nd ref="10"/>
+                    <tag k="landuse" v="industrial"/>
+                  </way>
+                  <way id="8">
+                    <nd ref="98"/><nd ref="99"/>
+                    <tag k="amenity" v="hospital"/>
+                  </way>
+                </osm>
+                """);
+
+        assertThat(features).hasSize(1);
+        InfrastructureFeature way = features.get(0);
+        assertThat(way.getOsmId()).isEqualTo(InfrastructureFeature.osmKey(InfrastructureFeature.WAY, 7));
+        assertThat(way.getLat()).isEqualTo((41.0 + 41.2) / 2);
+        assertThat(way.getLng()).isEqualTo((28.8 + 29.6) / 2);
+        assertThat(way.getType()).isEqualTo("industrial");
+    }
+
+    @Test
+    void rejectsMalformedXml() {
+        assertThatThrownBy(() -> read("<osm><node id=\"1\" lat=\"1\" lon=\"1\"></osm>"))
+                .isInstanceOf(IOException.class)
+                .hasMessageStartingWith("Malformed OSM extract");
+    }
+
+    private static List<InfrastructureFeature> read(String osm) throws IOException {
+        return new OsmExtractReader().read(new ByteArrayInputStream(osm.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // every selected node at its position and every selected way at the center of its nodes' box
+    private Map<Long, double[]> expectedFeatures() throws Exception {
+        Document doc;
+        try (InputStream in = getClass().getResourceAsStream(SAMPLE)) {
+            doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(in);
+        }
+        Map<Long, double[]> nodes = new HashMap<>();
+        Map<Long, double[]> expected = new HashMap<>();
+        NodeList nodeElements = doc.getElementsByTagName("node");
+        for (int i = 0; i < nodeElements.getLength(); i++) {
+            Element node = (Element) nodeElements.item(i);
+            long id = Long.parseLong(node.getAttribute("id"));
+            double[] position = {Double.parseDouble(node.getAttribute("lat")), Double.parseDouble(node.getAttribute("lon"))};
+            nodes.put(id, position);
+            if (selected(node, false)) {
+                expected.put(InfrastructureFeature.osmKey(InfrastructureFeature.NODE, id), position);
+            }
+        }
+        NodeList wayElements = doc.getElementsByTagName("way");
+        for (int i = 0; i < wayElements.getLength(); i++) {
+            Element way = (Element) wayElements.item(i);
+            if (!selected(way, true)) {
+                continue;
+            }
+            double south = 90, west = 180, north = -90, east = -180;
+            NodeList refs = way.getElementsByTagName("nd");
+            for (int r = 0; r < refs.getLength(); r++) {
+                double[] node = nodes.get(Long.parseLong(((Element) refs.item(r)).getAttribute("ref")));
+                south = Math.min(south, node[0]);
+                north = Math.max(north, node[0]);
+                west = Math.min(west, node[1]);
+                east = Math.max(east, node[1]);
+            }
+            expected.put(InfrastructureFeature.osmKey(InfrastructureFeature.WAY, Long.parseLong(way.getAttribute("id"))),
+                    new double[]{(south + north) / 2, (west + east) / 2});
+        }
+        return expected;
+    }
+
+    // InfrastructureTags is held to the Overpass query by OverpassQueryTest
+    private static boolean selected(Element element, boolean way) {
+        Map<String, String> tags = new HashMap<>();
+        NodeList tagElements = element.getElementsByTagName("tag");
+        for (int t = 0; t < tagElements.getLength(); t++) {
+            Element tag = (Element) tagElements.item(t);
+            tags.put(tag.getAttribute("k"), tag.getAttribute("v"));
+        }
+        return InfrastructureTags.isSelected(way, tags.get("amenity"), tags.get("landuse"), tags.get("building"));
+    }
+}
@@ -0,0 +1,60 @@
+package com.neo.physics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ImpactBatchTest {
+
+    // {diameter m, velocity km/s}: a small meteoroid, a Tunguska-class body, Chelyabinsk, a large NEO
+    private static final double[][] CASES = {
+            {1, 11}, {50, 15}, {19, 19.2}, {340, 12.6}, {1000, 30}, {10_000, 72}
+    };
+
+    @Test
+    void matchesScalarFormulas() {
+        ImpactBatch batch = new ImpactBatch(CASES.length);
+        for (int i = 0; i < CASES.length; i++) {
+            batch.set(i, CASES[i][0], CASES[i][1]);
+        }
+        batch.compute();
+
+        for (int i = 0; i < CASES.length; i++) {
+            assertMatchesScalar(batch, i, CASES[i][0], CASES[i][1]);
+        }
+    }
+
+    @Test
+    void parallelPathMatchesScalarFormulas() {
+        int size = ImpactBatch.PARALLEL_THRESHOLD + 1000;
+        ImpactBatch batch = new ImpactBatch(size);
+        for (int i = 0; i < size; i++) {
+            double[] c = CASES[i % CASES.length];
+            batch.set(i, c[0] * (1 + i * 1e-6), c[1]);
+        }
+        batch.compute();
+
+        for (int i = 0; i < size; i += 997) {
+            double[] c = CASES[i % CASES.length];
+            assertMatchesScalar(batch, i, c[0] * (1 + i * 1e-6), c[1]);
+        }
+    }
+
+    private static void assertMatchesScalar(ImpactBatch batch, int i, double diameter, double velocity) {
+        double energy = ImpactPhysics.kineticEnergy(diameter, velocity);
+        assertThat(batch.getMassKg()[i]).isCloseTo(ImpactPhysics.mass(diameter), within(ulps(ImpactPhysics.mass(diameter))));
+        assertThat(batch.getKineticEnergyJoules()[i]).isCloseTo(energy, within(ulps(energy)));
+        assertThat(batch.getCraterDiameterKm()[i])
+                .isCloseTo(ImpactPhysics.craterDiameterKm(energy), within(ulps(ImpactPhysics.craterDiameterKm(energy))));
+        assertThat(batch.getDestructionRadiusKm()[i])
+                .isCloseTo(ImpactPhysics.destructionRadiusKm(energy), within(ulps(ImpactPhysics.destructionRadiusKm(energy))));
+        assertThat(batch.getEarthquakeMagnitude()[i])
+                .isCloseTo(ImpactPhysics.earthquakeMagnitude(energy), within(ulps(ImpactPhysics.earthquakeMagnitude(energy))));
+    }
+
+    // the two paths may group multiplications differently, so allow a few ulps
+    private static double ulps(double value) {
+        return 4 * Math.ulp(value);
+    }
+}
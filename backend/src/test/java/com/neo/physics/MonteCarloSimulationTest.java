@@ -0,0 +1,105 @@
+package com.neo.physics;
+
+import com.neo.model.Distribution;
+import com.neo.model.SimulationResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class MonteCarloSimulationTest {
+
+    // density classes and their odds, as sampled by the simulation
+    private static final double[] DENSITY = {1300, 2700, 5300};
+    private static final double[] ODDS = {0.35, 0.55, 0.10};
+
+    private static final List<Function<SimulationResult, Distribution>> DISTRIBUTIONS = List.of(
+            SimulationResult::getKineticEnergyJoules, SimulationResult::getCraterDiameterKm,
+            SimulationResult::getEarthquakeMagnitude, SimulationResult::getDestructionRadiusKm,
+            SimulationResult::getThermalRadiusKm, SimulationResult::getPressureRadiusKm,
+            SimulationResult::getShrapnelRadiusKm);
+
+    @Test
+    void sameSeedGivesSameResultOnAnyPool() throws Exception {
+        SimulationRequest request = request(20, 140, 2 * MonteCarloSimulation.CHUNK_SAMPLES + 1234);
+        request.setSeed(42L);
+
+        SimulationResult common = MonteCarloSimulation.run(request, null);
+        ForkJoinPool single = new ForkJoinPool(1);
+        SimulationResult sequential;
+        try {
+            sequential = single.submit(() -> MonteCarloSimulation.run(request, null)).get();
+        } finally {
+            single.shutdown();
+        }
+
+        assertThat(sequential.getSeed()).isEqualTo(42L);
+        for (Function<SimulationResult, Distribution> distribution : DISTRIBUTIONS) {
+            Distribution a = distribution.apply(common);
+            Distribution b = distribution.apply(sequential);
+            assertThat(b.getMean()).isEqualTo(a.getMean());
+            assertThat(b.getPercentiles()).isEqualTo(a.getPercentiles());
+            assertThat(b.getBinEdges()).isEqualTo(a.getBinEdges());
+            assertThat(b.getCounts()).isEqualTo(a.getCounts());
+        }
+    }
+
+    @Test
+    void differentSeedsDiffer() {
+        SimulationRequest request = request(20, 140, 10_000);
+        request.setSeed(1L);
+        SimulationResult first = MonteCarloSimulation.run(request, null);
+        request.setSeed(2L);
+        SimulationResult second = MonteCarloSimulation.run(request, null);
+
+        assertThat(second.getKineticEnergyJoules().getCounts()).isNotEqualTo(first.getKineticEnergyJoules().getCounts());
+    }
+
+    @Test
+    void fixedDiameterMeansMatchClosedForm() {
+        double diameter = 120;
+        SimulationRequest request = request(diameter, diameter, 3 * MonteCarloSimulation.CHUNK_SAMPLES);
+        double velocity = request.getVelocityKmPerSec();
+        request.setSeed(7L);
+        SimulationResult result = MonteCarloSimulation.run(request, null);
+
+        // only the density class varies, and the crater factor u^(1/6) has mean 6/7
+        assertThat(result.getKineticEnergyJoules().getMean())
+                .isCloseTo(expected(diameter, velocity, e -> e), within(relative(expected(diameter, velocity, e -> e))));
+        double crater = 6.0 / 7 * expected(diameter, velocity, ImpactPhysics::craterDiameterKm);
+        assertThat(result.getCraterDiameterKm().getMean()).isCloseTo(crater, within(relative(crater)));
+        double magnitude = expected(diameter, velocity, ImpactPhysics::earthquakeMagnitude);
+        assertThat(result.getEarthquakeMagnitude().getMean()).isCloseTo(magnitude, within(0.01));
+        double destruction = expected(diameter, velocity, ImpactPhysics::destructionRadiusKm);
+        assertThat(result.getDestructionRadiusKm().getMean()).isCloseTo(destruction, within(relative(destruction)));
+        double thermal = ImpactPhysics.THERMAL_RADIUS_FACTOR * expected(diameter, velocity, ImpactPhysics::zoneScaleKm);
+        assertThat(result.getThermalRadiusKm().getMean()).isCloseTo(thermal, within(relative(thermal)));
+    }
+
+    private static double expected(double diameter, double velocity, DoubleUnaryOperator of) {
+        double mean = 0;
+        for (int k = 0; k < DENSITY.length; k++) {
+            mean += ODDS[k] * of.applyAsDouble(ImpactPhysics.kineticEnergy(diameter, velocity, DENSITY[k]));
+        }
+        return mean;
+    }
+
+    // 1%: several standard errors at ~200k samples
+    private static double relative(double value) {
+        return Math.abs(value) * 0.01;
+    }
+
+    private static SimulationRequest request(double diameterMin, double diameterMax, int samples) {
+        SimulationRequest request = new SimulationRequest();
+        request.setDiameterMinMeters(diameterMin);
+        request.setDiameterMaxMeters(diameterMax);
+        request.setVelocityKmPerSec(17);
+        request.setSamples(samples);
+        return request;
+    }
+}
@@ -0,0 +1,165 @@
+package com.neo.population;
+
+import com.neo.config.PopulationConfig;
+import com.neo.geo.GeoMath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.function.IntBinaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PopulationRasterTest {
+
+    // 120 x 90 cells of 0.01° (about 1.1 km) with its north-west corner at 41.0 N, 28.5 E
+    private static final int COLUMNS = 120;
+    private static final int ROWS = 90;
+    private static final double WEST = 28.5;
+    private static final double SOUTH = 40.1;
+    private static final double CELL = 0.01;
+    // brute force samples per cell side
+    private static final int SUBCELLS = 24;
+
+    private static final IntBinaryOperator PEOPLE = (row, col) -> 10 + (row * 37 + col * 11) % 90;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void matchesBruteForceInsideTheGrid() throws IOException {
+        PopulationRaster raster = raster(writeGrid("grid.asc", PEOPLE));
+        try {
+            for (double radiusKm : new double[]{0.3, 2, 7.5, 25}) {
+                double expected = bruteForce(40.55, 29.1, radiusKm, PEOPLE);
+                assertThat(raster.estimate(40.55, 29.1, radiusKm))
+                        .as("radius %s km", radiusKm)
+                        .isCloseTo(expected, within(tolerance(expected)));
+            }
+        } finally {
+            raster.close();
+        }
+    }
+
+    @Test
+    void clipsCirclesCrossingTheGridEdge() throws IOException {
+        PopulationRaster raster = raster(writeGrid("grid.asc", PEOPLE));
+        try {
+            // near the north-west corner, on the east edge, and centred outside the south edge
+            double[][] points = {{40.995, 28.505}, {40.5, 29.69}, {40.09, 29.0}};
+            for (double[] point : points) {
+                for (double radiusKm : new double[]{1.5, 12}) {
+                    double expected = bruteForce(point[0], point[1], radiusKm, PEOPLE);
+                    assertThat(raster.estimate(point[0], point[1], radiusKm))
+                            .as("%s, %s radius %s km", point[0], point[1], radiusKm)
+                            .isCloseTo(expected, within(tolerance(expected)));
+                }
+            }
+            assertThat(raster.estimate(45, 35, 10)).isZero();
+        } finally {
+            raster.close();
+        }
+    }
+
+    @Test
+    void wholeGridCircleCountsEveryone() throws IOException {
+        PopulationRaster raster = raster(writeGrid("grid.asc", (row, col) -> 100));
+        try {
+            assertThat(raster.getStats()).containsEntry("totalPopulation", 100L * ROWS * COLUMNS);
+            assertThat(raster.estimate(40.55, 29.1, 500)).isCloseTo(100.0 * ROWS * COLUMNS, within(1e-6));
+        } finally {
+            raster.close();
+        }
+    }
+
+    @Test
+    void reusesTheTableUntilTheGridChanges() throws IOException {
+        Path grid = writeGrid("grid.asc", PEOPLE);
+        PopulationRaster first = raster(grid);
+        double before = first.estimate(40.55, 29.1, 5);
+        first.close();
+        assertThat(first.getStats()).containsEntry("tableBuilt", true);
+        assertThat(dir.resolve("cache/grid.asc.sat")).exists();
+
+        PopulationRaster second = raster(grid);
+        assertThat(second.getStats()).containsEntry("tableBuilt", false);
+        assertThat(second.estimate(40.55, 29.1, 5)).isEqualTo(before);
+        second.close();
+
+        IntBinaryOperator doubled = (row, col) -> 2 * PEOPLE.applyAsInt(row, col);
+        writeGrid("grid.asc", doubled);
+        Files.setLastModifiedTime(grid, FileTime.fromMillis(Files.getLastModifiedTime(grid).toMillis() + 60_000));
+        PopulationRaster third = raster(grid);
+        try {
+            assertThat(third.getStats()).containsEntry("tableBuilt", true);
+            assertThat(third.estimate(40.55, 29.1, 5)).isCloseTo(2 * before, within(1e-6 * before));
+        } finally {
+            third.close();
+        }
+    }
+
+    private PopulationRaster raster(Path grid) {
+        PopulationConfig config = new PopulationConfig();
+        ReflectionTestUtils.setField(config, "enabled", true);
+        ReflectionTestUtils.setField(config, "file", new FileSystemResource(grid));
+        ReflectionTestUtils.setField(config, "units", "count");
+        ReflectionTestUtils.setField(config, "cacheDir", dir.resolve("cache").toString());
+        return new PopulationRaster(config);
+    }
+
+    private Path writeGrid(String name, IntBinaryOperator people) throws IOException {
+        StringBuilder asc = new StringBuilder()
+                .append("ncols ").append(COLUMNS).append('\n')
+                .append("nrows ").append(ROWS).append('\n')
+                .append("xllcorner ").append(WEST).append('\n')
+                .append("yllcorner ").append(SOUTH).append('\n')
+                .append("cellsize ").append(CELL).append('\n')
+                .append("NODATA_value -9999\n");
+        for (int row = 0; row < ROWS; row++) {
+            for (int col = 0; col < COLUMNS; col++) {
+                asc.append(people.applyAsInt(row, col)).append(col + 1 < COLUMNS ? ' ' : '\n');
+            }
+        }
+        Path file = dir.resolve(name);
+        Files.writeString(file, asc);
+        return file;
+    }
+
+    // each cell's people spread evenly over SUBCELLS x SUBCELLS points, counted when inside the circle
+    private static double bruteForce(double lat, double lng, double radiusKm, IntBinaryOperator people) {
+        double north = SOUTH + ROWS * CELL;
+        double total = 0;
+        for (int row = 0; row < ROWS; row++) {
+            for (int col = 0; col < COLUMNS; col++) {
+                double centerLat = north - (row + 0.5) * CELL;
+                double centerLng = WEST + (col + 0.5) * CELL;
+                if (GeoMath.haversineDistance(lat, lng, centerLat, centerLng) > radiusKm + 2) {
+                    continue; // farther than a cell diagonal past the circle
+                }
+                int inside = 0;
+                for (int i = 0; i < SUBCELLS; i++) {
+                    double pointLat = north - (row + (i + 0.5) / SUBCELLS) * CELL;
+                    for (int j = 0; j < SUBCELLS; j++) {
+                        double pointLng = WEST + (col + (j + 0.5) / SUBCELLS) * CELL;
+                        if (GeoMath.haversineDistance(lat, lng, pointLat, pointLng) <= radiusKm) {
+                            inside++;
+                        }
+                    }
+                }
+                total += people.applyAsInt(row, col) * inside / (double) (SUBCELLS * SUBCELLS);
+            }
+        }
+        return total;
+    }
+
+    // a sub-cell circle is only a few hundred brute force points, so small totals get a floor
+    private static double tolerance(double expected) {
+        return Math.max(expected * 0.01, 3);
+    }
+}
@@ -0,0 +1,174 @@
+package com.neo.service;
+
+import com.neo.geo.GeoMath;
+import com.neo.infrastructure.FeatureTable;
+import com.neo.infrastructure.InfrastructureFeature;
+import com.neo.infrastructure.InfrastructureTags;
+import com.neo.model.ImpactReport;
+import com.neo.model.ImpactReport.InfrastructureCluster;
+import com.neo.model.ImpactReport.InfrastructureItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExposureDigestTest {
+
+    private static final double LAT = 41.01;
+    private static final double LNG = 28.98;
+    private static final String[] TYPES = {"hospital", "clinic", "school", "police", "fire_station", "industrial",
+            "warehouse", "farmland", "orchard", "kindergarten"};
+
+    @Test
+    void selectSmallestMatchesASort() {
+        Random random = new Random(21);
+        for (int n : new int[]{1, 2, 3, 10, 100, 1000}) {
+            for (int range : new int[]{1, 3, 1000, Integer.MAX_VALUE}) {
+                long[] values = new long[n];
+                for (int i = 0; i < n; i++) {
+                    values[i] = random.nextInt(range);
+                }
+                long[] sorted = values.clone();
+                Arrays.sort(sorted);
+                for (int k : new int[]{0, 1, n / 3, n / 2, n - 1, n}) {
+                    long[] selected = values.clone();
+                    ExposureDigest.selectSmallest(selected, n, k);
+                    long[] front = Arrays.copyOf(selected, k);
+                    Arrays.sort(front);
+                    assertThat(front).as("n %s range %s k %s", n, range, k).containsExactly(Arrays.copyOf(sorted, k));
+                    Arrays.sort(selected);
+                    assertThat(selected).as("nothing lost, n %s range %s k %s", n, range, k).containsExactly(sorted);
+                }
+            }
+        }
+    }
+
+    @Test
+    void rankingAndClustersMatchAPlainSort() {
+        ImpactReport radii = new ImpactReport(LAT, LNG, 1e15);
+        double radiusKm = ImpactReport.searchRadiusKm(radii.getShrapnelRadiusKm());
+        List<InfrastructureFeature> features = features(new Random(22), radiusKm);
+        FeatureTable table = FeatureTable.of(features);
+        List<Expected> expected = expected(table, radii, radiusKm);
+        assertThat(expected.stream().map(e -> e.zone).distinct()).hasSize(3);
+
+        for (int top : new int[]{0, 1, 7, 25, expected.size() - 1, expected.size(), expected.size() + 10}) {
+            ExposureDigest digest = new ExposureDigest(radii, table, radiusKm);
+            assertThat(digest.size()).isEqualTo(expected.size());
+
+            List<InfrastructureItem> ranked = digest.ranked(0, top);
+            List<Expected> listed = expected.subList(0, Math.min(top, expected.size()));
+            assertThat(ranked).as("top %s", top).extracting(InfrastructureItem::getName)
+                    .containsExactlyElementsOf(listed.stream().map(e -> e.name).toList());
+            assertThat(ranked).extracting(InfrastructureItem::getZone)
+                    .containsExactlyElementsOf(listed.stream().map(e -> e.zone).toList());
+
+            // the clusters hold exactly what was left out of the list
+            Map<String, Integer> clustered = new TreeMap<>();
+            List<InfrastructureCluster> clusters = digest.clusters(top);
+            for (InfrastructureCluster cluster : clusters) {
+                clustered.merge(cluster.getZone() + "/" + cluster.getCategory(), cluster.getCount(), Integer::sum);
+            }
+            Map<String, Integer> rest = new TreeMap<>();
+            for (Expected e : expected.subList(listed.size(), expected.size())) {
+                rest.merge(e.zone + "/" + e.category, 1, Integer::sum);
+            }
+            assertThat(clustered).as("top %s", top).isEqualTo(rest);
+            assertThat(clusters).isSortedAccordingTo(Comparator
+                    .comparingInt((InfrastructureCluster c) -> Arrays.asList("thermal", "pressure", "shrapnel")
+                            .indexOf(c.getZone()))
+                    .thenComparing(InfrastructureCluster::getCategory, Comparator.comparingInt(ExposureDigestTest::category))
+                    .thenComparing(InfrastructureCluster::getCount, Comparator.reverseOrder()));
+        }
+
+        // pages in any order add up to the whole ranking
+        ExposureDigest digest = new ExposureDigest(radii, table, radiusKm);
+        List<String> paged = new ArrayList<>();
+        for (int from = 0; from < expected.size() + 5; from += 9) {
+            digest.ranked(from, from + 9).forEach(item -> paged.add(item.getName()));
+        }
+        assertThat(paged).containsExactlyElementsOf(expected.stream().map(e -> e.name).toList());
+
+        int[] categories = new int[InfrastructureTags.CATEGORY_COUNT];
+        expected.forEach(e -> categories[category(e.category)]++);
+        assertThat(digest.getCategoryCounts()).containsExactly(categories);
+    }
+
+    // the digest's order spelled out: zone, criticality, whole metres, then row
+    private static List<Expected> expected(FeatureTable table, ImpactReport radii, double radiusKm) {
+        List<Expected> expected = new ArrayList<>();
+        for (int row = 0; row < table.size(); row++) {
+            double distance = GeoMath.haversineDistance(LAT, LNG, table.lat(row), table.lng(row));
+            if (distance > radiusKm) {
+                continue;
+            }
+            int zone = distance <= radii.getThermalRadiusKm() ? 0 : distance <= radii.getPressureRadiusKm() ? 1 : 2;
+            expected.add(new Expected(row, table.name(row), new String[]{"thermal", "pressure", "shrapnel"}[zone],
+                    zone, InfrastructureTags.criticalityOfType(table.typeCode(row)), Math.round(distance * 1000),
+                    InfrastructureTags.categoryName(table.category(row))));
+        }
+        expected.sort(Comparator.<Expected>comparingInt(e -> e.zoneIndex)
+                .thenComparingInt(e -> e.criticality)
+                .thenComparingLong(e -> e.metres)
+                .thenComparingInt(e -> e.row));
+        return expected;
+    }
+
+    // spread across every zone and a little past the radius, with runs of identical points so
+    // whole keys tie up to the row
+    private static List<InfrastructureFeature> features(Random random, double radiusKm) {
+        List<InfrastructureFeature> features = new ArrayList<>();
+        int id = 1;
+        while (features.size() < 600) {
+            double distanceKm = Math.sqrt(random.nextDouble()) * radiusKm * 1.1;
+            double bearing = random.nextDouble() * 2 * Math.PI;
+            double lat = LAT + distanceKm * Math.cos(bearing) / GeoMath.KM_PER_DEGREE_LAT;
+            double lng = LNG + distanceKm * Math.sin(bearing)
+                    / (GeoMath.KM_PER_DEGREE_LAT * Math.cos(Math.toRadians(LAT)));
+            String type = TYPES[random.nextInt(TYPES.length)];
+            int copies = random.nextInt(4) == 0 ? 3 : 1;
+            for (int c = 0; c < copies; c++) {
+                features.add(new InfrastructureFeature(InfrastructureFeature.osmKey(InfrastructureFeature.NODE, id),
+                        type, "F" + id, lat, lng));
+                id++;
+            }
+        }
+        return features;
+    }
+
+    private static int category(String name) {
+        for (int c = 0; c < InfrastructureTags.CATEGORY_COUNT; c++) {
+            if (InfrastructureTags.categoryName(c).equals(name)) {
+                return c;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    private static class Expected {
+        final int row;
+        final String name;
+        final String zone;
+        final int zoneIndex;
+        final int criticality;
+        final long metres;
+        final String category;
+
+        Expected(int row, String name, String zone, int zoneIndex, int criticality, long metres, String category) {
+            this.row = row;
+            this.name = name;
+            this.zone = zone;
+            this.zoneIndex = zoneIndex;
+            this.criticality = criticality;
+            this.metres = metres;
+            this.category = category;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.neo.service;
+
+import com.neo.infrastructure.FeatureTable;
+import com.neo.infrastructure.InfrastructureFeature;
+import com.neo.infrastructure.InfrastructureTags;
+import com.neo.infrastructure.OsmExtractReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The local source must select exactly what the Overpass query selects, so both are checked
+ * against the selectors parsed out of the query text itself.
+ */
+class OverpassQueryTest {
+
+    private static final Pattern SELECTOR = Pattern.compile("(node|way)\\[\"(\\w+)\"[~=]\"([\\w|]+)\"]");
+    private static final List<String> KEYS = List.of("amenity", "landuse", "building");
+
+    @Test
+    void tagRulesMatchTheQuerySelectors() {
+        Set<String> selected = querySelectors();
+        assertThat(selected).isNotEmpty();
+
+        for (String kind : List.of("node", "way")) {
+            for (String key : KEYS) {
+                for (String value : allValues(selected)) {
+                    boolean way = kind.equals("way");
+                    String amenity = key.equals("amenity") ? value : null;
+                    String landuse = key.equals("landuse") ? value : null;
+                    String building = key.equals("building") ? value : null;
+                    assertThat(InfrastructureTags.isSelected(way, amenity, landuse, building))
+                            .as("%s %s=%s", kind, key, value)
+                            .isEqualTo(selected.contains(kind + " " + key + "=" + value));
+                }
+            }
+        }
+    }
+
+    @Test
+    void extractReaderKeepsWhatTheQuerySelects() throws IOException {
+        Set<String> selected = querySelectors();
+        // one node and one single-node way per kind, key and value seen anywhere in the query
+        StringBuilder osm = new StringBuilder("<osm version=\"0.6\">\n");
+        List<String> elements = new ArrayList<>();
+        long id = 1;
+        for (String key : KEYS) {
+            for (String value : allValues(selected)) {
+                osm.append("<node id=\"").append(id).append("\" lat=\"41\" lon=\"29\">")
+                        .append("<tag k=\"").append(key).append("\" v=\"").append(value).append("\"/></node>\n");
+                osm.append("<way id=\"").append(id).append("\"><nd ref=\"").append(id).append("\"/>")
+                        .append("<tag k=\"").append(key).append("\" v=\"").append(value).append("\"/></way>\n");
+                elements.add(key + "=" + value);
+                id++;
+            }
+        }
+        osm.append("</osm>\n");
+
+        FeatureTable table = FeatureTable.of(new OsmExtractReader()
+                .read(new ByteArrayInputStream(osm.toString().getBytes(StandardCharsets.UTF_8))));
+        Set<String> kept = new TreeSet<>();
+        for (int row = 0; row < table.size(); row++) {
+            long key = table.osmId(row);
+            String kind = key >>> 56 == InfrastructureFeature.WAY ? "way" : "node";
+            int element = (int) (key & ((1L << 56) - 1)) - 1;
+            kept.add(kind + " " + elements.get(element));
+        }
+        assertThat(kept).isEqualTo(new TreeSet<>(selected));
+    }
+
+    // "node amenity=hospital" for every value of every selector in the query
+    private static Set<String> querySelectors() {
+        Set<String> selected = new HashSet<>();
+        Matcher matcher = SELECTOR.matcher(OverpassService.query("(0,0,1,1)"));
+        while (matcher.find()) {
+            for (String value : matcher.group(3).split("\\|")) {
+                selected.add(matcher.group(1) + " " + matcher.group(2) + "=" + value);
+            }
+        }
+        return selected;
+    }
+
+    private static Set<String> allValues(Set<String> selected) {
+        Set<String> values = new TreeSet<>(List.of("cafe", "house", "residential"));
+        for (String selector : selected) {
+            values.add(selector.substring(selector.indexOf('=') + 1));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,131 @@
+package com.neo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neo.cache.EncodedPayload;
+import com.neo.config.ImpactConfig;
+import com.neo.config.PopulationConfig;
+import com.neo.infrastructure.Candidates;
+import com.neo.infrastructure.FeatureTable;
+import com.neo.infrastructure.InfrastructureFeature;
+import com.neo.infrastructure.InfrastructureSource;
+import com.neo.population.PopulationRaster;
+import com.neo.upstream.UpstreamMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReportBodyCacheTest {
+
+    private static final double LAT = 41.01;
+    private static final double LNG = 28.98;
+    private static final double ENERGY = 1e15;
+
+    @Test
+    void repeatQueriesReuseTheEncodedBody() {
+        StubSource source = new StubSource();
+        ReportBodyCache cache = cache(source);
+
+        EncodedPayload first = cache.report(LAT, LNG, ENERGY).join();
+        EncodedPayload again = cache.report(LAT, LNG, ENERGY).join();
+        assertThat(again).isSameAs(first);
+        assertThat(source.lookups).isEqualTo(1);
+
+        EncodedPayload page = cache.page(LAT, LNG, ENERGY, 0, 2).join();
+        assertThat(cache.page(LAT, LNG, ENERGY, 0, 2).join()).isSameAs(page);
+        assertThat(page.getETag()).isNotEqualTo(first.getETag());
+        assertThat(cache.page(LAT, LNG, ENERGY, 2, 2).join().getETag()).isNotEqualTo(page.getETag());
+        assertThat(source.lookups).isEqualTo(3);
+
+        // a different energy is a different report
+        cache.report(LAT, LNG, ENERGY * 10).join();
+        assertThat(source.lookups).isEqualTo(4);
+    }
+
+    @Test
+    void aNewVersionRebuildsTheBody() {
+        StubSource source = new StubSource();
+        ReportBodyCache cache = cache(source);
+        EncodedPayload first = cache.report(LAT, LNG, ENERGY).join();
+
+        source.version = 2L;
+        source.features = FeatureTable.of(StubSource.features(3));
+        EncodedPayload rebuilt = cache.report(LAT, LNG, ENERGY).join();
+        assertThat(source.lookups).isEqualTo(2);
+        assertThat(rebuilt.getETag()).isNotEqualTo(first.getETag());
+        assertThat(cache.report(LAT, LNG, ENERGY).join()).isSameAs(rebuilt);
+        assertThat(source.lookups).isEqualTo(2);
+    }
+
+    @Test
+    void partialOrUnloadedResultsAreRebuiltEveryTime() {
+        StubSource source = new StubSource();
+        ReportBodyCache cache = cache(source);
+
+        source.coverage = 0.5;
+        cache.report(LAT, LNG, ENERGY).join();
+        cache.report(LAT, LNG, ENERGY).join();
+        assertThat(source.lookups).isEqualTo(2);
+
+        // complete again, but the source would have to load before it could say which version
+        source.coverage = 1;
+        source.loaded = false;
+        cache.report(LAT, LNG, ENERGY).join();
+        cache.report(LAT, LNG, ENERGY).join();
+        assertThat(source.lookups).isEqualTo(4);
+    }
+
+    private static ReportBodyCache cache(InfrastructureSource source) {
+        PopulationConfig populationConfig = new PopulationConfig();
+        ReflectionTestUtils.setField(populationConfig, "enabled", false);
+        ReflectionTestUtils.setField(populationConfig, "file", new ClassPathResource("population/missing.asc"));
+        ImpactConfig config = new ImpactConfig();
+        ReflectionTestUtils.setField(config, "batchParallelism", 1);
+        ReflectionTestUtils.setField(config, "reportItems", 25);
+        ReflectionTestUtils.setField(config, "reportCacheEntries", 100L);
+        ReflectionTestUtils.setField(config, "reportCacheMaxWeightMb", 1L);
+        ReflectionTestUtils.setField(config, "reportCacheTtlMinutes", 10L);
+        ImpactService impactService = new ImpactService(source, new PopulationRaster(populationConfig), config);
+        return new ReportBodyCache(impactService, new ObjectMapper(), config,
+                new UpstreamMetrics(new SimpleMeterRegistry()));
+    }
+
+    private static class StubSource implements InfrastructureSource {
+        FeatureTable features = FeatureTable.of(features(5));
+        Object version = 1L;
+        double coverage = 1;
+        boolean loaded = true;
+        int lookups;
+
+        @Override
+        public CompletableFuture<Candidates> findCandidates(double lat, double lng, double radiusKm) {
+            lookups++;
+            return CompletableFuture.completedFuture(coverage < 1 ? new Candidates(features, coverage)
+                    : Candidates.complete(features, version));
+        }
+
+        @Override
+        public Object currentVersion(double lat, double lng, double radiusKm) {
+            return loaded && coverage >= 1 ? version : null;
+        }
+
+        @Override
+        public Map<String, Object> getStats() {
+            return Map.of();
+        }
+
+        static List<InfrastructureFeature> features(int count) {
+            return IntStream.range(0, count)
+                    .mapToObj(i -> new InfrastructureFeature(InfrastructureFeature.osmKey(InfrastructureFeature.NODE, i + 1),
+                            "hospital", "Clinic " + i, LAT + i * 0.001, LNG))
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.neo.store;
+
+import com.neo.config.CacheConfig;
+import com.neo.model.NearEarthObject;
+import com.neo.model.NeoQueryResult;
+import com.neo.physics.ImpactPhysics;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NeoColumnStoreTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 3, 1);
+    private static final int DAYS = 10;
+
+    @Test
+    void pagesMatchAPlainSortForEveryFilterAndOrder() {
+        NeoColumnStore store = store(100);
+        List<NearEarthObject> all = new ArrayList<>();
+        Random random = new Random(3);
+        for (int d = 0; d < DAYS; d++) {
+            List<NearEarthObject> day = day(random, FIRST_DAY.plusDays(d), 40);
+            store.ingest(FIRST_DAY.plusDays(d), day);
+            all.addAll(day);
+        }
+        assertThat(store.size()).isEqualTo(all.size());
+
+        for (NeoQuery.Sort sort : NeoQuery.Sort.values()) {
+            for (int limit : new int[]{1, 7, 50, 1000}) {
+                NeoQuery query = new NeoQuery();
+                query.setSort(sort);
+                query.setLimit(limit);
+                assertPagesMatch(store, query, all, neo -> true);
+
+                query.setHazardousOnly(true);
+                query.setMinDiameterMeters(150);
+                query.setMaxMissDistanceKm(5e6);
+                query.setStartDate(FIRST_DAY.plusDays(2));
+                query.setEndDate(FIRST_DAY.plusDays(6));
+                assertPagesMatch(store, query, all, neo -> neo.isPotentiallyHazardous()
+                        && neo.getAverageDiameterMeters() >= 150 && neo.getMissDistanceKm() <= 5e6
+                        && !day(neo).isBefore(FIRST_DAY.plusDays(2)) && !day(neo).isAfter(FIRST_DAY.plusDays(6)));
+            }
+        }
+    }
+
+    @Test
+    void reloadingADayDropsNeosNoLongerListed() {
+        NeoColumnStore store = store(100);
+        Random random = new Random(4);
+        List<NearEarthObject> first = day(random, FIRST_DAY, 10);
+        store.ingest(FIRST_DAY, first);
+        store.ingest(FIRST_DAY.plusDays(1), day(random, FIRST_DAY.plusDays(1), 5));
+
+        // the refetch loses two NEOs and revises one
+        List<NearEarthObject> refetched = new ArrayList<>(first.subList(2, 10));
+        NearEarthObject revised = refetched.get(0);
+        refetched.set(0, new NearEarthObject(revised.getId(), revised.getName(), 10, 20, 11,
+                revised.getMissDistanceKm(), false, revised.getCloseApproachDate()));
+        store.ingest(FIRST_DAY, refetched);
+
+        assertThat(store.size()).isEqualTo(8 + 5);
+        assertThat(store.dayCount()).isEqualTo(2);
+        assertThat(store.findById(first.get(0).getId())).isNull();
+        assertThat(store.findById(first.get(1).getId())).isNull();
+        assertThat(store.findById(revised.getId()).getDiameterMaxMeters()).isEqualTo(20);
+
+        NeoQuery query = new NeoQuery();
+        query.setStartDate(FIRST_DAY);
+        query.setEndDate(FIRST_DAY);
+        query.setLimit(100);
+        assertThat(store.query(query).getItems()).extracting(NearEarthObject::getId)
+                .containsExactlyInAnyOrderElementsOf(refetched.stream().map(NearEarthObject::getId).toList());
+    }
+
+    @Test
+    void cursorKeepsItsPlaceWhenADayIsEvicted() {
+        NeoColumnStore store = store(DAYS);
+        List<NearEarthObject> all = new ArrayList<>();
+        Random random = new Random(5);
+        for (int d = 0; d < DAYS; d++) {
+            List<NearEarthObject> day = day(random, FIRST_DAY.plusDays(d), 12);
+            store.ingest(FIRST_DAY.plusDays(d), day);
+            all.addAll(day);
+        }
+
+        // date order ties every row of a day, so the page boundary falls inside one
+        NeoQuery query = new NeoQuery();
+        query.setSort(NeoQuery.Sort.DATE);
+        query.setLimit(18);
+        query.setEndDate(FIRST_DAY.plusDays(DAYS - 1));
+        NeoQueryResult firstPage = store.query(query);
+
+        // the first day goes, compacting every row after it, and the new day is outside the range
+        store.ingest(FIRST_DAY.plusDays(DAYS), day(random, FIRST_DAY.plusDays(DAYS), 12));
+        assertThat(store.getEvictedDays()).isEqualTo(1);
+
+        List<NearEarthObject> paged = new ArrayList<>(firstPage.getItems());
+        String cursor = firstPage.getNextCursor();
+        while (cursor != null) {
+            query.setCursor(cursor);
+            NeoQueryResult page = store.query(query);
+            paged.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        }
+
+        List<String> expected = new ArrayList<>();
+        List<NearEarthObject> sorted = sorted(all, NeoQuery.Sort.DATE);
+        for (int i = 0; i < sorted.size(); i++) {
+            // rows of the evicted day are only seen on the page served before it went
+            if (i < 18 || !day(sorted.get(i)).equals(FIRST_DAY)) {
+                expected.add(key(sorted.get(i)));
+            }
+        }
+        assertThat(paged).extracting(NeoColumnStoreTest::key).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void rejectsAMangledCursor() {
+        NeoQuery query = new NeoQuery();
+        query.setCursor("not a cursor");
+        assertThatThrownBy(() -> store(10).query(query)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void assertPagesMatch(NeoColumnStore store, NeoQuery query, List<NearEarthObject> all,
+            Predicate<NearEarthObject> filter) {
+        List<NearEarthObject> expected = sorted(all.stream().filter(filter).toList(), query.getSort());
+        List<NearEarthObject> paged = new ArrayList<>();
+        query.setCursor(null);
+        while (true) {
+            NeoQueryResult page = store.query(query);
+            assertThat(page.getTotalMatched()).isEqualTo(expected.size());
+            assertThat(page.getItems().size()).isLessThanOrEqualTo(query.getLimit());
+            paged.addAll(page.getItems());
+            if (page.getNextCursor() == null) {
+                break;
+            }
+            query.setCursor(page.getNextCursor());
+        }
+        assertThat(paged).as("%s limit %s", query.getSort(), query.getLimit())
+                .extracting(NeoColumnStoreTest::key)
+                .containsExactlyElementsOf(expected.stream().map(NeoColumnStoreTest::key).toList());
+    }
+
+    // the store's order: rank, then day, then id
+    private static List<NearEarthObject> sorted(List<NearEarthObject> neos, NeoQuery.Sort sort) {
+        Comparator<NearEarthObject> byRank = switch (sort) {
+            case ENERGY -> Comparator.comparingDouble(neo -> -ImpactPhysics.kineticEnergy(
+                    neo.getAverageDiameterMeters(), neo.getVelocityKmPerSec()));
+            case CLOSEST -> Comparator.comparingDouble(NearEarthObject::getMissDistanceKm);
+            case DIAMETER -> Comparator.comparingDouble(neo -> -neo.getAverageDiameterMeters());
+            case DATE -> Comparator.comparing(NeoColumnStoreTest::day);
+        };
+        List<NearEarthObject> sorted = new ArrayList<>(neos);
+        sorted.sort(byRank.thenComparing(NeoColumnStoreTest::day).thenComparing(NearEarthObject::getId));
+        return sorted;
+    }
+
+    // diameters in coarse steps so rank ties are common
+    private static List<NearEarthObject> day(Random random, LocalDate day, int count) {
+        List<NearEarthObject> neos = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double diameter = 50 + 25 * random.nextInt(12);
+            neos.add(new NearEarthObject(String.valueOf(2000000 + random.nextInt(1000) * 100 + i), "NEO " + i,
+                    diameter, diameter * 2, 5 + random.nextInt(4) * 5, 1e5 * (1 + random.nextInt(80)),
+                    random.nextInt(3) == 0, day.toString()));
+        }
+        return neos;
+    }
+
+    private static LocalDate day(NearEarthObject neo) {
+        return LocalDate.parse(neo.getCloseApproachDate());
+    }
+
+    private static String key(NearEarthObject neo) {
+        return neo.getId() + "|" + neo.getCloseApproachDate();
+    }
+
+    private static NeoColumnStore store(long maxDays) {
+        CacheConfig config = new CacheConfig();
+        ReflectionTestUtils.setField(config, "storeMaxDays", maxDays);
+        return new NeoColumnStore(config);
+    }
+}
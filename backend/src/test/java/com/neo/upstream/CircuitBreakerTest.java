@@ -0,0 +1,76 @@
+package com.neo.upstream;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensAfterThresholdFailuresInARow() {
+        CircuitBreaker breaker = new CircuitBreaker(3, Duration.ofMinutes(1));
+
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.getOpenedCount()).isEqualTo(1);
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.remainingOpenNanos()).isPositive();
+    }
+
+    @Test
+    void letsASingleProbeThroughOnceOpenTimeIsUp() throws InterruptedException {
+        CircuitBreaker breaker = openBreaker(Duration.ofMillis(20));
+        Thread.sleep(40);
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        breaker.onSuccess();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void failedProbeOpensAgain() throws InterruptedException {
+        CircuitBreaker breaker = openBreaker(Duration.ofMillis(20));
+        Thread.sleep(40);
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.getOpenedCount()).isEqualTo(2);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void abandonedProbeFreesTheSlot() throws InterruptedException {
+        CircuitBreaker breaker = openBreaker(Duration.ofMillis(20));
+        Thread.sleep(40);
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onAbandoned();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    private static CircuitBreaker openBreaker(Duration openDuration) {
+        CircuitBreaker breaker = new CircuitBreaker(1, openDuration);
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        return breaker;
+    }
+}
@@ -0,0 +1,229 @@
+package com.neo.upstream;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HedgedMirrorsTest {
+
+    private static final Duration MIN_DELAY = Duration.ofMillis(50);
+    private static final Duration MAX_DELAY = Duration.ofMillis(400);
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final List<StubMirror> stubs = new ArrayList<>();
+    // the latest attempt future handed out per mirror URL
+    private final Map<String, CompletableFuture<HttpResponse<String>>> attempts = new ConcurrentHashMap<>();
+
+    @AfterEach
+    void stopStubs() {
+        stubs.forEach(StubMirror::stop);
+    }
+
+    @Test
+    void hedgesAfterTheRecentP95AndCancelsTheLoser() throws Exception {
+        StubMirror primary = stub("primary");
+        StubMirror secondary = stub("secondary");
+        HedgedMirrors mirrors = mirrors(true, 3, Duration.ofSeconds(30), primary, secondary);
+        assertThat(mirrors.hedgeDelayNanos()).isEqualTo(MAX_DELAY.toNanos());
+
+        // fast answers bring the hedge delay down from maxDelay; a cold first connection may still get hedged
+        for (int i = 0; i < 40; i++) {
+            send(mirrors).join();
+        }
+        long hedgeDelay = mirrors.hedgeDelayNanos();
+        assertThat(hedgeDelay).isBetween(MIN_DELAY.toNanos(), MAX_DELAY.toNanos() - 1);
+        long hedged = mirrors.getHedgedCount();
+        long wins = mirrors.getHedgeWinCount();
+
+        primary.delayMillis = 3000;
+        long started = System.nanoTime();
+        HttpResponse<String> response = send(mirrors).join();
+        long elapsed = System.nanoTime() - started;
+
+        assertThat(response.body()).isEqualTo("secondary");
+        assertThat(elapsed).isBetween(hedgeDelay, TimeUnit.MILLISECONDS.toNanos(2000));
+        assertThat(mirrors.getHedgedCount()).isEqualTo(hedged + 1);
+        // the win is counted and the loser cancelled just after the result completes
+        CompletableFuture<HttpResponse<String>> loser = attempts.get(primary.url());
+        awaitTrue(() -> mirrors.getHedgeWinCount() == wins + 1 && loser.isDone());
+        // the JDK client may also complete a cancelled exchange with a wrapped CancellationException
+        Throwable cancelled = loser.handle((r, error) -> error instanceof CompletionException ? error.getCause() : error).join();
+        assertThat(cancelled).isInstanceOf(CancellationException.class);
+        // a cancelled attempt says nothing about the mirror's health
+        assertThat(breaker(mirrors, 0).stats()).containsEntry("consecutiveFailures", 0);
+        assertThat(breaker(mirrors, 0).getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void failsOverToTheNextMirrorAfterAnError() throws IOException {
+        StubMirror primary = stub("primary");
+        StubMirror secondary = stub("secondary");
+        primary.status = 500;
+        HedgedMirrors mirrors = mirrors(false, 3, Duration.ofSeconds(30), primary, secondary);
+
+        assertThat(send(mirrors).join().body()).isEqualTo("secondary");
+        assertThat(mirrors.getFailoverCount()).isEqualTo(1);
+        assertThat(mirrors.getHedgedCount()).isZero();
+        assertThat(breaker(mirrors, 0).stats()).containsEntry("consecutiveFailures", 1);
+        assertThat(breaker(mirrors, 1).stats()).containsEntry("consecutiveFailures", 0);
+    }
+
+    @Test
+    void skipsAMirrorOnceItsBreakerOpens() throws IOException {
+        StubMirror primary = stub("primary");
+        StubMirror secondary = stub("secondary");
+        primary.status = 503;
+        HedgedMirrors mirrors = mirrors(false, 2, Duration.ofSeconds(30), primary, secondary);
+
+        assertThat(send(mirrors).join().body()).isEqualTo("secondary");
+        assertThat(breaker(mirrors, 0).getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(send(mirrors).join().body()).isEqualTo("secondary");
+        assertThat(breaker(mirrors, 0).getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(primary.hits.get()).isEqualTo(2);
+
+        assertThat(send(mirrors).join().body()).isEqualTo("secondary");
+        assertThat(send(mirrors).join().body()).isEqualTo("secondary");
+        assertThat(primary.hits.get()).isEqualTo(2);
+        assertThat(mirrors.getFailoverCount()).isEqualTo(2);
+    }
+
+    @Test
+    void letsOneProbeThroughWhileHalfOpen() throws Exception {
+        StubMirror only = stub("only");
+        only.status = 500;
+        HedgedMirrors mirrors = mirrors(false, 1, Duration.ofMillis(100), only);
+        assertThatThrownBy(() -> send(mirrors).join()).isInstanceOf(CompletionException.class);
+        assertThat(breaker(mirrors, 0).getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        only.status = 200;
+        only.delayMillis = 300;
+        Thread.sleep(150);
+        CompletableFuture<HttpResponse<String>> probe = send(mirrors);
+        CompletableFuture<HttpResponse<String>> turnedAway = send(mirrors);
+
+        assertThatThrownBy(turnedAway::join).hasCauseInstanceOf(BulkheadFullException.class);
+        assertThat(breaker(mirrors, 0).getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(probe.join().body()).isEqualTo("only");
+        assertThat(breaker(mirrors, 0).getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(only.hits.get()).isEqualTo(2);
+    }
+
+    @Test
+    void reportsRetryAfterWhenNoMirrorIsHealthy() throws IOException {
+        StubMirror only = stub("only");
+        only.status = 502;
+        HedgedMirrors mirrors = mirrors(true, 1, Duration.ofSeconds(30), only);
+
+        // the first call sees the mirror's own error
+        assertThatThrownBy(() -> send(mirrors).join())
+                .hasCauseInstanceOf(RuntimeException.class)
+                .hasMessageContaining("HTTP 502");
+
+        CompletableFuture<HttpResponse<String>> rejected = send(mirrors);
+        assertThatThrownBy(rejected::join).hasCauseInstanceOf(BulkheadFullException.class);
+        BulkheadFullException busy = (BulkheadFullException) rejected.handle((response, error) -> error).join();
+        assertThat(busy.getRetryAfterSeconds()).isBetween(29L, 31L);
+        assertThat(only.hits.get()).isEqualTo(1);
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(HedgedMirrors mirrors) {
+        return mirrors.send(url -> {
+            CompletableFuture<HttpResponse<String>> attempt = client.sendAsync(
+                    HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(10)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            attempts.put(url, attempt);
+            return attempt;
+        });
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static HedgedMirrors mirrors(boolean hedging, int failureThreshold, Duration openDuration,
+            StubMirror... stubs) {
+        List<String> urls = new ArrayList<>();
+        for (StubMirror stub : stubs) {
+            urls.add(stub.url());
+        }
+        return new HedgedMirrors("Test", urls, hedging, MIN_DELAY, MAX_DELAY, failureThreshold, openDuration);
+    }
+
+    private static CircuitBreaker breaker(HedgedMirrors mirrors, int index) {
+        return mirrors.getMirrors().get(index).getBreaker();
+    }
+
+    private StubMirror stub(String name) throws IOException {
+        StubMirror stub = new StubMirror(name);
+        stubs.add(stub);
+        return stub;
+    }
+
+    // answers every request with its name after delayMillis, with the configured status
+    private static final class StubMirror {
+        final HttpServer server;
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        final AtomicInteger hits = new AtomicInteger();
+        volatile int status = 200;
+        volatile long delayMillis;
+
+        StubMirror(String name) throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", exchange -> {
+                hits.incrementAndGet();
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                byte[] body = name.getBytes(StandardCharsets.UTF_8);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    exchange.sendResponseHeaders(status, body.length);
+                    out.write(body);
+                } catch (IOException e) {
+                    // the client gave up on this attempt
+                }
+            });
+            server.setExecutor(executor);
+            server.start();
+        }
+
+        String url() {
+            return "http://127.0.0.1:" + server.getAddress().getPort() + "/api";
+        }
+
+        void stop() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.neo.upstream;
+
+import com.neo.upstream.QuotaScheduler.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Runs on a fake ticker. At 36 requests an hour a token takes 100 s, so the real wake-up timer
+ * never fires during a test; the tests move the ticker and drain themselves.
+ */
+class QuotaSchedulerTest {
+
+    private static final int PER_HOUR = 36;
+    private static final long TOKEN_SECONDS = 100;
+
+    private final AtomicLong now = new AtomicLong();
+    private final List<String> dispatched = new ArrayList<>();
+
+    @Test
+    void bucketStartsFullAndRefillsAtTheQuotaRate() throws Exception {
+        QuotaScheduler quota = scheduler(0, 10, Duration.ofHours(1));
+        for (int i = 0; i < PER_HOUR; i++) {
+            assertThat(submit(quota, "call" + i, Priority.INTERACTIVE)).isDone();
+        }
+        assertThat(quota.getTokens()).isCloseTo(0, within(1e-9));
+
+        CompletableFuture<String> waiting = submit(quota, "late", Priority.INTERACTIVE);
+        assertThat(quota.getQueuedCount()).isEqualTo(1);
+        advance(TOKEN_SECONDS - 1);
+        quota.drain();
+        assertThat(waiting).isNotDone();
+        advance(1);
+        quota.drain();
+        assertThat(await(waiting)).isEqualTo("late");
+        assertThat(quota.getQueuedCount()).isZero();
+
+        // never more than an hour's worth
+        advance(10 * 3600);
+        assertThat(quota.getTokens()).isEqualTo(PER_HOUR);
+    }
+
+    @Test
+    void interactiveCallsGoFirstInArrivalOrder() {
+        QuotaScheduler quota = emptied(scheduler(0, 10, Duration.ofHours(1)));
+        List<CompletableFuture<String>> calls = List.of(
+                submit(quota, "b1", Priority.BACKGROUND),
+                submit(quota, "b2", Priority.BACKGROUND),
+                submit(quota, "i1", Priority.INTERACTIVE),
+                submit(quota, "i2", Priority.INTERACTIVE));
+        assertThat(calls).noneMatch(CompletableFuture::isDone);
+
+        for (int i = 0; i < calls.size(); i++) {
+            advance(TOKEN_SECONDS);
+            quota.drain();
+            assertThat(dispatched).hasSize(i + 1);
+        }
+        assertThat(dispatched).containsExactly("i1", "i2", "b1", "b2");
+    }
+
+    @Test
+    void backgroundCallsLeaveTheReserve() throws Exception {
+        QuotaScheduler quota = scheduler(2, 10, Duration.ofHours(1));
+        for (int i = 0; i < PER_HOUR - 3; i++) {
+            submit(quota, "call" + i, Priority.BACKGROUND);
+        }
+        assertThat(dispatched).hasSize(PER_HOUR - 3);
+
+        // three tokens left: one for the background, two kept back for users
+        assertThat(submit(quota, "b1", Priority.BACKGROUND)).isDone();
+        CompletableFuture<String> background = submit(quota, "b2", Priority.BACKGROUND);
+        assertThat(background).isNotDone();
+        assertThat(quota.getTokens()).isCloseTo(2, within(1e-9));
+
+        // a user may still take the reserve; queued behind nothing interactive, it is woken at once
+        assertThat(await(submit(quota, "i1", Priority.INTERACTIVE))).isEqualTo("i1");
+        assertThat(await(submit(quota, "i2", Priority.INTERACTIVE))).isEqualTo("i2");
+        assertThat(background).isNotDone();
+
+        // the background call needs the reserve refilled plus its own token
+        advance(2 * TOKEN_SECONDS);
+        quota.drain();
+        assertThat(background).isNotDone();
+        advance(TOKEN_SECONDS);
+        quota.drain();
+        assertThat(await(background)).isEqualTo("b2");
+    }
+
+    @Test
+    void aFullQueueEvictsTheNewestBackgroundCallForAUser() {
+        QuotaScheduler quota = emptied(scheduler(0, 3, Duration.ofHours(1)));
+        CompletableFuture<String> b1 = submit(quota, "b1", Priority.BACKGROUND);
+        CompletableFuture<String> b2 = submit(quota, "b2", Priority.BACKGROUND);
+        CompletableFuture<String> b3 = submit(quota, "b3", Priority.BACKGROUND);
+
+        submit(quota, "i1", Priority.INTERACTIVE);
+        assertThat(rejection(b3)).isNotNull();
+        assertThat(quota.getQueuedCount()).isEqualTo(3);
+
+        // another background call has nothing to evict
+        assertThat(rejection(submit(quota, "b4", Priority.BACKGROUND))).isNotNull();
+
+        submit(quota, "i2", Priority.INTERACTIVE);
+        assertThat(rejection(b2)).isNotNull();
+        assertThat(b1).isNotDone();
+        submit(quota, "i3", Priority.INTERACTIVE);
+        assertThat(rejection(b1)).isNotNull();
+
+        // only users left queued: the next one is turned away
+        assertThat(rejection(submit(quota, "i4", Priority.INTERACTIVE))).isNotNull();
+        assertThat(quota.getRejectedCount()).isEqualTo(5);
+
+        for (int i = 0; i < 3; i++) {
+            advance(TOKEN_SECONDS);
+            quota.drain();
+        }
+        assertThat(dispatched).containsExactly("i1", "i2", "i3");
+    }
+
+    @Test
+    void interactiveCallsThatWouldWaitTooLongAreRejectedWithARetryTime() {
+        QuotaScheduler quota = emptied(scheduler(0, 10, Duration.ofSeconds(150)));
+        CompletableFuture<String> first = submit(quota, "i1", Priority.INTERACTIVE);
+        assertThat(first).isNotDone();
+
+        // second in line would wait two tokens, 200 s
+        BulkheadFullException rejected = rejection(submit(quota, "i2", Priority.INTERACTIVE));
+        assertThat(rejected.getRetryAfterSeconds()).isEqualTo(2 * TOKEN_SECONDS + 1);
+        // background calls are not held to the wait limit
+        assertThat(submit(quota, "b1", Priority.BACKGROUND)).isNotDone();
+        assertThat(quota.getQueuedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void promotedCallsKeepTheirPlaceAmongUsers() {
+        QuotaScheduler quota = emptied(scheduler(0, 10, Duration.ofHours(1)));
+        submit(quota, "b1", Priority.BACKGROUND);
+        submit(quota, "b2", Priority.BACKGROUND);
+        submit(quota, "i1", Priority.INTERACTIVE);
+
+        quota.promote("b2");
+        quota.promote("i1");
+        quota.promote("unknown");
+        assertThat(quota.stats()).containsEntry("queuedInteractive", 2).containsEntry("queuedBackground", 1);
+
+        for (int i = 0; i < 3; i++) {
+            advance(TOKEN_SECONDS);
+            quota.drain();
+        }
+        assertThat(dispatched).containsExactly("b2", "i1", "b1");
+    }
+
+    @Test
+    void adoptsTheQuotaTheUpstreamReports() {
+        QuotaScheduler quota = scheduler(0, 10, Duration.ofHours(1));
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> second = new CompletableFuture<>();
+        quota.submit("first", Priority.INTERACTIVE, () -> first);
+        quota.submit("second", Priority.INTERACTIVE, () -> second);
+
+        // the other call in flight will spend one of the ten remaining
+        quota.observe(10, -1);
+        assertThat(quota.getTokens()).isCloseTo(9, within(1e-9));
+        assertThat(quota.stats()).containsEntry("lastRemaining", 10).containsEntry("inFlight", 2);
+        first.complete("done");
+        second.complete("done");
+
+        // a new limit changes the refill rate and caps the bucket
+        quota.observe(-1, 72);
+        advance(TOKEN_SECONDS / 2);
+        assertThat(quota.getTokens()).isCloseTo(10, within(1e-9));
+        assertThat(quota.stats()).containsEntry("requestsPerHour", 72);
+        quota.observe(500, -1);
+        assertThat(quota.getTokens()).isEqualTo(72);
+        quota.observe(-1, 5);
+        assertThat(quota.getTokens()).isEqualTo(5);
+
+        quota.exhausted();
+        assertThat(quota.getTokens()).isZero();
+        assertThat(quota.stats()).containsEntry("lastRemaining", 0);
+        CompletableFuture<String> waiting = submit(quota, "i1", Priority.INTERACTIVE);
+        advance(3600 / 5 - 1);
+        quota.drain();
+        assertThat(waiting).isNotDone();
+        advance(1);
+        quota.drain();
+        assertThat(waiting).isDone();
+    }
+
+    private QuotaScheduler scheduler(int reserve, int maxQueued, Duration maxWait) {
+        return new QuotaScheduler("Test", PER_HOUR, reserve, maxQueued, maxWait, now::get);
+    }
+
+    // spends every token, leaving nothing dispatched on record
+    private QuotaScheduler emptied(QuotaScheduler quota) {
+        for (int i = 0; i < PER_HOUR; i++) {
+            submit(quota, "spent" + i, Priority.INTERACTIVE);
+        }
+        dispatched.clear();
+        return quota;
+    }
+
+    private CompletableFuture<String> submit(QuotaScheduler quota, String tag, Priority priority) {
+        return quota.submit(tag, priority, () -> {
+            synchronized (dispatched) {
+                dispatched.add(tag);
+            }
+            return CompletableFuture.completedFuture(tag);
+        });
+    }
+
+    private void advance(long seconds) {
+        now.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    // calls woken with no wait go through the scheduler's timer thread
+    private static String await(CompletableFuture<String> call)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        return call.get(2, TimeUnit.SECONDS);
+    }
+
+    private static BulkheadFullException rejection(CompletableFuture<String> call) {
+        assertThat(call).isCompletedExceptionally();
+        return (BulkheadFullException) call.handle((value, error) -> error).join();
+    }
+}
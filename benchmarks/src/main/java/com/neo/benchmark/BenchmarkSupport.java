@@ -0,0 +1,48 @@
+package com.neo.benchmark;
+
+import com.neo.upstream.UpstreamMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Shared setup for the benchmarks: fixtures from the classpath, and the backend's own beans
+ * wired by Spring exactly as the application would, minus the web layer.
+ */
+public final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Starts a context holding only the given configs and services. Properties not listed fall
+     * back to the defaults on their {@code @Value} annotations. Metrics go to an in-memory
+     * registry, so instrumented code pays the same recording cost as in production.
+     */
+    public static AnnotationConfigApplicationContext context(Map<String, Object> properties, Class<?>... components) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.register(UpstreamMetrics.class);
+        context.register(components);
+        context.refresh();
+        return context;
+    }
+
+    public static byte[] fixture(String name) {
+        try (InputStream in = BenchmarkSupport.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No fixture named " + name);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read fixture " + name, e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.neo.geo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GeoMath#haversineDistance} from an impact point to every element, the distance pass
+ * that report generation makes over its candidates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HaversineBenchmark {
+
+    private static final double CENTER_LAT = 41.0082;
+    private static final double CENTER_LNG = 28.9784;
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int elements;
+
+    private double[] lat;
+    private double[] lng;
+
+    @Setup
+    public void setUp() {
+        // a fixed seed keeps every run on the same points
+        SplittableRandom random = new SplittableRandom(42);
+        lat = new double[elements];
+        lng = new double[elements];
+        for (int i = 0; i < elements; i++) {
+            lat[i] = CENTER_LAT + random.nextDouble(-0.2, 0.2);
+            lng[i] = CENTER_LNG + random.nextDouble(-0.3, 0.3);
+        }
+    }
+
+    @Benchmark
+    public int countWithin() {
+        int count = 0;
+        for (int i = 0; i < lat.length; i++) {
+            if (GeoMath.haversineDistance(CENTER_LAT, CENTER_LNG, lat[i], lng[i]) <= 15.0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,84 @@
+package com.neo.service;
+
+import com.neo.benchmark.BenchmarkSupport;
+import com.neo.benchmark.StubOverpassServer;
+import com.neo.config.ImpactConfig;
+import com.neo.config.OverpassConfig;
+import com.neo.config.PopulationConfig;
+import com.neo.model.ImpactReport;
+import com.neo.population.PopulationRaster;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ImpactService#generateImpactReport} end to end against an in-process Overpass stub.
+ * With {@code cold} tiles expire at once, so every report goes through HTTP, JSON parsing and
+ * the tile cache; with {@code warm} every tile is served from the cache after the first call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImpactReportBenchmark {
+
+    private static final double LAT = 41.0082;
+    private static final double LNG = 28.9784;
+
+    @Param({"cold", "warm"})
+    public String tiles;
+
+    // joules; a 2 km search, a 9 km one, and one past the 100 km search radius cap, where a
+    // cold lookup fans out over hundreds of tiles
+    @Param({"1e15", "1e17", "2e20"})
+    public double kineticEnergy;
+
+    private StubOverpassServer overpass;
+    private Path populationCache;
+    private AnnotationConfigApplicationContext context;
+    private ImpactService service;
+
+    @Setup
+    public void setUp() throws IOException {
+        overpass = new StubOverpassServer(BenchmarkSupport.fixture("overpass-istanbul.json"));
+        populationCache = Files.createTempDirectory("neo-bench-population");
+        context = BenchmarkSupport.context(Map.of(
+                        "overpass.url", overpass.getUrl(),
+                        "overpass.tiles.ttlHours", "cold".equals(tiles) ? "0" : "24",
+                        "impact.population.cacheDir", populationCache.toString()),
+                OverpassConfig.class, OverpassService.class, PopulationConfig.class, PopulationRaster.class,
+                ImpactConfig.class, ImpactService.class);
+        service = context.getBean(ImpactService.class);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        overpass.close();
+        FileSystemUtils.deleteRecursively(populationCache);
+    }
+
+    @Benchmark
+    public ImpactReport generateImpactReport() {
+        return service.generateImpactReport(LAT, LNG, kineticEnergy).join();
+    }
+}
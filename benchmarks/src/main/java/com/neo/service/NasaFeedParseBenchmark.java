@@ -0,0 +1,105 @@
+package com.neo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neo.archive.NeoArchive;
+import com.neo.benchmark.BenchmarkSupport;
+import com.neo.config.ArchiveConfig;
+import com.neo.config.CacheConfig;
+import com.neo.config.NasaApiConfig;
+import com.neo.model.NearEarthObject;
+import com.neo.store.NeoColumnStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link NasaProxyService#parseNasaResponse(InputStream)} on recorded 1-day and 7-day feed responses,
+ * against the tree-model parse it replaced ({@code readTree} on the body string) as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NasaFeedParseBenchmark {
+
+    @Param({"1d", "7d"})
+    public String feed;
+
+    private AnnotationConfigApplicationContext context;
+    private NasaProxyService service;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkSupport.context(Map.of("neo.archive.enabled", "false"),
+                NasaApiConfig.class, CacheConfig.class, ArchiveConfig.class,
+                NeoArchive.class, NeoColumnStore.class, NasaProxyService.class);
+        service = context.getBean(NasaProxyService.class);
+        body = BenchmarkSupport.fixture("neows-feed-" + feed + ".json");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Map<LocalDate, List<NearEarthObject>> parseNasaResponse() throws IOException {
+        return service.parseNasaResponse(new ByteArrayInputStream(body));
+    }
+
+    @Benchmark
+    public Map<LocalDate, List<NearEarthObject>> readTree() throws IOException {
+        JsonNode root = objectMapper.readTree(new String(body, StandardCharsets.UTF_8));
+        Map<LocalDate, List<NearEarthObject>> byDay = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> days = root.get("near_earth_objects").fields();
+        while (days.hasNext()) {
+            Map.Entry<String, JsonNode> day = days.next();
+            List<NearEarthObject> neos = new ArrayList<>();
+            for (JsonNode obj : day.getValue()) {
+                neos.add(treeNeo(obj, day.getKey()));
+            }
+            byDay.put(LocalDate.parse(day.getKey()), neos);
+        }
+        return byDay;
+    }
+
+    // the field-by-field read the proxy did before the streaming parser
+    private static NearEarthObject treeNeo(JsonNode obj, String date) {
+        JsonNode diameter = obj.get("estimated_diameter").get("meters");
+        JsonNode closeApproach = obj.get("close_approach_data").get(0);
+        return new NearEarthObject(
+                obj.get("id").asText(), obj.get("name").asText(),
+                diameter.get("estimated_diameter_min").asDouble(),
+                diameter.get("estimated_diameter_max").asDouble(),
+                closeApproach.get("relative_velocity").get("kilometers_per_second").asDouble(),
+                closeApproach.get("miss_distance").get("kilometers").asDouble(),
+                obj.get("is_potentially_hazardous_asteroid").asBoolean(), date);
+    }
+}
@@ -0,0 +1,47 @@
+package com.neo.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.neo.benchmark.BenchmarkSupport;
+import com.neo.infrastructure.FeatureTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OverpassResponseParser#parse(InputStream)} over a recorded Overpass response (about 1500
+ * nodes and ways around Istanbul); one operation decodes the whole body into a feature table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OverpassParseBenchmark {
+
+    private OverpassResponseParser parser;
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        parser = new OverpassResponseParser(new JsonFactory());
+        body = BenchmarkSupport.fixture("overpass-istanbul.json");
+    }
+
+    @Benchmark
+    public FeatureTable parse() throws IOException {
+        return parser.parse(new ByteArrayInputStream(body));
+    }
+}
@@ -26,6 +26,39 @@ export async function fetchTodayFeed() {
     return response.json();
 }
 
+// Reads the NDJSON feed and hands NEOs to onBatch as each chunk of lines arrives
+export async function streamNeoFeed(startDate, endDate, onBatch) {
+    let url = `${API_BASE_URL}/feed`;
+
+    if (startDate && endDate) {
+        url += `?startDate=${startDate}&endDate=${endDate}`;
+    }
+
+    const response = await fetch(url, { headers: { Accept: 'application/x-ndjson' } });
+
+    if (!response.ok) {
+        throw new Error(`API request failed: ${response.status}`);
+    }
+
+    const reader = response.body.getReader();
+    const decoder = new TextDecoder();
+    let buffered = '';
+
+    while (true) {
+        const { done, value } = await reader.read();
+        if (done) break;
+
+        buffered += decoder.decode(value, { stream: true });
+        const lines = buffered.split('\n');
+        buffered = lines.pop();
+
+        const batch = lines.filter(line => line.trim()).map(line => JSON.parse(line));
+        const error = batch.find(item => item.error);
+        if (error) throw new Error(error.error);
+        if (batch.length > 0) onBatch(batch);
+    }
+}
+
 export async function checkApiHealth() {
     const response = await fetch(`${API_BASE_URL}/health`);
     return response.ok;
@@ -18,6 +18,30 @@ export function initImpactLab() {
     }).addTo(map);
 
     map.on('click', onMapClick);
+    loadExposureHeatmap();
+}
+
+// pre-rendered exposure tiles, one toggleable overlay per energy class (only served with local OSM data)
+async function loadExposureHeatmap() {
+    try {
+        const response = await fetch(`${API_BASE_URL}/heatmap`);
+        if (!response.ok) return;
+
+        const info = await response.json();
+        if (!info.ready) return;
+
+        const bounds = [[info.bounds.south, info.bounds.west], [info.bounds.north, info.bounds.east]];
+        const overlays = {};
+        info.energies.forEach(energy => {
+            overlays[`Exposure at ${formatEnergy(energy.kineticEnergyJoules)}`] = L.tileLayer(
+                `${API_BASE_URL}/heatmap/${energy.id}/{z}/{x}/{y}.png`,
+                { minZoom: info.minZoom, maxNativeZoom: info.maxZoom, maxZoom: 19, opacity: 0.7, bounds }
+            );
+        });
+        L.control.layers(null, overlays, { collapsed: true }).addTo(map);
+    } catch (error) {
+        console.error('Heatmap unavailable:', error);
+    }
 }
 
 export function showImpactLab(meteorData, velocity) {
@@ -127,35 +151,68 @@ function displayImpactReport(report) {
     document.getElementById('schools-count').textContent = report.schoolsAffected;
     document.getElementById('industrial-count').textContent = report.industrialAffected || 0;
     document.getElementById('farmland-count').textContent = report.farmlandAffected || 0;
+    document.getElementById('population-count').textContent = formatNumber(report.estimatedPopulation || 0);
 
     const listContainer = document.getElementById('infrastructure-list');
     listContainer.innerHTML = '';
 
+    // the server lists the most critical items and clusters the rest
     if (report.infrastructure && report.infrastructure.length > 0) {
-        report.infrastructure.slice(0, 25).forEach(item => {
-            const div = document.createElement('div');
-            div.className = 'infrastructure-item';
-            div.innerHTML = `
-                <div class="infrastructure-icon">${getInfrastructureIcon(item.type)}</div>
-                <div class="infrastructure-details">
-                    <div class="infrastructure-name">${item.name}</div>
-                    <div class="infrastructure-distance">${item.distanceKm.toFixed(2)} km - ${item.zone} zone</div>
-                </div>
-            `;
-            listContainer.appendChild(div);
-
-            addInfrastructureMarker(item);
-        });
+        report.infrastructure.forEach(item => appendInfrastructureItem(listContainer, item));
+        (report.infrastructureClusters || []).forEach(addClusterMarker);
+        appendMoreLink(listContainer, report, report.infrastructure.length);
     } else {
         listContainer.innerHTML = '<p style="color:var(--text-secondary);font-size:0.85rem;">No infrastructure data in this area</p>';
     }
 }
 
+function appendInfrastructureItem(listContainer, item) {
+    const div = document.createElement('div');
+    div.className = 'infrastructure-item';
+    div.innerHTML = `
+        <div class="infrastructure-icon">${getInfrastructureIcon(item.type)}</div>
+        <div class="infrastructure-details">
+            <div class="infrastructure-name">${item.name}</div>
+            <div class="infrastructure-distance">${item.distanceKm.toFixed(2)} km - ${item.zone} zone</div>
+        </div>
+    `;
+    listContainer.appendChild(div);
+
+    addInfrastructureMarker(item);
+}
+
+// the rest of the list, a page at a time from /infrastructure
+function appendMoreLink(listContainer, report, shown) {
+    const remaining = (report.infrastructureTotal || 0) - shown;
+    if (remaining <= 0) return;
+
+    const more = document.createElement('p');
+    more.style.cssText = 'color:var(--text-secondary);font-size:0.85rem;cursor:pointer;text-decoration:underline;';
+    more.textContent = `Show more (${remaining} not listed)`;
+    more.addEventListener('click', async () => {
+        more.remove();
+        try {
+            const response = await fetch(
+                `${API_BASE_URL}/infrastructure?lat=${report.latitude}&lng=${report.longitude}` +
+                `&kineticEnergy=${report.kineticEnergyJoules}&offset=${shown}&limit=100`
+            );
+            if (!response.ok) throw new Error('Infrastructure page failed');
+            const page = await response.json();
+            page.items.forEach(item => appendInfrastructureItem(listContainer, item));
+            appendMoreLink(listContainer, report, shown + page.items.length);
+        } catch (error) {
+            console.error('Infrastructure page error:', error);
+        }
+    });
+    listContainer.appendChild(more);
+}
+
 function displayFallbackReport() {
     document.getElementById('hospitals-count').textContent = 'N/A';
     document.getElementById('schools-count').textContent = 'N/A';
     document.getElementById('industrial-count').textContent = 'N/A';
     document.getElementById('farmland-count').textContent = 'N/A';
+    document.getElementById('population-count').textContent = 'N/A';
 }
 
 function addInfrastructureMarker(item) {
@@ -173,6 +230,21 @@ function addInfrastructureMarker(item) {
     infrastructureMarkers.push(marker);
 }
 
+function addClusterMarker(cluster) {
+    const color = cluster.zone === 'thermal' ? '#ff3333' : cluster.zone === 'pressure' ? '#ff8833' : '#ffcc33';
+
+    const marker = L.circleMarker([cluster.lat, cluster.lng], {
+        radius: 4 + 2 * Math.sqrt(cluster.count),
+        fillColor: color,
+        color: color,
+        weight: 1,
+        fillOpacity: 0.35
+    }).bindPopup(`<b>${cluster.count} ${cluster.category}</b><br>${cluster.zone} zone`);
+
+    marker.addTo(map);
+    infrastructureMarkers.push(marker);
+}
+
 function getInfrastructureIcon(type) {
     const icons = {
         hospital: '🏥',
@@ -1,6 +1,6 @@
 import * as THREE from 'three';
 import { OrbitControls } from 'three/addons/controls/OrbitControls.js';
-import { fetchTodayFeed } from './api.js';
+import { streamNeoFeed } from './api.js';
 import { scaleDistance, getScaledEarthRadius } from './physics.js';
 import { showLoading, hideLoading, showDashboard, setImpactCallback, showImpactReport } from './ui.js';
 
@@ -203,8 +203,11 @@ async function loadNeoData() {
     showLoading();
 
     try {
-        const neoList = await fetchTodayFeed();
-        createMeteoriteObjects(neoList);
+        // render each batch as it streams in instead of waiting for the whole feed
+        await streamNeoFeed(null, null, batch => {
+            createMeteoriteObjects(batch);
+            hideLoading();
+        });
     } catch (error) {
         console.error('Failed to load NEO data:', error);
     }